@@ -0,0 +1,139 @@
+/*
+ * Copyright 2015-2018 Aleksandr Mashchenko.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.amashchenko.eclipse.strutsclipse;
+
+import org.eclipse.core.filebuffers.FileBuffers;
+import org.eclipse.core.resources.IResourceChangeEvent;
+import org.eclipse.core.resources.ResourcesPlugin;
+import org.eclipse.core.runtime.Plugin;
+import org.eclipse.jdt.core.ElementChangedEvent;
+import org.eclipse.jdt.core.JavaCore;
+import org.osgi.framework.BundleContext;
+
+import com.amashchenko.eclipse.strutsclipse.java.ActionAnnotationIndex;
+import com.amashchenko.eclipse.strutsclipse.java.TypeMethodsCache;
+import com.amashchenko.eclipse.strutsclipse.java.TypeResolutionCache;
+import com.amashchenko.eclipse.strutsclipse.java.WorkingCopyPool;
+import com.amashchenko.eclipse.strutsclipse.strutsxml.StrutsXmlIndex;
+import com.amashchenko.eclipse.strutsclipse.strutsxml.StrutsXmlIndexStore;
+import com.amashchenko.eclipse.strutsclipse.strutsxml.StrutsXmlJarCache;
+import com.amashchenko.eclipse.strutsclipse.xmlparser.XmlModelCache;
+
+public class Activator extends Plugin {
+	public static final String PLUGIN_ID = "com.amashchenko.eclipse.strutsclipse.plugin";
+
+	private static Activator plugin;
+
+	@Override
+	public void start(BundleContext context) throws Exception {
+		super.start(context);
+		plugin = this;
+
+		FileBuffers.getTextFileBufferManager().addFileBufferListener(
+				XmlModelCache.getBufferListener());
+		FileBuffers.getTextFileBufferManager().addFileBufferListener(
+				IndexingScheduler.getBufferListener());
+		FileBuffers.getTextFileBufferManager().addFileBufferListener(
+				StrutsXmlIndex.getBufferListener());
+		ResourcesPlugin.getWorkspace().addResourceChangeListener(
+				WebComponentCache.getResourceChangeListener(),
+				IResourceChangeEvent.POST_CHANGE);
+		ResourcesPlugin.getWorkspace().addResourceChangeListener(
+				StrutsXmlIndex.getResourceChangeListener(),
+				IResourceChangeEvent.POST_CHANGE);
+		ResourcesPlugin.getWorkspace().addResourceChangeListener(
+				WebFilesIndex.getResourceChangeListener(),
+				IResourceChangeEvent.POST_CHANGE);
+		ResourcesPlugin.getWorkspace().addResourceChangeListener(
+				PropertiesIndex.getResourceChangeListener(),
+				IResourceChangeEvent.POST_CHANGE);
+		ResourcesPlugin.getWorkspace().addResourceChangeListener(
+				ContentTypeCache.getResourceChangeListener(),
+				IResourceChangeEvent.POST_CHANGE);
+		JavaCore.addElementChangedListener(
+				TypeMethodsCache.getElementChangedListener(),
+				ElementChangedEvent.POST_CHANGE
+						| ElementChangedEvent.POST_RECONCILE);
+		JavaCore.addElementChangedListener(
+				TypeResolutionCache.getElementChangedListener(),
+				ElementChangedEvent.POST_CHANGE);
+		JavaCore.addElementChangedListener(
+				ActionAnnotationIndex.getElementChangedListener(),
+				ElementChangedEvent.POST_CHANGE
+						| ElementChangedEvent.POST_RECONCILE);
+		JavaCore.addElementChangedListener(
+				WorkingCopyPool.getElementChangedListener(),
+				ElementChangedEvent.POST_CHANGE);
+		JavaCore.addElementChangedListener(
+				StrutsXmlIndex.getElementChangedListener(),
+				ElementChangedEvent.POST_CHANGE);
+	}
+
+	@Override
+	public void stop(BundleContext context) throws Exception {
+		try {
+			FileBuffers.getTextFileBufferManager().removeFileBufferListener(
+					IndexingScheduler.getBufferListener());
+			IndexingScheduler.cancelAll();
+			BulkParser.shutdown();
+			JavaCore.removeElementChangedListener(TypeMethodsCache
+					.getElementChangedListener());
+			TypeMethodsCache.clear();
+			JavaCore.removeElementChangedListener(TypeResolutionCache
+					.getElementChangedListener());
+			TypeResolutionCache.clear();
+			JavaCore.removeElementChangedListener(ActionAnnotationIndex
+					.getElementChangedListener());
+			ActionAnnotationIndex.clear();
+			JavaCore.removeElementChangedListener(WorkingCopyPool
+					.getElementChangedListener());
+			WorkingCopyPool.disposeAll();
+			ResourcesPlugin.getWorkspace().removeResourceChangeListener(
+					WebComponentCache.getResourceChangeListener());
+			WebComponentCache.clear();
+			FileBuffers.getTextFileBufferManager().removeFileBufferListener(
+					StrutsXmlIndex.getBufferListener());
+			ResourcesPlugin.getWorkspace().removeResourceChangeListener(
+					StrutsXmlIndex.getResourceChangeListener());
+			JavaCore.removeElementChangedListener(StrutsXmlIndex
+					.getElementChangedListener());
+			StrutsXmlIndexStore.save();
+			StrutsXmlIndex.clear();
+			ResourcesPlugin.getWorkspace().removeResourceChangeListener(
+					WebFilesIndex.getResourceChangeListener());
+			WebFilesIndex.clear();
+			ResourcesPlugin.getWorkspace().removeResourceChangeListener(
+					PropertiesIndex.getResourceChangeListener());
+			PropertiesIndex.clear();
+			ResourcesPlugin.getWorkspace().removeResourceChangeListener(
+					ContentTypeCache.getResourceChangeListener());
+			ContentTypeCache.clear();
+			StrutsXmlJarCache.save();
+			JarDataStore.clear();
+			JarScanner.clear();
+			FileBuffers.getTextFileBufferManager().removeFileBufferListener(
+					XmlModelCache.getBufferListener());
+			XmlModelCache.clear();
+		} finally {
+			plugin = null;
+			super.stop(context);
+		}
+	}
+
+	public static Activator getDefault() {
+		return plugin;
+	}
+}
@@ -0,0 +1,146 @@
+/*
+ * Copyright 2015-2018 Aleksandr Mashchenko.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.amashchenko.eclipse.strutsclipse;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+import org.eclipse.core.runtime.IProgressMonitor;
+import org.eclipse.core.runtime.NullProgressMonitor;
+import org.eclipse.core.runtime.OperationCanceledException;
+
+/**
+ * Parses many files at once in the shared pool with the bounded number of
+ * threads. Items are split in halves until the single item is left, so slow
+ * files do not keep other threads idle. Results are returned in the order of
+ * the items regardless of the order they were parsed in. Caller waits for
+ * all items, so it is used by the indexing jobs only and never from the
+ * requests of the editors.
+ */
+public class BulkParser {
+	// leave one core for the UI thread
+	private static final int PARALLELISM = Math.max(1, Math.min(8, Runtime
+			.getRuntime().availableProcessors() - 1));
+
+	private static ForkJoinPool pool;
+
+	private BulkParser() {
+	}
+
+	/**
+	 * Parses items in parallel.
+	 * 
+	 * @param items
+	 *            Items to parse.
+	 * @param task
+	 *            Parse of the single item, must be thread safe.
+	 * @param monitor
+	 *            Monitor to check for cancellation, can be <code>null</code>.
+	 * @return Results in the order of the items.
+	 * @throws OperationCanceledException
+	 *             If monitor was canceled before all items were parsed.
+	 */
+	public static <T, R> List<R> parse(final List<T> items,
+			final Task<T, R> task, final IProgressMonitor monitor) {
+		final IProgressMonitor mon = monitor == null ? new NullProgressMonitor()
+				: monitor;
+		final Object[] results = new Object[items.size()];
+
+		final ParseAction<T, R> action = new ParseAction<T, R>(items, task,
+				mon, results, 0, items.size());
+		if (items.size() < 2 || PARALLELISM < 2) {
+			action.parseItems();
+		} else {
+			getPool().invoke(action);
+		}
+
+		if (mon.isCanceled()) {
+			throw new OperationCanceledException();
+		}
+
+		List<R> list = new ArrayList<R>(results.length);
+		for (Object result : results) {
+			@SuppressWarnings("unchecked")
+			R r = (R) result;
+			list.add(r);
+		}
+		return list;
+	}
+
+	/**
+	 * Stops the pool threads when the running parses finish. Pool is created
+	 * again on the next parse.
+	 */
+	public static synchronized void shutdown() {
+		if (pool != null) {
+			pool.shutdown();
+			pool = null;
+		}
+	}
+
+	private static synchronized ForkJoinPool getPool() {
+		if (pool == null) {
+			pool = new ForkJoinPool(PARALLELISM);
+		}
+		return pool;
+	}
+
+	public interface Task<T, R> {
+		R parse(T item);
+	}
+
+	private static class ParseAction<T, R> extends RecursiveAction {
+		private static final long serialVersionUID = 1L;
+
+		private final List<T> items;
+		private final Task<T, R> task;
+		private final IProgressMonitor monitor;
+		private final Object[] results;
+		private final int from;
+		private final int to;
+
+		private ParseAction(List<T> items, Task<T, R> task,
+				IProgressMonitor monitor, Object[] results, int from, int to) {
+			this.items = items;
+			this.task = task;
+			this.monitor = monitor;
+			this.results = results;
+			this.from = from;
+			this.to = to;
+		}
+
+		@Override
+		protected void compute() {
+			if (to - from < 2) {
+				parseItems();
+			} else {
+				final int middle = (from + to) >>> 1;
+				invokeAll(new ParseAction<T, R>(items, task, monitor, results,
+						from, middle), new ParseAction<T, R>(items, task,
+						monitor, results, middle, to));
+			}
+		}
+
+		private void parseItems() {
+			for (int i = from; i < to && !monitor.isCanceled(); i++) {
+				// each slot is written by one action only
+				results[i] = task.parse(items.get(i));
+			}
+		}
+	}
+}
@@ -24,9 +24,13 @@ import java.util.Map.Entry;
 import java.util.Set;
 
 import org.eclipse.jdt.ui.text.java.CompletionProposalComparator;
+import org.eclipse.jface.text.IDocument;
 import org.eclipse.jface.text.IRegion;
 import org.eclipse.jface.text.contentassist.CompletionProposal;
 import org.eclipse.jface.text.contentassist.ICompletionProposal;
+import org.eclipse.jface.text.contentassist.IContextInformation;
+import org.eclipse.swt.graphics.Image;
+import org.eclipse.swt.graphics.Point;
 
 import com.amashchenko.eclipse.strutsclipse.xmlparser.ElementRegion;
 
@@ -38,6 +42,20 @@ public class CompletionProposalHelper {
 			String[][] proposalsData, String prefix, IRegion region,
 			String valueSeparator, String attrvalue,
 			CompletionProposalComparator proposalComparator) {
+		return createAttrCompletionProposals(proposalsData, prefix, region,
+				valueSeparator, attrvalue, proposalComparator, null);
+	}
+
+	/**
+	 * Creates proposals which additional info is rendered by the given
+	 * provider when the proposal is displayed, instead of the info from the
+	 * proposals data.
+	 */
+	public static List<ICompletionProposal> createAttrCompletionProposals(
+			String[][] proposalsData, String prefix, IRegion region,
+			String valueSeparator, String attrvalue,
+			CompletionProposalComparator proposalComparator,
+			AdditionalInfoProvider infoProvider) {
 		List<ICompletionProposal> list = new ArrayList<ICompletionProposal>();
 		if (proposalsData != null && region != null) {
 			ElementRegion parsedValue = ParseUtil.parseElementValue(attrvalue,
@@ -71,10 +89,17 @@ public class CompletionProposalHelper {
 				if (!excludes.contains(proposal[0])
 						&& (propLowCase.startsWith(prefixLowCase) || (pathLike && propLowCase
 								.contains(prefixLowCase)))) {
-					list.add(new CompletionProposal(proposal[0], parsedValue
-							.getValueRegion().getOffset(), parsedValue
-							.getValueRegion().getLength(),
-							proposal[0].length(), null, null, null, proposal[1]));
+					CompletionProposal completionProposal = new CompletionProposal(
+							proposal[0], parsedValue.getValueRegion()
+									.getOffset(), parsedValue.getValueRegion()
+									.getLength(), proposal[0].length(), null,
+							null, null, proposal[1]);
+					if (infoProvider == null) {
+						list.add(completionProposal);
+					} else {
+						list.add(new LazyInfoCompletionProposal(
+								completionProposal, proposal[0], infoProvider));
+					}
 				}
 			}
 		}
@@ -123,4 +148,57 @@ public class CompletionProposalHelper {
 		}
 		return proposals;
 	}
+
+	public interface AdditionalInfoProvider {
+		String getAdditionalInfo(String proposal);
+	}
+
+	private static class LazyInfoCompletionProposal implements
+			ICompletionProposal {
+		private final CompletionProposal delegate;
+		private final String proposal;
+		private AdditionalInfoProvider infoProvider;
+		private String additionalInfo;
+
+		private LazyInfoCompletionProposal(CompletionProposal delegate,
+				String proposal, AdditionalInfoProvider infoProvider) {
+			this.delegate = delegate;
+			this.proposal = proposal;
+			this.infoProvider = infoProvider;
+		}
+
+		@Override
+		public void apply(IDocument document) {
+			delegate.apply(document);
+		}
+
+		@Override
+		public Point getSelection(IDocument document) {
+			return delegate.getSelection(document);
+		}
+
+		@Override
+		public String getAdditionalProposalInfo() {
+			if (infoProvider != null) {
+				additionalInfo = infoProvider.getAdditionalInfo(proposal);
+				infoProvider = null;
+			}
+			return additionalInfo;
+		}
+
+		@Override
+		public String getDisplayString() {
+			return delegate.getDisplayString();
+		}
+
+		@Override
+		public Image getImage() {
+			return delegate.getImage();
+		}
+
+		@Override
+		public IContextInformation getContextInformation() {
+			return delegate.getContextInformation();
+		}
+	}
 }
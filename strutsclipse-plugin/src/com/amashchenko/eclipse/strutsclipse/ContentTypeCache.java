@@ -0,0 +1,160 @@
+/*
+ * Copyright 2015-2018 Aleksandr Mashchenko.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.amashchenko.eclipse.strutsclipse;
+
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.eclipse.core.resources.IFile;
+import org.eclipse.core.resources.IResource;
+import org.eclipse.core.resources.IResourceChangeEvent;
+import org.eclipse.core.resources.IResourceChangeListener;
+import org.eclipse.core.resources.IResourceDelta;
+import org.eclipse.core.resources.IResourceDeltaVisitor;
+import org.eclipse.core.runtime.CoreException;
+import org.eclipse.core.runtime.IPath;
+import org.eclipse.core.runtime.content.IContentDescription;
+import org.eclipse.core.runtime.content.IContentType;
+
+/**
+ * Cache of the files content types. Content type is detected again only if
+ * the file modification stamp has changed. Removed files and files of the
+ * closed and removed projects are dropped from the resource deltas.
+ */
+public class ContentTypeCache {
+	private static final Map<IPath, FileContentType> FILES = new ConcurrentHashMap<IPath, FileContentType>();
+
+	private static final IResourceChangeListener RESOURCE_LISTENER = new ResourceChangeListener();
+
+	private ContentTypeCache() {
+	}
+
+	/**
+	 * Checks if the file content type is a kind of the given content type.
+	 * 
+	 * @param file
+	 *            File.
+	 * @param contentType
+	 *            Content type.
+	 * @return <code>true</code> if file has given content type or its
+	 *         subtype.
+	 * @throws CoreException
+	 *             If content type can't be detected.
+	 */
+	public static boolean isKindOf(final IFile file,
+			final IContentType contentType) throws CoreException {
+		IContentType fileContentType = getContentType(file);
+		return fileContentType != null
+				&& fileContentType.isKindOf(contentType);
+	}
+
+	/**
+	 * Gets content type of the file.
+	 * 
+	 * @param file
+	 *            File.
+	 * @return Content type or <code>null</code> if it can't be determined.
+	 * @throws CoreException
+	 *             If content type can't be detected.
+	 */
+	public static IContentType getContentType(final IFile file)
+			throws CoreException {
+		final IPath path = file.getFullPath();
+		final long stamp = file.getModificationStamp();
+
+		FileContentType cached = FILES.get(path);
+		if (cached == null || cached.stamp != stamp) {
+			IContentDescription descrp = file.getContentDescription();
+			cached = new FileContentType(stamp, descrp == null ? null
+					: descrp.getContentType());
+			if (stamp != IResource.NULL_STAMP) {
+				FILES.put(path, cached);
+			}
+		}
+		return cached.contentType;
+	}
+
+	public static IResourceChangeListener getResourceChangeListener() {
+		return RESOURCE_LISTENER;
+	}
+
+	public static void clear() {
+		FILES.clear();
+	}
+
+	public static int size() {
+		return FILES.size();
+	}
+
+	private static void removeAll(final IPath containerPath) {
+		Iterator<IPath> it = FILES.keySet().iterator();
+		while (it.hasNext()) {
+			if (containerPath.isPrefixOf(it.next())) {
+				it.remove();
+			}
+		}
+	}
+
+	private static class FileContentType {
+		private final long stamp;
+		private final IContentType contentType;
+
+		private FileContentType(long stamp, IContentType contentType) {
+			this.stamp = stamp;
+			this.contentType = contentType;
+		}
+	}
+
+	private static class ResourceChangeListener implements
+			IResourceChangeListener, IResourceDeltaVisitor {
+		@Override
+		public void resourceChanged(IResourceChangeEvent event) {
+			if (event.getDelta() != null && !FILES.isEmpty()) {
+				try {
+					event.getDelta().accept(this);
+				} catch (CoreException e) {
+					e.printStackTrace();
+				}
+			}
+		}
+
+		@Override
+		public boolean visit(IResourceDelta delta) throws CoreException {
+			final IResource resource = delta.getResource();
+			final int kind = delta.getKind();
+
+			boolean visitChildren = true;
+			switch (resource.getType()) {
+			case IResource.PROJECT:
+			case IResource.FOLDER:
+				if (kind == IResourceDelta.REMOVED
+						|| (delta.getFlags() & IResourceDelta.OPEN) != 0) {
+					removeAll(resource.getFullPath());
+					visitChildren = false;
+				}
+				break;
+			case IResource.FILE:
+				visitChildren = false;
+				if (kind == IResourceDelta.REMOVED) {
+					FILES.remove(resource.getFullPath());
+				}
+				break;
+			}
+			return visitChildren;
+		}
+	}
+}
@@ -0,0 +1,255 @@
+/*
+ * Copyright 2015-2018 Aleksandr Mashchenko.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.amashchenko.eclipse.strutsclipse;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.eclipse.core.filebuffers.IFileBuffer;
+import org.eclipse.core.filebuffers.IFileBufferListener;
+import org.eclipse.core.resources.IFile;
+import org.eclipse.core.resources.IProject;
+import org.eclipse.core.resources.ResourcesPlugin;
+import org.eclipse.core.runtime.IPath;
+import org.eclipse.core.runtime.IProgressMonitor;
+import org.eclipse.core.runtime.OperationCanceledException;
+import org.eclipse.core.runtime.IStatus;
+import org.eclipse.core.runtime.Status;
+import org.eclipse.core.runtime.jobs.Job;
+import org.eclipse.jdt.core.JavaCore;
+
+import com.amashchenko.eclipse.strutsclipse.java.ActionAnnotationIndex;
+import com.amashchenko.eclipse.strutsclipse.strutsxml.StrutsXmlIndex;
+
+/**
+ * Schedules building of the project indexes in the background jobs. Indexes
+ * are warmed up when the struts xml, tiles xml or JSP file is open in the
+ * project. Outdated indexes are built again after the burst of the changes
+ * and are used by the requests until the new index is built. There is at
+ * most one indexing job per project; job of the project with the most
+ * recently open file runs before the others. Job is dropped when it has
+ * nothing more to index.
+ */
+public class IndexingScheduler {
+	// waits for the burst of the resource changes to end
+	private static final long REINDEX_DELAY = 500;
+
+	// guarded by itself
+	private static final Map<IProject, IndexingJob> JOBS = new HashMap<IProject, IndexingJob>();
+
+	private static volatile IProject activeProject;
+
+	private static final IFileBufferListener BUFFER_LISTENER = new BufferCreationListener();
+
+	private IndexingScheduler() {
+	}
+
+	/**
+	 * Builds the missing indexes of the project as soon as possible.
+	 * 
+	 * @param project
+	 *            Project which is worked on.
+	 */
+	public static void warmUp(final IProject project) {
+		activeProject = project;
+		schedule(project, 0);
+	}
+
+	/**
+	 * Builds the outdated indexes of the project after a delay. Changes
+	 * reported during the delay are indexed by the same job.
+	 * 
+	 * @param project
+	 *            Changed project.
+	 */
+	public static void reindex(final IProject project) {
+		schedule(project, REINDEX_DELAY);
+	}
+
+	/**
+	 * Cancels indexing of the project, e.g. if the project is closed.
+	 * 
+	 * @param project
+	 *            Project.
+	 */
+	public static void cancel(final IProject project) {
+		IndexingJob job;
+		synchronized (JOBS) {
+			job = JOBS.remove(project);
+		}
+		if (job != null) {
+			job.cancel();
+		}
+		if (project.equals(activeProject)) {
+			activeProject = null;
+		}
+	}
+
+	public static void cancelAll() {
+		List<IProject> projects;
+		synchronized (JOBS) {
+			projects = new ArrayList<IProject>(JOBS.keySet());
+		}
+		for (IProject project : projects) {
+			cancel(project);
+		}
+		activeProject = null;
+	}
+
+	public static IFileBufferListener getBufferListener() {
+		return BUFFER_LISTENER;
+	}
+
+	private static void schedule(final IProject project, final long delay) {
+		if (project == null) {
+			return;
+		}
+		synchronized (JOBS) {
+			IndexingJob job = JOBS.get(project);
+			if (job == null) {
+				job = new IndexingJob(project);
+				JOBS.put(project, job);
+			}
+			// priority of the waiting job is changed as well
+			job.setPriority(project.equals(activeProject) ? Job.INTERACTIVE
+					: Job.DECORATE);
+			job.pending = true;
+			job.schedule(delay);
+		}
+	}
+
+	// job which is not scheduled again is dropped
+	private static void done(final IndexingJob job) {
+		synchronized (JOBS) {
+			if (!job.pending && JOBS.get(job.project) == job) {
+				JOBS.remove(job.project);
+			}
+		}
+	}
+
+	private static class IndexingJob extends Job {
+		private final IProject project;
+		// scheduled and not run yet, guarded by JOBS
+		private boolean pending;
+
+		private IndexingJob(IProject project) {
+			super("Indexing Struts project " + project.getName());
+			this.project = project;
+			setSystem(true);
+		}
+
+		@Override
+		protected IStatus run(IProgressMonitor monitor) {
+			synchronized (JOBS) {
+				pending = false;
+			}
+			try {
+				return index(monitor);
+			} finally {
+				done(this);
+			}
+		}
+
+		private IStatus index(IProgressMonitor monitor) {
+			if (!project.isAccessible()) {
+				return Status.OK_STATUS;
+			}
+
+			boolean complete;
+			try {
+				complete = StrutsXmlIndex.build(project, monitor);
+			} catch (OperationCanceledException e) {
+				return Status.CANCEL_STATUS;
+			}
+			complete &= WebFilesIndex.build(project, monitor);
+			if (monitor.isCanceled()) {
+				return Status.CANCEL_STATUS;
+			}
+			complete &= PropertiesIndex.build(project, monitor);
+			if (monitor.isCanceled()) {
+				return Status.CANCEL_STATUS;
+			}
+			complete &= ActionAnnotationIndex.build(
+					JavaCore.create(project), monitor);
+			if (monitor.isCanceled()) {
+				return Status.CANCEL_STATUS;
+			}
+
+			// project has changed while indexing
+			if (!complete) {
+				reindex(project);
+			}
+			return Status.OK_STATUS;
+		}
+	}
+
+	private static class BufferCreationListener implements
+			IFileBufferListener {
+		@Override
+		public void bufferCreated(IFileBuffer buffer) {
+			final IPath location = buffer.getLocation();
+			// buffers of the indexed files are created by the indexing too
+			if (location == null || location.segmentCount() < 2
+					|| ProjectUtil.isLoadingDocument()) {
+				return;
+			}
+			IFile file = ResourcesPlugin.getWorkspace().getRoot()
+					.getFile(location);
+			if (ProjectUtil.isIndexedContent(file)) {
+				warmUp(file.getProject());
+			}
+		}
+
+		@Override
+		public void bufferDisposed(IFileBuffer buffer) {
+		}
+
+		@Override
+		public void bufferContentAboutToBeReplaced(IFileBuffer buffer) {
+		}
+
+		@Override
+		public void bufferContentReplaced(IFileBuffer buffer) {
+		}
+
+		@Override
+		public void stateChanging(IFileBuffer buffer) {
+		}
+
+		@Override
+		public void dirtyStateChanged(IFileBuffer buffer, boolean isDirty) {
+		}
+
+		@Override
+		public void stateValidationChanged(IFileBuffer buffer,
+				boolean isStateValidated) {
+		}
+
+		@Override
+		public void underlyingFileMoved(IFileBuffer buffer, IPath path) {
+		}
+
+		@Override
+		public void underlyingFileDeleted(IFileBuffer buffer) {
+		}
+
+		@Override
+		public void stateChangeFailed(IFileBuffer buffer) {
+		}
+	}
+}
@@ -0,0 +1,63 @@
+/*
+ * Copyright 2015-2018 Aleksandr Mashchenko.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.amashchenko.eclipse.strutsclipse;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Data derived from the archive contents, shared by all projects which have
+ * the same archive on the classpath. Values are loaded once per archive
+ * contents and must not be modified.
+ */
+public class JarData {
+	private final String checksum;
+	private final Map<String, Object> values = new HashMap<String, Object>();
+
+	JarData(String checksum) {
+		this.checksum = checksum;
+	}
+
+	/**
+	 * @return Checksum of the archive contents.
+	 */
+	public String getChecksum() {
+		return checksum;
+	}
+
+	/**
+	 * Gets value with the given key, loading it on the first request.
+	 * 
+	 * @param key
+	 *            Value key, e.g. kind of the data and entry path.
+	 * @param loader
+	 *            Loader of the value, called only if there is no value yet.
+	 * @return Unmodifiable value.
+	 */
+	@SuppressWarnings("unchecked")
+	public synchronized <T> T get(final String key, final Loader<T> loader) {
+		T value = (T) values.get(key);
+		if (value == null) {
+			value = loader.load();
+			values.put(key, value);
+		}
+		return value;
+	}
+
+	public interface Loader<T> {
+		T load();
+	}
+}
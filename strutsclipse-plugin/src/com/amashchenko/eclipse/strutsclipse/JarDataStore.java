@@ -0,0 +1,153 @@
+/*
+ * Copyright 2015-2018 Aleksandr Mashchenko.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.amashchenko.eclipse.strutsclipse;
+
+import java.io.File;
+import java.io.IOException;
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.WeakReference;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Workspace store of the {@link JarData} keyed by the archive checksum, so
+ * copies of the same archive in the different projects share the data.
+ * Projects keep references to the data of their archives and the store
+ * references data weakly, so it is reclaimed once all projects referencing
+ * the archive are released.
+ */
+public class JarDataStore {
+	// checksum -> shared data
+	private static final Map<String, JarDataReference> JARS = new HashMap<String, JarDataReference>();
+	// project name -> archive path -> data of the archive
+	private static final Map<String, Map<String, JarData>> PROJECTS = new HashMap<String, Map<String, JarData>>();
+
+	private static final ReferenceQueue<JarData> QUEUE = new ReferenceQueue<JarData>();
+
+	private JarDataStore() {
+	}
+
+	/**
+	 * Gets shared data of the archive and references it from the project.
+	 * 
+	 * @param projectName
+	 *            Name of the project which has archive on the classpath.
+	 * @param archive
+	 *            Archive file.
+	 * @return Shared data of the archive.
+	 * @throws IOException
+	 *             If archive can't be read.
+	 */
+	public static JarData getJarData(final String projectName,
+			final File archive) throws IOException {
+		final String checksum = JarScanner.getChecksum(archive);
+		final String path = archive.getAbsolutePath();
+
+		synchronized (JARS) {
+			expunge();
+
+			Map<String, JarData> projectJars = PROJECTS.get(projectName);
+			if (projectJars == null) {
+				projectJars = new HashMap<String, JarData>();
+				PROJECTS.put(projectName, projectJars);
+			}
+
+			JarData jarData = projectJars.get(path);
+			if (jarData == null || !checksum.equals(jarData.getChecksum())) {
+				JarDataReference ref = JARS.get(checksum);
+				jarData = ref == null ? null : ref.get();
+				if (jarData == null) {
+					jarData = new JarData(checksum);
+					JARS.put(checksum, new JarDataReference(jarData));
+				}
+				projectJars.put(path, jarData);
+			}
+			return jarData;
+		}
+	}
+
+	/**
+	 * Releases references of the project, e.g. when project is closed or
+	 * deleted.
+	 * 
+	 * @param projectName
+	 *            Project name.
+	 */
+	public static void release(final String projectName) {
+		synchronized (JARS) {
+			PROJECTS.remove(projectName);
+		}
+	}
+
+	/**
+	 * Releases references of the project to the archives which are no longer
+	 * on its classpath, e.g. when classpath has changed.
+	 * 
+	 * @param projectName
+	 *            Project name.
+	 * @param archivePaths
+	 *            Absolute paths of the archives on the project classpath.
+	 */
+	public static void retain(final String projectName,
+			final Set<String> archivePaths) {
+		synchronized (JARS) {
+			Map<String, JarData> projectJars = PROJECTS.get(projectName);
+			if (projectJars != null) {
+				projectJars.keySet().retainAll(archivePaths);
+				if (projectJars.isEmpty()) {
+					PROJECTS.remove(projectName);
+				}
+			}
+		}
+	}
+
+	/**
+	 * @return Number of the archives which data is still in memory.
+	 */
+	public static int size() {
+		synchronized (JARS) {
+			expunge();
+			return JARS.size();
+		}
+	}
+
+	public static void clear() {
+		synchronized (JARS) {
+			PROJECTS.clear();
+			JARS.clear();
+		}
+	}
+
+	// removes keys of the reclaimed data
+	private static void expunge() {
+		JarDataReference ref;
+		while ((ref = (JarDataReference) QUEUE.poll()) != null) {
+			if (JARS.get(ref.checksum) == ref) {
+				JARS.remove(ref.checksum);
+			}
+		}
+	}
+
+	private static class JarDataReference extends WeakReference<JarData> {
+		private final String checksum;
+
+		private JarDataReference(JarData jarData) {
+			super(jarData, QUEUE);
+			this.checksum = jarData.getChecksum();
+		}
+	}
+}
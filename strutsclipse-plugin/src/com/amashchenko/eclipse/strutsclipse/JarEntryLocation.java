@@ -0,0 +1,67 @@
+/*
+ * Copyright 2015-2018 Aleksandr Mashchenko.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.amashchenko.eclipse.strutsclipse;
+
+import java.io.File;
+
+/**
+ * Location of the entry in the archive found by {@link JarScanner}.
+ */
+public class JarEntryLocation {
+	private final File archive;
+	private final String name;
+	private final long headerOffset;
+	private final int method;
+	private final long compressedSize;
+
+	public JarEntryLocation(File archive, String name, long headerOffset,
+			int method, long compressedSize) {
+		this.archive = archive;
+		this.name = name;
+		this.headerOffset = headerOffset;
+		this.method = method;
+		this.compressedSize = compressedSize;
+	}
+
+	public File getArchive() {
+		return archive;
+	}
+
+	/**
+	 * @return Entry path in the archive.
+	 */
+	public String getName() {
+		return name;
+	}
+
+	/**
+	 * @return Offset of the entry local header in the archive.
+	 */
+	public long getHeaderOffset() {
+		return headerOffset;
+	}
+
+	/**
+	 * @return Compression method of the entry.
+	 */
+	public int getMethod() {
+		return method;
+	}
+
+	public long getCompressedSize() {
+		return compressedSize;
+	}
+}
@@ -15,12 +15,16 @@
  */
 package com.amashchenko.eclipse.strutsclipse;
 
+import java.io.File;
+import java.io.IOException;
 import java.io.InputStream;
 import java.util.Scanner;
 
 import org.eclipse.core.resources.IStorage;
 import org.eclipse.core.runtime.CoreException;
 import org.eclipse.core.runtime.IPath;
+import org.eclipse.core.runtime.IStatus;
+import org.eclipse.core.runtime.Status;
 import org.eclipse.jdt.core.IJarEntryResource;
 import org.eclipse.jface.text.Document;
 import org.eclipse.jface.text.IDocument;
@@ -28,15 +32,31 @@ import org.eclipse.jface.text.IDocument;
 public class JarEntryStorage implements IStorage {
 	private final IPath fFullPath;
 	private final IJarEntryResource fJarEntryResource;
+	private final File fArchiveFile;
+	private final JarEntryLocation fLocation;
+	private final JarData fJarData;
 
-	public JarEntryStorage(IPath fullPath, IJarEntryResource jarEntryResource) {
+	public JarEntryStorage(IPath fullPath, IJarEntryResource jarEntryResource,
+			File archiveFile, JarData jarData) {
 		fFullPath = fullPath;
 		fJarEntryResource = jarEntryResource;
+		fArchiveFile = archiveFile;
+		fLocation = null;
+		fJarData = jarData;
+	}
+
+	public JarEntryStorage(IPath fullPath, JarEntryLocation location,
+			JarData jarData) {
+		fFullPath = fullPath;
+		fJarEntryResource = null;
+		fArchiveFile = location.getArchive();
+		fLocation = location;
+		fJarData = jarData;
 	}
 
 	public IDocument toDocument() {
 		IDocument document = null;
-		try (Scanner scanner = new Scanner(fJarEntryResource.getContents())) {
+		try (Scanner scanner = new Scanner(getContents())) {
 			scanner.useDelimiter("\\A");
 			String str = scanner.hasNext() ? scanner.next() : null;
 			if (str != null) {
@@ -48,9 +68,41 @@ public class JarEntryStorage implements IStorage {
 		return document;
 	}
 
+	/**
+	 * @return Archive file in the file system or <code>null</code> if it is
+	 *         not known.
+	 */
+	public File getArchiveFile() {
+		return fArchiveFile;
+	}
+
+	/**
+	 * @return Data shared by all copies of the archive or <code>null</code>
+	 *         if archive is not known.
+	 */
+	public JarData getJarData() {
+		return fJarData;
+	}
+
+	/**
+	 * @return Path of the entry inside the archive.
+	 */
+	public String getEntryPath() {
+		return fLocation == null ? fJarEntryResource.getFullPath().toString()
+				: "/" + fLocation.getName();
+	}
+
 	@Override
 	public InputStream getContents() throws CoreException {
-		return fJarEntryResource.getContents();
+		if (fLocation == null) {
+			return fJarEntryResource.getContents();
+		}
+		try {
+			return JarScanner.openEntry(fLocation);
+		} catch (IOException e) {
+			throw new CoreException(new Status(IStatus.ERROR,
+					Activator.PLUGIN_ID, e.getMessage(), e));
+		}
 	}
 
 	@Override
@@ -60,7 +112,11 @@ public class JarEntryStorage implements IStorage {
 
 	@Override
 	public String getName() {
-		return fJarEntryResource.getName();
+		if (fLocation == null) {
+			return fJarEntryResource.getName();
+		}
+		final String name = fLocation.getName();
+		return name.substring(name.lastIndexOf('/') + 1);
 	}
 
 	@Override
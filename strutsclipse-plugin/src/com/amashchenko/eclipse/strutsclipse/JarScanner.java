@@ -0,0 +1,407 @@
+/*
+ * Copyright 2015-2018 Aleksandr Mashchenko.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.amashchenko.eclipse.strutsclipse;
+
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.RandomAccessFile;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.zip.Inflater;
+import java.util.zip.InflaterInputStream;
+import java.util.zip.ZipException;
+
+/**
+ * Finds entries in the archives reading only the zip central directory
+ * instead of the whole archive contents. Results, including the archives
+ * without matching entries, are cached while the archive size and
+ * modification time stay the same. Digest of the central directory, which
+ * holds names, sizes and CRC-32 of all entries, identifies the archive
+ * contents regardless of the archive location, archives without matching
+ * entries are also remembered by the digest, so their copies are not scanned
+ * again.
+ */
+public class JarScanner {
+	private static final int LOCAL_HEADER_SIGNATURE = 0x04034b50;
+	private static final int CENTRAL_HEADER_SIGNATURE = 0x02014b50;
+	private static final int END_SIGNATURE = 0x06054b50;
+	private static final int ZIP64_END_SIGNATURE = 0x06064b50;
+	private static final int ZIP64_LOCATOR_SIGNATURE = 0x07064b50;
+
+	private static final int LOCAL_HEADER_LENGTH = 30;
+	private static final int CENTRAL_HEADER_LENGTH = 46;
+	private static final int END_LENGTH = 22;
+	private static final int ZIP64_LOCATOR_LENGTH = 20;
+	private static final int MAX_COMMENT_LENGTH = 0xFFFF;
+
+	private static final int ZIP64_EXTRA_ID = 0x0001;
+	private static final long ZIP64_MAGIC = 0xFFFFFFFFL;
+
+	private static final int STORED = 0;
+	private static final int DEFLATED = 8;
+
+	private static final String CHECKSUM_ALGORITHM = "SHA-1";
+
+	// archive path -> scan result
+	private static final Map<String, ScanResult> RESULTS = new ConcurrentHashMap<String, ScanResult>();
+	// archive path -> central directory digest
+	private static final Map<String, ScanResult> CHECKSUMS = new ConcurrentHashMap<String, ScanResult>();
+	// central directory digest -> entry names not found in the archive
+	private static final ConcurrentMap<String, Set<Set<String>>> NOT_FOUND = new ConcurrentHashMap<String, Set<Set<String>>>();
+
+	private static final AtomicLong SCANS = new AtomicLong();
+
+	private JarScanner() {
+	}
+
+	/**
+	 * Finds entries with the given paths in the archive.
+	 * 
+	 * @param archive
+	 *            Archive file.
+	 * @param entryNames
+	 *            Paths of the entries to find.
+	 * @return Found entries in the central directory order.
+	 * @throws IOException
+	 *             If archive can't be read.
+	 */
+	public static List<JarEntryLocation> findEntries(final File archive,
+			final Set<String> entryNames) throws IOException {
+		final String path = archive.getAbsolutePath();
+		final long size = archive.length();
+		final long modified = archive.lastModified();
+
+		ScanResult result = RESULTS.get(path);
+		if (result == null || result.size != size
+				|| result.modified != modified
+				|| !result.entryNames.equals(entryNames)) {
+			List<JarEntryLocation> entries;
+			if (isNotFound(path, size, modified, entryNames)) {
+				entries = Collections.emptyList();
+			} else {
+				entries = scan(archive, entryNames);
+				if (entries.isEmpty()) {
+					setNotFound(path, size, modified, entryNames);
+				}
+			}
+			result = new ScanResult(size, modified, entryNames, entries);
+			RESULTS.put(path, result);
+		}
+		return result.entries;
+	}
+
+	/**
+	 * Gets checksum of the archive contents. Copies of the same archive have
+	 * the same checksum.
+	 * 
+	 * @param archive
+	 *            Archive file.
+	 * @return Hex encoded digest of the archive central directory.
+	 * @throws IOException
+	 *             If archive can't be read.
+	 */
+	public static String getChecksum(final File archive) throws IOException {
+		final String path = archive.getAbsolutePath();
+		final long size = archive.length();
+		final long modified = archive.lastModified();
+
+		ScanResult result = CHECKSUMS.get(path);
+		if (result == null || result.size != size
+				|| result.modified != modified) {
+			scan(archive, Collections.<String> emptySet());
+			result = CHECKSUMS.get(path);
+		}
+		return result.checksum;
+	}
+
+	/**
+	 * Opens entry found by {@link #findEntries(File, Set)}.
+	 * 
+	 * @param location
+	 *            Entry location.
+	 * @return Uncompressed entry contents.
+	 * @throws IOException
+	 *             If entry can't be read.
+	 */
+	public static InputStream openEntry(final JarEntryLocation location)
+			throws IOException {
+		if (location.getMethod() != STORED && location.getMethod() != DEFLATED) {
+			throw new ZipException("Unsupported compression method "
+					+ location.getMethod() + " of " + location.getName());
+		}
+
+		byte[] data;
+		try (RandomAccessFile file = new RandomAccessFile(
+				location.getArchive(), "r")) {
+			byte[] header = new byte[LOCAL_HEADER_LENGTH];
+			file.seek(location.getHeaderOffset());
+			file.readFully(header);
+			if (getInt(header, 0) != LOCAL_HEADER_SIGNATURE) {
+				throw new ZipException("Invalid local header of "
+						+ location.getName());
+			}
+			file.seek(location.getHeaderOffset() + LOCAL_HEADER_LENGTH
+					+ getShort(header, 26) + getShort(header, 28));
+			data = new byte[(int) location.getCompressedSize()];
+			file.readFully(data);
+		}
+
+		InputStream in = new ByteArrayInputStream(data);
+		if (location.getMethod() == DEFLATED) {
+			in = new InflaterInputStream(in, new Inflater(true));
+		}
+		return in;
+	}
+
+	/**
+	 * @return Number of the central directories read.
+	 */
+	public static long getScanCount() {
+		return SCANS.get();
+	}
+
+	public static void clear() {
+		RESULTS.clear();
+		CHECKSUMS.clear();
+		NOT_FOUND.clear();
+		SCANS.set(0);
+	}
+
+	// known checksum of the not changed archive is used
+	private static String getKnownChecksum(final String path, final long size,
+			final long modified) {
+		ScanResult result = CHECKSUMS.get(path);
+		return result == null || result.size != size
+				|| result.modified != modified ? null : result.checksum;
+	}
+
+	private static boolean isNotFound(final String path, final long size,
+			final long modified, final Set<String> entryNames) {
+		final String checksum = getKnownChecksum(path, size, modified);
+		if (checksum != null) {
+			Set<Set<String>> notFound = NOT_FOUND.get(checksum);
+			return notFound != null && notFound.contains(entryNames);
+		}
+		return false;
+	}
+
+	private static void setNotFound(final String path, final long size,
+			final long modified, final Set<String> entryNames) {
+		final String checksum = getKnownChecksum(path, size, modified);
+		if (checksum != null) {
+			Set<Set<String>> notFound = NOT_FOUND.get(checksum);
+			if (notFound == null) {
+				notFound = Collections
+						.newSetFromMap(new ConcurrentHashMap<Set<String>, Boolean>());
+				Set<Set<String>> existing = NOT_FOUND.putIfAbsent(checksum,
+						notFound);
+				if (existing != null) {
+					notFound = existing;
+				}
+			}
+			notFound.add(new HashSet<String>(entryNames));
+		}
+	}
+
+	private static List<JarEntryLocation> scan(final File archive,
+			final Set<String> entryNames) throws IOException {
+		SCANS.incrementAndGet();
+		List<JarEntryLocation> entries = new ArrayList<JarEntryLocation>();
+		final long size = archive.length();
+		final long modified = archive.lastModified();
+		try (RandomAccessFile file = new RandomAccessFile(archive, "r")) {
+			final long length = file.length();
+			if (length < END_LENGTH) {
+				throw new ZipException("Not a zip file " + archive);
+			}
+
+			// end of central directory record is followed by the comment
+			final int tailLength = (int) Math.min(length, END_LENGTH
+					+ MAX_COMMENT_LENGTH);
+			byte[] tail = new byte[tailLength];
+			file.seek(length - tailLength);
+			file.readFully(tail);
+
+			int end = -1;
+			for (int i = tailLength - END_LENGTH; i >= 0; i--) {
+				if (getInt(tail, i) == END_SIGNATURE) {
+					end = i;
+					break;
+				}
+			}
+			if (end == -1) {
+				throw new ZipException("End of central directory not found in "
+						+ archive);
+			}
+
+			long count = getShort(tail, end + 10);
+			long directorySize = getUnsignedInt(tail, end + 12);
+			long directoryOffset = getUnsignedInt(tail, end + 16);
+
+			if (count == 0xFFFF || directorySize == ZIP64_MAGIC
+					|| directoryOffset == ZIP64_MAGIC) {
+				final long locatorOffset = length - tailLength + end
+						- ZIP64_LOCATOR_LENGTH;
+				byte[] locator = new byte[ZIP64_LOCATOR_LENGTH];
+				file.seek(locatorOffset);
+				file.readFully(locator);
+				if (getInt(locator, 0) == ZIP64_LOCATOR_SIGNATURE) {
+					byte[] zip64End = new byte[56];
+					file.seek(getLong(locator, 8));
+					file.readFully(zip64End);
+					if (getInt(zip64End, 0) != ZIP64_END_SIGNATURE) {
+						throw new ZipException(
+								"Invalid zip64 end of central directory in "
+										+ archive);
+					}
+					count = getLong(zip64End, 32);
+					directorySize = getLong(zip64End, 40);
+					directoryOffset = getLong(zip64End, 48);
+				}
+			}
+
+			if (directorySize > Integer.MAX_VALUE) {
+				throw new ZipException("Central directory is too large in "
+						+ archive);
+			}
+
+			byte[] directory = new byte[(int) directorySize];
+			file.seek(directoryOffset);
+			file.readFully(directory);
+			CHECKSUMS.put(archive.getAbsolutePath(), new ScanResult(size,
+					modified, digest(directory)));
+
+			int pos = 0;
+			for (long i = 0; i < count
+					&& pos + CENTRAL_HEADER_LENGTH <= directory.length; i++) {
+				if (getInt(directory, pos) != CENTRAL_HEADER_SIGNATURE) {
+					throw new ZipException("Invalid central directory in "
+							+ archive);
+				}
+				final int nameLength = getShort(directory, pos + 28);
+				final int extraLength = getShort(directory, pos + 30);
+				final int commentLength = getShort(directory, pos + 32);
+
+				String name = new String(directory,
+						pos + CENTRAL_HEADER_LENGTH, nameLength,
+						StandardCharsets.UTF_8);
+				if (entryNames.contains(name)) {
+					long uncompressedSize = getUnsignedInt(directory, pos + 24);
+					long compressedSize = getUnsignedInt(directory, pos + 20);
+					long headerOffset = getUnsignedInt(directory, pos + 42);
+
+					// zip64 extra field holds values which do not fit
+					int extra = pos + CENTRAL_HEADER_LENGTH + nameLength;
+					final int extraEnd = extra + extraLength;
+					while (extra + 4 <= extraEnd) {
+						final int id = getShort(directory, extra);
+						final int dataLength = getShort(directory, extra + 2);
+						if (id == ZIP64_EXTRA_ID) {
+							int field = extra + 4;
+							if (uncompressedSize == ZIP64_MAGIC) {
+								field += 8;
+							}
+							if (compressedSize == ZIP64_MAGIC) {
+								compressedSize = getLong(directory, field);
+								field += 8;
+							}
+							if (headerOffset == ZIP64_MAGIC) {
+								headerOffset = getLong(directory, field);
+							}
+							break;
+						}
+						extra += 4 + dataLength;
+					}
+
+					entries.add(new JarEntryLocation(archive, name,
+							headerOffset, getShort(directory, pos + 10),
+							compressedSize));
+				}
+
+				pos += CENTRAL_HEADER_LENGTH + nameLength + extraLength
+						+ commentLength;
+			}
+		}
+		return Collections.unmodifiableList(entries);
+	}
+
+	private static String digest(final byte[] bytes) throws IOException {
+		try {
+			MessageDigest md = MessageDigest.getInstance(CHECKSUM_ALGORITHM);
+			StringBuilder sb = new StringBuilder();
+			for (byte b : md.digest(bytes)) {
+				sb.append(Character.forDigit((b >> 4) & 0xF, 16));
+				sb.append(Character.forDigit(b & 0xF, 16));
+			}
+			return sb.toString();
+		} catch (NoSuchAlgorithmException e) {
+			throw new IOException(e);
+		}
+	}
+
+	private static int getShort(final byte[] b, final int off) {
+		return (b[off] & 0xFF) | ((b[off + 1] & 0xFF) << 8);
+	}
+
+	private static int getInt(final byte[] b, final int off) {
+		return getShort(b, off) | (getShort(b, off + 2) << 16);
+	}
+
+	private static long getUnsignedInt(final byte[] b, final int off) {
+		return getInt(b, off) & 0xFFFFFFFFL;
+	}
+
+	private static long getLong(final byte[] b, final int off) {
+		return getUnsignedInt(b, off) | (getUnsignedInt(b, off + 4) << 32);
+	}
+
+	private static class ScanResult {
+		private final long size;
+		private final long modified;
+		private final Set<String> entryNames;
+		private final List<JarEntryLocation> entries;
+		private final String checksum;
+
+		private ScanResult(long size, long modified, Set<String> entryNames,
+				List<JarEntryLocation> entries) {
+			this.size = size;
+			this.modified = modified;
+			this.entryNames = new HashSet<String>(entryNames);
+			this.entries = entries;
+			this.checksum = null;
+		}
+
+		private ScanResult(long size, long modified, String checksum) {
+			this.size = size;
+			this.modified = modified;
+			this.entryNames = null;
+			this.entries = null;
+			this.checksum = checksum;
+		}
+	}
+}
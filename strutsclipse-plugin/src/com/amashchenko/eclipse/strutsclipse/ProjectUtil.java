@@ -15,11 +15,19 @@
  */
 package com.amashchenko.eclipse.strutsclipse;
 
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Locale;
+import java.util.Map;
+import java.util.PropertyResourceBundle;
+import java.util.ResourceBundle;
 import java.util.Set;
 
 import org.eclipse.core.filebuffers.FileBuffers;
@@ -27,12 +35,12 @@ import org.eclipse.core.filebuffers.ITextFileBuffer;
 import org.eclipse.core.resources.IFile;
 import org.eclipse.core.resources.IProject;
 import org.eclipse.core.resources.IResource;
-import org.eclipse.core.resources.IResourceVisitor;
+import org.eclipse.core.resources.IResourceProxy;
+import org.eclipse.core.resources.IResourceProxyVisitor;
 import org.eclipse.core.resources.ResourcesPlugin;
 import org.eclipse.core.runtime.CoreException;
 import org.eclipse.core.runtime.IPath;
 import org.eclipse.core.runtime.Platform;
-import org.eclipse.core.runtime.content.IContentDescription;
 import org.eclipse.core.runtime.content.IContentType;
 import org.eclipse.core.runtime.content.IContentTypeManager;
 import org.eclipse.jdt.core.IJarEntryResource;
@@ -46,10 +54,10 @@ import org.eclipse.jdt.core.JavaModelException;
 import org.eclipse.jface.text.IDocument;
 import org.eclipse.ui.editors.text.TextFileDocumentProvider;
 import org.eclipse.ui.texteditor.IDocumentProvider;
-import org.eclipse.wst.common.componentcore.ComponentCore;
-import org.eclipse.wst.common.componentcore.resources.IVirtualComponent;
 import org.eclipse.wst.common.componentcore.resources.IVirtualFolder;
 
+import com.amashchenko.eclipse.strutsclipse.java.TypeMethodsCache;
+import com.amashchenko.eclipse.strutsclipse.java.TypeResolutionCache;
 import com.amashchenko.eclipse.strutsclipse.strutsxml.StrutsXmlConstants;
 import com.amashchenko.eclipse.strutsclipse.validators.StrutsValidatorsXmlConstants;
 
@@ -57,20 +65,26 @@ public class ProjectUtil {
 	private ProjectUtil() {
 	}
 
-	private static final List<String> JSP_HTML_FILE_EXTENSIONS = Arrays.asList(
-			"jsp", "html", "htm");
-	private static final List<String> FREEMARKER_FILE_EXTENSIONS = Arrays
-			.asList("ftl");
 	private static final List<String> XML_FILE_EXTENSIONS = Arrays
 			.asList("xml");
 	private static final String PROPERTIES_FILE_EXTENSION = "properties";
-	private static final List<String> PROPERTIES_FILE_EXTENSIONS = Arrays
-			.asList(PROPERTIES_FILE_EXTENSION);
 	private static final String STRUTS_XML_CONTENT_TYPE_ID = "com.amashchenko.eclipse.strutsclipse.strutsxml";
 	private static final String TILES_XML_CONTENT_TYPE_ID = "com.amashchenko.eclipse.strutsclipse.tilesxml";
 	private static final String STRUTS_VALIDATORS_CONF_XML_CONTENT_TYPE_ID = "com.amashchenko.eclipse.strutsclipse.strutsvalidatorsconfigxml";
+	private static final String JSP_CONTENT_TYPE_ID = "org.eclipse.jst.jsp.core.jspsource";
+	private static final String JSP_FILE_EXTENSION = "jsp";
 	private static final String WEB_INF_CLASSES_FOLDER_PATH = "/WEB-INF/classes";
 	private static final String TEMPLATE_FOLDER_NAME = "template";
+	private static final String PROPERTIES_JAR_DATA_KEY = "properties:";
+
+	// documents are loaded by the plugin itself on this thread
+	private static final ThreadLocal<Boolean> LOADING_DOCUMENT = new ThreadLocal<Boolean>();
+
+	// struts files in the root of the archives
+	private static final Set<String> STRUTS_JAR_ENTRIES = Collections
+			.unmodifiableSet(new HashSet<String>(Arrays.asList(
+					StrutsXmlConstants.STRUTS_DEFAULT_FILE_NAME,
+					StrutsXmlConstants.STRUTS_PLUGIN_FILE_NAME)));
 
 	public static IPath getCurrentDocumentPath(IDocument document) {
 		IPath path = null;
@@ -101,9 +115,12 @@ public class ProjectUtil {
 	}
 
 	public static IJavaProject getCurrentJavaProject(IDocument document) {
+		return getJavaProject(getCurrentProject(document));
+	}
+
+	public static IJavaProject getJavaProject(IProject project) {
 		IJavaProject javaProject = null;
 		try {
-			IProject project = getCurrentProject(document);
 			if (project != null && project.hasNature(JavaCore.NATURE_ID)) {
 				javaProject = JavaCore.create(project);
 			}
@@ -119,7 +136,8 @@ public class ProjectUtil {
 		try {
 			IJavaProject javaProject = getCurrentJavaProject(document);
 			if (javaProject != null && javaProject.exists()) {
-				IType type = javaProject.findType(className);
+				IType type = TypeResolutionCache.findType(javaProject,
+						className);
 				if (type != null && type.exists()) {
 					result = type;
 				}
@@ -135,21 +153,9 @@ public class ProjectUtil {
 		IMethod result = null;
 		try {
 			if (clazz != null) {
-				IMethod method = clazz.getMethod(methodName, null);
-				if (method != null && method.exists()) {
-					result = method;
-				} else {
-					// try super classes
-					IType[] superClasses = clazz.newSupertypeHierarchy(null)
-							.getAllSuperclasses(clazz);
-					for (IType superType : superClasses) {
-						method = superType.getMethod(methodName, null);
-						if (method != null && method.exists()) {
-							result = method;
-							break;
-						}
-					}
-				}
+				// declared and inherited methods, hierarchy is cached
+				result = TypeMethodsCache.getParameterlessMethods(clazz).get(
+						methodName);
 			}
 		} catch (JavaModelException e) {
 			e.printStackTrace();
@@ -162,16 +168,12 @@ public class ProjectUtil {
 		IFile result = null;
 		IProject project = getCurrentProject(document);
 		if (project != null && project.exists()) {
-			IVirtualComponent rootComponent = ComponentCore
-					.createComponent(project);
-			if (rootComponent != null) {
-				IVirtualFolder folder = rootComponent.getRootFolder();
-				if (folder != null && folder.exists()) {
-					if (inClassesFolder) {
-						name = WEB_INF_CLASSES_FOLDER_PATH + "/" + name;
-					}
-					result = folder.getFile(name).getUnderlyingFile();
+			IVirtualFolder folder = WebComponentCache.getRootFolder(project);
+			if (folder != null) {
+				if (inClassesFolder) {
+					name = WEB_INF_CLASSES_FOLDER_PATH + "/" + name;
 				}
+				result = folder.getFile(name).getUnderlyingFile();
 			}
 		}
 		return result;
@@ -201,75 +203,65 @@ public class ProjectUtil {
 			final List<String> fileExtensions,
 			final ResourcePredicate resourcePredicate,
 			final boolean retrieveDocument) {
+		return findResources(getCurrentProject(currentDocument), folderName,
+				fileExtensions, resourcePredicate, retrieveDocument);
+	}
+
+	private static List<ResourceDocument> findResources(
+			final IProject project, final String folderName,
+			final List<String> fileExtensions,
+			final ResourcePredicate resourcePredicate,
+			final boolean retrieveDocument) {
 		final List<ResourceDocument> result = new ArrayList<ResourceDocument>();
 
 		try {
-			final IProject project = getCurrentProject(currentDocument);
 			if (project != null && project.exists()) {
-				IVirtualComponent rootComponent = ComponentCore
-						.createComponent(project);
-
-				if (rootComponent != null) {
-					IVirtualFolder folder = rootComponent.getRootFolder();
-
-					if (folderName != null) {
-						folder = folder.getFolder(folderName);
-					}
+				IResource[] resources = getFolderResources(project, folderName);
+				if (resources != null) {
+					for (final IResource res : resources) {
+						final IPath rootPath = res.getFullPath();
+						res.accept(new IResourceProxyVisitor() {
+							@Override
+							public boolean visit(IResourceProxy proxy)
+									throws CoreException {
+								if (isBuildOutput(proxy)) {
+									return false;
+								}
+								// filter by name before resource is created
+								if (proxy.getType() != IResource.FILE
+										|| !proxy.isAccessible()
+										|| !fileExtensions
+												.contains(getFileExtension(proxy
+														.getName()))) {
+									return true;
+								}
 
-					if (folder != null && folder.exists()) {
-						IResource[] resources = folder.getUnderlyingResources();
-						if (resources != null) {
-							final IDocumentProvider provider = new TextFileDocumentProvider();
-							for (final IResource res : resources) {
-								res.accept(new IResourceVisitor() {
-									@Override
-									public boolean visit(IResource resource)
-											throws CoreException {
-										if (resource.isAccessible()
-												&& resource.getType() == IResource.FILE
-												&& resource.getFileExtension() != null
-												&& fileExtensions
-														.contains(resource
-																.getFileExtension()
-																.toLowerCase(
-																		Locale.ROOT))) {
-											boolean addToList = resourcePredicate == null ? true
-													: resourcePredicate.test(
-															project, resource);
-
-											if (addToList) {
-												IPath path = resource
-														.getProjectRelativePath()
-														.makeRelativeTo(
-																res.getProjectRelativePath());
-
-												if (retrieveDocument) {
-													try {
-														provider.connect(resource);
-														IDocument document = provider
-																.getDocument(resource);
-														provider.disconnect(resource);
-
-														result.add(new ResourceDocument(
-																resource,
-																document,
-																path.toString()));
-													} catch (CoreException e) {
-														e.printStackTrace();
-													}
-												} else {
-													path = path.makeAbsolute();
-													result.add(new ResourceDocument(
-															resource, null,
-															path.toString()));
-												}
-											}
+								IResource resource = proxy.requestResource();
+								boolean addToList = resourcePredicate == null ? true
+										: resourcePredicate.test(project,
+												resource);
+
+								if (addToList) {
+									IPath path = proxy.requestFullPath()
+											.makeRelativeTo(rootPath);
+
+									if (retrieveDocument) {
+										IDocument document = loadDocument(resource);
+										if (document != null) {
+											result.add(new ResourceDocument(
+													resource, document, path
+															.toString()));
 										}
-										return true;
+									} else {
+										path = path.makeAbsolute();
+										result.add(new ResourceDocument(
+												resource, null, path
+														.toString()));
 									}
-								});
+								}
+								return true;
 							}
-						}
+						}, IResource.NONE);
 					}
 				}
 			}
@@ -280,6 +272,106 @@ public class ProjectUtil {
 		return result;
 	}
 
+	/**
+	 * Checks if the resource is a derived folder, e.g. build output folder,
+	 * which doesn't need to be searched.
+	 * 
+	 * @param proxy
+	 *            Resource proxy.
+	 * @return <code>true</code> if resource is a derived folder.
+	 */
+	public static boolean isBuildOutput(final IResourceProxy proxy) {
+		return proxy.getType() == IResource.FOLDER && proxy.isDerived();
+	}
+
+	private static String getFileExtension(final String fileName) {
+		final int dot = fileName.lastIndexOf('.');
+		return dot == -1 ? null : fileName.substring(dot + 1).toLowerCase(
+				Locale.ROOT);
+	}
+
+	/**
+	 * Gets underlying resources of the project web folder.
+	 * 
+	 * @param project
+	 *            Project.
+	 * @param folderName
+	 *            Web folder path or <code>null</code> for the root folder.
+	 * @return Underlying resources or <code>null</code> if folder doesn't
+	 *         exist.
+	 */
+	public static IResource[] getFolderResources(final IProject project,
+			final String folderName) {
+		return WebComponentCache.getFolderResources(project, folderName);
+	}
+
+	/**
+	 * Reads document of the resource. Document of the open file buffer is
+	 * shared with the editor, document of the not open resource reflects the
+	 * resource contents at the moment of the call.
+	 * 
+	 * @param resource
+	 *            Resource to read.
+	 * @return Document or <code>null</code> if resource can't be read.
+	 */
+	public static IDocument loadDocument(final IResource resource) {
+		IDocument document = null;
+		final IDocumentProvider provider = new TextFileDocumentProvider();
+		LOADING_DOCUMENT.set(Boolean.TRUE);
+		try {
+			provider.connect(resource);
+			document = provider.getDocument(resource);
+			provider.disconnect(resource);
+		} catch (CoreException e) {
+			e.printStackTrace();
+		} finally {
+			LOADING_DOCUMENT.remove();
+		}
+		return document;
+	}
+
+	/**
+	 * @return <code>true</code> if the current thread is loading document in
+	 *         {@link #loadDocument(IResource)}, file buffers created by it are
+	 *         not open by the user.
+	 */
+	public static boolean isLoadingDocument() {
+		return LOADING_DOCUMENT.get() != null;
+	}
+
+	/**
+	 * Checks whether file is a struts xml, tiles xml or JSP file, the files
+	 * which are assisted with the project indexes.
+	 * 
+	 * @param file
+	 *            File to check.
+	 * @return <code>true</code> if file uses the project indexes.
+	 */
+	public static boolean isIndexedContent(final IFile file) {
+		if (!file.isAccessible()) {
+			return false;
+		}
+		IContentTypeManager contentTypeManager = Platform
+				.getContentTypeManager();
+		try {
+			IContentType contentType = ContentTypeCache.getContentType(file);
+			if (contentType != null) {
+				for (String id : new String[] { STRUTS_XML_CONTENT_TYPE_ID,
+						TILES_XML_CONTENT_TYPE_ID, JSP_CONTENT_TYPE_ID }) {
+					IContentType type = contentTypeManager.getContentType(id);
+					if (type != null && contentType.isKindOf(type)) {
+						return true;
+					}
+				}
+			}
+		} catch (CoreException e) {
+			e.printStackTrace();
+		}
+		// w/o web tools JSP content type is not known
+		return contentTypeManager.getContentType(JSP_CONTENT_TYPE_ID) == null
+				&& JSP_FILE_EXTENSION.equalsIgnoreCase(file.getFileExtension());
+	}
+
 	public static List<ResourceDocument> findTilesResources(
 			final IDocument currentDocument) {
 		return findResources(currentDocument, null, XML_FILE_EXTENSIONS,
@@ -296,11 +388,59 @@ public class ProjectUtil {
 						STRUTS_XML_CONTENT_TYPE_ID), true);
 	}
 
-	public static List<ResourceDocument> findPropertiesResources(
-			final IDocument currentDocument, final Set<String> bundleNames) {
-		return findResources(currentDocument, WEB_INF_CLASSES_FOLDER_PATH,
-				PROPERTIES_FILE_EXTENSIONS, new ResourceBundlesPredicate(
-						bundleNames), true);
+	/**
+	 * Searches project for struts xml files w/o reading them.
+	 * 
+	 * @param project
+	 *            Project to search.
+	 * @return Struts resources with <code>null</code> documents.
+	 */
+	public static List<ResourceDocument> findStrutsResources(
+			final IProject project) {
+		return findResources(project, WEB_INF_CLASSES_FOLDER_PATH,
+				XML_FILE_EXTENSIONS, new ContentTypeFileNamePredicate(
+						StrutsXmlConstants.STRUTS_FILE_NAME,
+						STRUTS_XML_CONTENT_TYPE_ID), false);
+	}
+
+	/**
+	 * Gets underlying resources of the folder holding struts xml files.
+	 * 
+	 * @param project
+	 *            Project.
+	 * @return Underlying resources or <code>null</code>.
+	 */
+	public static IResource[] getStrutsResourcesFolders(final IProject project) {
+		return getFolderResources(project, WEB_INF_CLASSES_FOLDER_PATH);
+	}
+
+	/**
+	 * Checks whether resource is a struts xml file. Resource location isn't
+	 * checked.
+	 * 
+	 * @param project
+	 *            Resource project.
+	 * @param resource
+	 *            Resource to check.
+	 * @return <code>true</code> if resource is a struts xml file.
+	 */
+	public static boolean isStrutsResource(final IProject project,
+			final IResource resource) {
+		boolean result = false;
+		if (resource.isAccessible()
+				&& resource.getType() == IResource.FILE
+				&& resource.getFileExtension() != null
+				&& XML_FILE_EXTENSIONS.contains(resource.getFileExtension()
+						.toLowerCase(Locale.ROOT))) {
+			try {
+				result = new ContentTypeFileNamePredicate(
+						StrutsXmlConstants.STRUTS_FILE_NAME,
+						STRUTS_XML_CONTENT_TYPE_ID).test(project, resource);
+			} catch (CoreException e) {
+				e.printStackTrace();
+			}
+		}
+		return result;
 	}
 
 	public static List<ResourceDocument> findStrutsValidatorsResources(
@@ -313,30 +453,14 @@ public class ProjectUtil {
 
 	public static Set<String> findJspHtmlFilesPaths(
 			final IDocument currentDocument) {
-		List<ResourceDocument> resources = findResources(currentDocument, null,
-				JSP_HTML_FILE_EXTENSIONS, null, false);
-
-		Set<String> paths = new HashSet<String>();
-		if (resources != null) {
-			for (ResourceDocument r : resources) {
-				paths.add(r.getRelativePath());
-			}
-		}
-		return paths;
+		return WebFilesIndex.getPaths(getCurrentProject(currentDocument),
+				WebFilesIndex.JSP_HTML_FILE_EXTENSIONS);
 	}
 
 	public static Set<String> findFreeMarkerFilesPaths(
 			final IDocument currentDocument) {
-		List<ResourceDocument> resources = findResources(currentDocument, null,
-				FREEMARKER_FILE_EXTENSIONS, null, false);
-
-		Set<String> paths = new HashSet<String>();
-		if (resources != null) {
-			for (ResourceDocument r : resources) {
-				paths.add(r.getRelativePath());
-			}
-		}
-		return paths;
+		return WebFilesIndex.getPaths(getCurrentProject(currentDocument),
+				WebFilesIndex.FREEMARKER_FILE_EXTENSIONS);
 	}
 
 	public static Set<String> findTemplateFoldersNames(
@@ -346,34 +470,23 @@ public class ProjectUtil {
 		try {
 			final IProject project = getCurrentProject(currentDocument);
 			if (project != null && project.exists()) {
-				IVirtualComponent rootComponent = ComponentCore
-						.createComponent(project);
-
-				if (rootComponent != null) {
-					IVirtualFolder folder = rootComponent.getRootFolder();
-					folder = folder.getFolder(WEB_INF_CLASSES_FOLDER_PATH + "/"
-							+ TEMPLATE_FOLDER_NAME);
-
-					if (folder != null && folder.exists()) {
-						IResource[] resources = folder.getUnderlyingResources();
-						if (resources != null) {
-							for (final IResource res : resources) {
-								res.accept(new IResourceVisitor() {
-									@Override
-									public boolean visit(IResource resource)
-											throws CoreException {
-										if (resource.isAccessible()
-												&& resource.getType() == IResource.FOLDER
-												&& !TEMPLATE_FOLDER_NAME
-														.equals(resource
-																.getName())) {
-											result.add(resource.getName());
-										}
-										return true;
-									}
-								}, IResource.DEPTH_ONE, IResource.NONE);
+				IResource[] resources = getFolderResources(project,
+						WEB_INF_CLASSES_FOLDER_PATH + "/" + TEMPLATE_FOLDER_NAME);
+				if (resources != null) {
+					for (final IResource res : resources) {
+						res.accept(new IResourceProxyVisitor() {
+							@Override
+							public boolean visit(IResourceProxy proxy)
+									throws CoreException {
+								if (proxy.isAccessible()
+										&& proxy.getType() == IResource.FOLDER
+										&& !TEMPLATE_FOLDER_NAME.equals(proxy
+												.getName())) {
+									result.add(proxy.getName());
+								}
+								return true;
 							}
-						}
+						}, IResource.DEPTH_ONE, IResource.NONE);
 					}
 				}
 			}
@@ -397,7 +510,7 @@ public class ProjectUtil {
 					if (root.isArchive()) {
 						// from root
 						collectNonJavaResources(root.getNonJavaResources(),
-								root.getPath(), results, jarEntryPredicate);
+								root, results, jarEntryPredicate);
 					}
 				}
 			}
@@ -408,8 +521,10 @@ public class ProjectUtil {
 	}
 
 	private static void collectNonJavaResources(Object[] nonJavaResources,
-			IPath rootPath, List<JarEntryStorage> list,
+			IPackageFragmentRoot root, List<JarEntryStorage> list,
 			JarEntryPredicate jarEntryPredicate) {
+		final File archiveFile = getArchiveFile(root);
+		final JarData jarData = getJarData(root, archiveFile);
 		for (Object nonJavaRes : nonJavaResources) {
 			if (nonJavaRes instanceof IJarEntryResource) {
 				IJarEntryResource jarEntry = (IJarEntryResource) nonJavaRes;
@@ -418,11 +533,66 @@ public class ProjectUtil {
 						: jarEntryPredicate.test(jarEntry);
 
 				if (addToList) {
-					list.add(new JarEntryStorage(rootPath.append(jarEntry
-							.getFullPath()), jarEntry));
+					list.add(new JarEntryStorage(root.getPath().append(
+							jarEntry.getFullPath()), jarEntry, archiveFile,
+							jarData));
+				}
+			}
+		}
+	}
+
+	/**
+	 * Releases shared data of the archives which are no longer on the
+	 * classpath of the project.
+	 * 
+	 * @param javaProject
+	 *            Project which classpath has changed.
+	 */
+	public static void releaseRemovedJars(final IJavaProject javaProject) {
+		final String projectName = javaProject.getElementName();
+		if (!javaProject.exists()) {
+			JarDataStore.release(projectName);
+			return;
+		}
+		Set<String> archivePaths = new HashSet<String>();
+		try {
+			for (IPackageFragmentRoot root : javaProject
+					.getPackageFragmentRoots()) {
+				if (root.isArchive()) {
+					File archiveFile = getArchiveFile(root);
+					if (archiveFile != null) {
+						archivePaths.add(archiveFile.getAbsolutePath());
+					}
 				}
 			}
+		} catch (JavaModelException e) {
+			e.printStackTrace();
+			JarDataStore.release(projectName);
+			return;
+		}
+		JarDataStore.retain(projectName, archivePaths);
+	}
+
+	private static File getArchiveFile(final IPackageFragmentRoot root) {
+		// workspace archives have resource, external ones file system path
+		IResource resource = root.getResource();
+		IPath location = resource == null ? root.getPath() : resource
+				.getLocation();
+		return location == null ? null : location.toFile();
+	}
+
+	private static JarData getJarData(final IPackageFragmentRoot root,
+			final File archiveFile) {
+		JarData jarData = null;
+		if (archiveFile != null && archiveFile.isFile()) {
+			try {
+				jarData = JarDataStore.getJarData(root.getJavaProject()
+						.getElementName(), archiveFile);
+			} catch (IOException e) {
+				e.printStackTrace();
+			}
 		}
+		return jarData;
 	}
 
 	private static JarEntryStorage findJarEntry(final IDocument document,
@@ -444,10 +614,12 @@ public class ProjectUtil {
 									IJarEntryResource jarEntry = (IJarEntryResource) nonJavaRes;
 									if (jarEntry.getName() != null
 											&& jarEntry.getName().equals(name)) {
+										final File archiveFile = getArchiveFile(root);
 										return new JarEntryStorage(
 												root.getPath().append(
 														jarEntry.getFullPath()),
-												jarEntry);
+												jarEntry, archiveFile,
+												getJarData(root, archiveFile));
 									}
 								}
 							}
@@ -463,7 +635,50 @@ public class ProjectUtil {
 
 	public static List<JarEntryStorage> findJarEntryStrutsResources(
 			final IDocument document) {
-		return findJarEntries(document, new StrutsResourceJarPredicate());
+		return findJarEntryStrutsResources(getCurrentProject(document));
+	}
+
+	public static List<JarEntryStorage> findJarEntryStrutsResources(
+			final IProject project) {
+		List<JarEntryStorage> results = new ArrayList<JarEntryStorage>();
+		try {
+			IJavaProject javaProject = getJavaProject(project);
+
+			if (javaProject != null && javaProject.exists()) {
+				IPackageFragmentRoot[] roots = javaProject
+						.getPackageFragmentRoots();
+				for (IPackageFragmentRoot root : roots) {
+					if (root.isArchive()) {
+						collectStrutsJarEntries(root, results);
+					}
+				}
+			}
+		} catch (JavaModelException e) {
+			e.printStackTrace();
+		}
+		return results;
+	}
+
+	private static void collectStrutsJarEntries(
+			final IPackageFragmentRoot root, final List<JarEntryStorage> list)
+			throws JavaModelException {
+		final File archiveFile = getArchiveFile(root);
+		if (archiveFile != null && archiveFile.isFile()) {
+			try {
+				// read only central directory of the archive
+				final JarData jarData = getJarData(root, archiveFile);
+				for (JarEntryLocation location : JarScanner.findEntries(
+						archiveFile, STRUTS_JAR_ENTRIES)) {
+					list.add(new JarEntryStorage(root.getPath().append(
+							location.getName()), location, jarData));
+				}
+				return;
+			} catch (IOException e) {
+				e.printStackTrace();
+			}
+		}
+		collectNonJavaResources(root.getNonJavaResources(), root, list,
+				new StrutsResourceJarPredicate());
 	}
 
 	public static List<JarEntryStorage> findJarEntryPropertyResources(
@@ -472,6 +687,39 @@ public class ProjectUtil {
 				bundleNames));
 	}
 
+	/**
+	 * Gets properties of the resource bundle from the jar. Properties are
+	 * read once for all copies of the jar.
+	 * 
+	 * @param jarStorage
+	 *            Properties file in the jar.
+	 * @return Unmodifiable map of the properties.
+	 */
+	public static Map<String, String> getJarEntryProperties(
+			final JarEntryStorage jarStorage) {
+		JarData.Loader<Map<String, String>> loader = new JarData.Loader<Map<String, String>>() {
+			@Override
+			public Map<String, String> load() {
+				Map<String, String> properties = new HashMap<String, String>();
+				try (InputStream in = jarStorage.getContents()) {
+					ResourceBundle bundle = new PropertyResourceBundle(in);
+					for (String key : bundle.keySet()) {
+						properties.put(key, bundle.getString(key));
+					}
+				} catch (Exception e) {
+					e.printStackTrace();
+				}
+				return Collections.unmodifiableMap(properties);
+			}
+		};
+
+		if (jarStorage.getJarData() == null) {
+			return loader.load();
+		}
+		return jarStorage.getJarData().get(
+				PROPERTIES_JAR_DATA_KEY + jarStorage.getEntryPath(), loader);
+	}
+
 	public static JarEntryStorage findJarEntryStrutsDefaultValidatorResource(
 			final IDocument document) {
 		return findJarEntry(document,
@@ -504,8 +752,8 @@ public class ProjectUtil {
 			boolean check = false;
 			if (contentType != null) {
 				IFile file = project.getFile(resource.getProjectRelativePath());
-				IContentDescription descrp = file.getContentDescription();
-				check = descrp.getContentType().isKindOf(contentType);
+				// cached while file is not modified
+				check = ContentTypeCache.isKindOf(file, contentType);
 			} else if (fileName != null
 					&& resource.getName().toLowerCase(Locale.ROOT)
 							.contains(fileName)) {
@@ -515,34 +763,6 @@ public class ProjectUtil {
 		}
 	}
 
-	private static class ResourceBundlesPredicate implements ResourcePredicate {
-		private final Set<String> bundleNames;
-
-		private ResourceBundlesPredicate(Set<String> bundleNames) {
-			this.bundleNames = bundleNames;
-		}
-
-		private boolean compare(Set<String> names, String name) {
-			if (names != null && name != null) {
-				for (String n : names) {
-					if (name.startsWith(n + "_")
-							|| name.equals(n + "." + PROPERTIES_FILE_EXTENSION)) {
-						return true;
-					}
-				}
-			}
-			return false;
-		}
-
-		@Override
-		public boolean test(IProject project, IResource resource)
-				throws CoreException {
-			return resource.getFileExtension()
-					.equals(PROPERTIES_FILE_EXTENSION)
-					&& compare(bundleNames, resource.getName());
-		}
-	}
-
 	private interface JarEntryPredicate {
 		boolean test(IJarEntryResource jarEntryResource);
 	}
@@ -0,0 +1,113 @@
+/*
+ * Copyright 2015-2018 Aleksandr Mashchenko.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.amashchenko.eclipse.strutsclipse;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.PropertyResourceBundle;
+import java.util.ResourceBundle;
+
+import org.eclipse.core.resources.IFile;
+import org.eclipse.core.resources.IResource;
+import org.eclipse.jface.text.IDocument;
+
+/**
+ * Resource bundle properties file from the {@link PropertiesIndex}. Properties
+ * are read on the first request and read again only when the file
+ * modification stamp changes.
+ */
+public class PropertiesFile {
+	private final IFile file;
+	private final String relativePath;
+	private final String baseName;
+
+	private long modificationStamp = IResource.NULL_STAMP;
+	private Map<String, String> properties;
+
+	PropertiesFile(IFile file, String relativePath) {
+		this.file = file;
+		this.relativePath = relativePath;
+		this.baseName = toBaseName(file.getName());
+	}
+
+	static String toBaseName(final String fileName) {
+		final int dot = fileName.lastIndexOf('.');
+		return dot == -1 ? fileName : fileName.substring(0, dot);
+	}
+
+	public IFile getFile() {
+		return file;
+	}
+
+	/**
+	 * @return Path relative to the classes folder.
+	 */
+	public String getRelativePath() {
+		return relativePath;
+	}
+
+	/**
+	 * @return File name without extension, e.g. <code>messages_en_US</code>.
+	 */
+	public String getBaseName() {
+		return baseName;
+	}
+
+	/**
+	 * Gets locale variant of the file in the given bundle.
+	 * 
+	 * @param bundleName
+	 *            Name of the bundle this file belongs to.
+	 * @return Locale variant, e.g. <code>en_US</code>, or empty string for
+	 *         the default file of the bundle.
+	 */
+	public String getLocaleVariant(final String bundleName) {
+		return baseName.length() > bundleName.length() ? baseName
+				.substring(bundleName.length() + 1) : "";
+	}
+
+	/**
+	 * @return Unmodifiable map of the properties.
+	 */
+	public synchronized Map<String, String> getProperties() {
+		final long stamp = file.getModificationStamp();
+		if (properties == null || stamp != modificationStamp) {
+			properties = load();
+			modificationStamp = stamp;
+		}
+		return properties;
+	}
+
+	private Map<String, String> load() {
+		Map<String, String> result = new HashMap<String, String>();
+		IDocument document = ProjectUtil.loadDocument(file);
+		if (document != null) {
+			try {
+				ResourceBundle bundle = new PropertyResourceBundle(
+						new StringReader(document.get()));
+				for (String key : bundle.keySet()) {
+					result.put(key, bundle.getString(key));
+				}
+			} catch (IOException e) {
+				e.printStackTrace();
+			}
+		}
+		return Collections.unmodifiableMap(result);
+	}
+}
@@ -0,0 +1,373 @@
+/*
+ * Copyright 2015-2018 Aleksandr Mashchenko.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.amashchenko.eclipse.strutsclipse;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.eclipse.core.resources.IContainer;
+import org.eclipse.core.resources.IFile;
+import org.eclipse.core.resources.IProject;
+import org.eclipse.core.resources.IResource;
+import org.eclipse.core.resources.IResourceChangeEvent;
+import org.eclipse.core.resources.IResourceChangeListener;
+import org.eclipse.core.resources.IResourceDelta;
+import org.eclipse.core.resources.IResourceDeltaVisitor;
+import org.eclipse.core.resources.IResourceProxy;
+import org.eclipse.core.resources.IResourceProxyVisitor;
+import org.eclipse.core.runtime.CoreException;
+import org.eclipse.core.runtime.IPath;
+import org.eclipse.core.runtime.IProgressMonitor;
+import org.eclipse.core.runtime.NullProgressMonitor;
+import org.eclipse.core.runtime.OperationCanceledException;
+
+/**
+ * Index of the resource bundle properties files in the classes folder of the
+ * workspace projects. Files are grouped by the name without extension, so
+ * all locale variants of the bundle are found without scanning the project.
+ * Project is scanned once on the first request, afterwards the index is
+ * updated from the resource deltas and the properties of the changed files
+ * are read again on the next request.
+ */
+public class PropertiesIndex {
+	private static final String PROPERTIES_FILE_EXTENSION = "properties";
+	private static final String CLASSES_FOLDER_PATH = "/WEB-INF/classes";
+	// web project structure
+	private static final String COMPONENT_FILE_NAME = "org.eclipse.wst.common.component";
+
+	private static final ConcurrentMap<IProject, ProjectIndex> PROJECTS = new ConcurrentHashMap<IProject, ProjectIndex>();
+
+	// project -> stamp incremented on every change which can affect the
+	// project index
+	private static final ConcurrentMap<IProject, AtomicLong> CHANGES = new ConcurrentHashMap<IProject, AtomicLong>();
+
+	private static final IResourceChangeListener RESOURCE_LISTENER = new ResourceChangeListener();
+
+	private PropertiesIndex() {
+	}
+
+	/**
+	 * Gets properties files of the given bundles, including all locale
+	 * variants, e.g. <code>messages.properties</code> and
+	 * <code>messages_en_US.properties</code> for the <code>messages</code>
+	 * bundle.
+	 * 
+	 * @param project
+	 *            Project.
+	 * @param bundleNames
+	 *            Bundles names.
+	 * @return Properties files sorted by name.
+	 */
+	public static List<PropertiesFile> getFiles(final IProject project,
+			final Set<String> bundleNames) {
+		List<PropertiesFile> files = new ArrayList<PropertiesFile>();
+		if (project != null && project.exists() && bundleNames != null
+				&& !bundleNames.isEmpty()) {
+			getProjectIndex(project).addFiles(bundleNames, files);
+		}
+		return files;
+	}
+
+	public static IResourceChangeListener getResourceChangeListener() {
+		return RESOURCE_LISTENER;
+	}
+
+	/**
+	 * Builds index of the project if there is no index or the index is
+	 * outdated. Outdated index is replaced only when the new one is built.
+	 * 
+	 * @param project
+	 *            Project.
+	 * @param monitor
+	 *            Progress monitor.
+	 * @return <code>false</code> if building is canceled or the project has
+	 *         changed while scanning and index needs to be built again.
+	 */
+	public static boolean build(final IProject project,
+			final IProgressMonitor monitor) {
+		ProjectIndex index = PROJECTS.get(project);
+		if (index != null && !index.stale) {
+			return true;
+		}
+		final AtomicLong changes = getChanges(project);
+		final long stamp = changes.get();
+		try {
+			index = new ProjectIndex(project, monitor);
+		} catch (OperationCanceledException e) {
+			return false;
+		}
+		if (stamp != changes.get()) {
+			return false;
+		}
+		PROJECTS.put(project, index);
+		return true;
+	}
+
+	public static void clear() {
+		PROJECTS.clear();
+		for (AtomicLong changes : CHANGES.values()) {
+			changes.incrementAndGet();
+		}
+	}
+
+	private static ProjectIndex getProjectIndex(final IProject project) {
+		ProjectIndex index = PROJECTS.get(project);
+		if (index == null) {
+			final AtomicLong changes = getChanges(project);
+			final long stamp = changes.get();
+			index = new ProjectIndex(project, new NullProgressMonitor());
+			// do not keep index which could miss changes made while scanning
+			if (stamp == changes.get()) {
+				ProjectIndex existing = PROJECTS.putIfAbsent(project, index);
+				if (existing != null) {
+					index = existing;
+				}
+			}
+		}
+		return index;
+	}
+
+	// outdated index is used until the new one is built
+	private static void invalidate(final IResource resource) {
+		ProjectIndex index = PROJECTS.get(resource.getProject());
+		if (index != null) {
+			index.stale = true;
+			IndexingScheduler.reindex(resource.getProject());
+		}
+		getChanges(resource.getProject()).incrementAndGet();
+	}
+
+	// scan in progress holds the removed stamp and sees the change
+	private static void remove(final IResource resource) {
+		PROJECTS.remove(resource.getProject());
+		AtomicLong changes = CHANGES.remove(resource.getProject());
+		if (changes != null) {
+			changes.incrementAndGet();
+		}
+	}
+
+	private static AtomicLong getChanges(final IProject project) {
+		AtomicLong changes = CHANGES.get(project);
+		if (changes == null) {
+			changes = new AtomicLong();
+			AtomicLong existing = CHANGES.putIfAbsent(project, changes);
+			if (existing != null) {
+				changes = existing;
+			}
+		}
+		return changes;
+	}
+
+	// folders of the index being built are not known, changes outside of the
+	// folders of the current index do not affect it
+	private static boolean affects(final ProjectIndex index, final IPath path) {
+		return index == null || index.stale || index.isInFolders(path);
+	}
+
+	private static class ProjectIndex {
+		private final List<IContainer> roots = new ArrayList<IContainer>();
+		// file name w/o extension -> files
+		private final NavigableMap<String, List<PropertiesFile>> files = new TreeMap<String, List<PropertiesFile>>();
+		private volatile boolean stale;
+
+		private ProjectIndex(IProject project, IProgressMonitor monitor) {
+			IResource[] resources = ProjectUtil.getFolderResources(project,
+					CLASSES_FOLDER_PATH);
+			if (resources != null) {
+				for (IResource res : resources) {
+					if (res instanceof IContainer) {
+						roots.add((IContainer) res);
+						scan((IContainer) res, monitor);
+					}
+				}
+			}
+		}
+
+		private void scan(final IContainer root,
+				final IProgressMonitor monitor) {
+			final IPath rootPath = root.getFullPath();
+			try {
+				root.accept(new IResourceProxyVisitor() {
+					@Override
+					public boolean visit(IResourceProxy proxy)
+							throws CoreException {
+						if (monitor.isCanceled()) {
+							throw new OperationCanceledException();
+						}
+						if (ProjectUtil.isBuildOutput(proxy)) {
+							return false;
+						}
+						if (proxy.getType() == IResource.FILE
+								&& proxy.isAccessible()
+								&& proxy.getName().endsWith(
+										"." + PROPERTIES_FILE_EXTENSION)) {
+							add(new PropertiesFile((IFile) proxy
+									.requestResource(), proxy
+									.requestFullPath().makeRelativeTo(rootPath)
+									.toString()));
+						}
+						return true;
+					}
+				}, IResource.NONE);
+			} catch (CoreException e) {
+				e.printStackTrace();
+			}
+		}
+
+		private void add(final PropertiesFile file) {
+			List<PropertiesFile> list = files.get(file.getBaseName());
+			if (list == null) {
+				list = new ArrayList<PropertiesFile>(1);
+				files.put(file.getBaseName(), list);
+			}
+			list.add(file);
+		}
+
+		private synchronized void addFiles(final Set<String> bundleNames,
+				final List<PropertiesFile> result) {
+			for (String name : bundleNames) {
+				List<PropertiesFile> list = files.get(name);
+				if (list != null) {
+					result.addAll(list);
+				}
+				// locale variants
+				for (List<PropertiesFile> l : files.subMap(name + "_", true,
+						name + "_" + Character.MAX_VALUE, false).values()) {
+					result.addAll(l);
+				}
+			}
+		}
+
+		private boolean isInFolders(final IPath path) {
+			for (IContainer root : roots) {
+				if (root.getFullPath().isPrefixOf(path)) {
+					return true;
+				}
+			}
+			return false;
+		}
+
+		private boolean isRootOrParent(final IPath path) {
+			for (IContainer root : roots) {
+				if (path.isPrefixOf(root.getFullPath())) {
+					return true;
+				}
+			}
+			return false;
+		}
+
+		private synchronized void fileChanged(final IFile file,
+				final boolean added) {
+			final IPath fullPath = file.getFullPath();
+			for (IContainer root : roots) {
+				if (root.getFullPath().isPrefixOf(fullPath)) {
+					if (added) {
+						add(new PropertiesFile(file, fullPath.makeRelativeTo(
+								root.getFullPath()).toString()));
+					} else {
+						remove(file);
+					}
+					break;
+				}
+			}
+		}
+
+		private void remove(final IFile file) {
+			final String baseName = PropertiesFile.toBaseName(file.getName());
+			List<PropertiesFile> list = files.get(baseName);
+			if (list != null) {
+				Iterator<PropertiesFile> it = list.iterator();
+				while (it.hasNext()) {
+					if (it.next().getFile().equals(file)) {
+						it.remove();
+					}
+				}
+				if (list.isEmpty()) {
+					files.remove(baseName);
+				}
+			}
+		}
+	}
+
+	private static class ResourceChangeListener implements
+			IResourceChangeListener, IResourceDeltaVisitor {
+		@Override
+		public void resourceChanged(IResourceChangeEvent event) {
+			if (event.getDelta() != null) {
+				try {
+					event.getDelta().accept(this);
+				} catch (CoreException e) {
+					e.printStackTrace();
+				}
+			}
+		}
+
+		@Override
+		public boolean visit(IResourceDelta delta) throws CoreException {
+			final IResource resource = delta.getResource();
+			final int kind = delta.getKind();
+
+			boolean visitChildren = true;
+			switch (resource.getType()) {
+			case IResource.PROJECT:
+				if (kind == IResourceDelta.REMOVED
+						|| (delta.getFlags() & IResourceDelta.OPEN) != 0) {
+					remove(resource);
+					visitChildren = false;
+				}
+				break;
+			case IResource.FOLDER:
+				if (kind == IResourceDelta.ADDED
+						|| kind == IResourceDelta.REMOVED) {
+					ProjectIndex index = PROJECTS.get(resource.getProject());
+					if (index != null
+							&& index.isRootOrParent(resource.getFullPath())) {
+						invalidate(resource);
+						visitChildren = false;
+					}
+				}
+				break;
+			case IResource.FILE:
+				visitChildren = false;
+				if (COMPONENT_FILE_NAME.equals(resource.getName())) {
+					invalidate(resource);
+				} else if (kind != IResourceDelta.CHANGED
+						&& PROPERTIES_FILE_EXTENSION.equals(resource
+								.getFileExtension())) {
+					// changed files are read again by the modification stamp
+					ProjectIndex index = PROJECTS.get(resource.getProject());
+					if (affects(index, resource.getFullPath())) {
+						getChanges(resource.getProject()).incrementAndGet();
+						if (index != null) {
+							index.fileChanged((IFile) resource,
+									kind == IResourceDelta.ADDED);
+						}
+					}
+				}
+				break;
+			}
+			return visitChildren;
+		}
+	}
+}
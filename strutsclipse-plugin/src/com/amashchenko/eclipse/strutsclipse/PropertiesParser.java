@@ -15,98 +15,215 @@
  */
 package com.amashchenko.eclipse.strutsclipse;
 
-import org.eclipse.jface.text.BadLocationException;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.WeakHashMap;
+
 import org.eclipse.jface.text.IDocument;
-import org.eclipse.jface.text.IDocumentPartitioner;
+import org.eclipse.jface.text.IDocumentExtension4;
 import org.eclipse.jface.text.IRegion;
-import org.eclipse.jface.text.ITypedRegion;
-import org.eclipse.jface.text.rules.EndOfLineRule;
-import org.eclipse.jface.text.rules.FastPartitioner;
-import org.eclipse.jface.text.rules.IPredicateRule;
-import org.eclipse.jface.text.rules.IToken;
-import org.eclipse.jface.text.rules.IWordDetector;
-import org.eclipse.jface.text.rules.RuleBasedPartitionScanner;
-import org.eclipse.jface.text.rules.Token;
-import org.eclipse.jface.text.rules.WordPatternRule;
+import org.eclipse.jface.text.Region;
 
+/**
+ * Finds keys in the properties documents. Document is read in one pass into
+ * the table of the keys regions, which is reused while the document
+ * modification stamp stays the same. Keys are read according to the
+ * {@link java.util.Properties#load(java.io.Reader)} rules.
+ */
 public class PropertiesParser {
-	private static final String KEY = "key_token";
-	private static final IToken KEY_TOKEN = new Token(KEY);
+	private static final PropertiesParser DEFAULT = new PropertiesParser();
+	private static final Map<IDocument, KeyTable> TABLES = Collections
+			.synchronizedMap(new WeakHashMap<IDocument, KeyTable>());
+
+	public static PropertiesParser getDefault() {
+		return DEFAULT;
+	}
 
+	/**
+	 * Gets region of the key in the document.
+	 * 
+	 * @param document
+	 *            Properties document.
+	 * @param searchKey
+	 *            Key to search, w/o escapes.
+	 * @return Region of the key as written in the document, or
+	 *         <code>null</code> if there is no such key. If key is defined
+	 *         multiple times the last definition is returned.
+	 */
 	public IRegion getKeyRegion(IDocument document, final String searchKey) {
-		IPredicateRule[] rules = new IPredicateRule[4];
-		rules[0] = new EndOfLineRule("#", Token.UNDEFINED);
-		rules[1] = new EndOfLineRule("!", Token.UNDEFINED);
-		rules[2] = new WordPatternRule(new PropertyKeyDetector(), "\n", "=",
-				KEY_TOKEN);
-		rules[3] = new WordPatternRule(new PropertyKeyDetector(), "\n", ":",
-				KEY_TOKEN);
-
-		RuleBasedPartitionScanner scanner = new RuleBasedPartitionScanner();
-		scanner.setPredicateRules(rules);
-
-		IDocumentPartitioner partitioner = new FastPartitioner(scanner,
-				new String[] { KEY });
-
-		IRegion region = null;
-		try {
-			partitioner.connect(document);
-
-			ITypedRegion[] tagRegions = partitioner.computePartitioning(0,
-					document.getLength());
-
-			boolean firstRegion = true;
-			for (ITypedRegion tagRegion : tagRegions) {
-				if (KEY.equals(tagRegion.getType()) || firstRegion) {
-					String key = null;
-					try {
-						// -1 remove =
-						key = document.get(tagRegion.getOffset(),
-								tagRegion.getLength() - 1);
-						key = key.trim();
-					} catch (BadLocationException e) {
-						e.printStackTrace();
-					}
-					// first line isn't caught by the key_token rule
-					if (firstRegion && key != null) {
-						int indx = key.indexOf('=');
-						if (indx != -1) {
-							key = key.substring(0, indx).trim();
-						}
+		if (searchKey == null) {
+			return null;
+		}
+		return getKeyTable(document).regions.get(searchKey);
+	}
+
+	private static KeyTable getKeyTable(final IDocument document) {
+		long stamp = IDocumentExtension4.UNKNOWN_MODIFICATION_STAMP;
+		if (document instanceof IDocumentExtension4) {
+			stamp = ((IDocumentExtension4) document).getModificationStamp();
+		}
+
+		KeyTable table = TABLES.get(document);
+		if (table != null && table.stamp == stamp) {
+			if (stamp != IDocumentExtension4.UNKNOWN_MODIFICATION_STAMP) {
+				return table;
+			}
+			// document w/o stamps, compare the content
+			if (table.text.equals(document.get())) {
+				return table;
+			}
+		}
+		table = new KeyTable(document.get(), stamp);
+		TABLES.put(document, table);
+		return table;
+	}
+
+	private static boolean isWhitespace(final char c) {
+		return c == ' ' || c == '\t' || c == '\f';
+	}
+
+	private static boolean isLineEnd(final char c) {
+		return c == '\r' || c == '\n';
+	}
+
+	private static class KeyTable {
+		private final String text;
+		private final long stamp;
+		private final Map<String, IRegion> regions = new HashMap<String, IRegion>();
+
+		private KeyTable(String text, long stamp) {
+			this.text = text;
+			this.stamp = stamp;
+			parse();
+		}
+
+		private void parse() {
+			final int length = text.length();
+			int i = 0;
+			while (i < length) {
+				i = skipWhitespace(i);
+				if (i >= length) {
+					break;
+				}
+
+				char c = text.charAt(i);
+				if (isLineEnd(c)) {
+					i++;
+					continue;
+				}
+				// comments are not continued
+				if (c == '#' || c == '!') {
+					while (i < length && !isLineEnd(text.charAt(i))) {
+						i++;
 					}
+					continue;
+				}
 
-					if (key != null) {
-						key = key.replace("\\ ", " ");
-						if (key.equals(searchKey)) {
-							region = tagRegion;
+				final int keyOffset = i;
+				StringBuilder key = new StringBuilder();
+				boolean separator = false;
+				while (i < length) {
+					c = text.charAt(i);
+					if (c == '\\') {
+						if (i + 1 >= length) {
+							i++;
 							break;
 						}
+						final char next = text.charAt(i + 1);
+						if (isLineEnd(next)) {
+							i = skipWhitespace(skipLineEnd(i + 1));
+						} else if (next == 'u') {
+							i = readUnicode(i + 2, key);
+						} else {
+							key.append(unescape(next));
+							i += 2;
+						}
+					} else if (c == '=' || c == ':' || isWhitespace(c)) {
+						separator = true;
+						break;
+					} else if (isLineEnd(c)) {
+						break;
+					} else {
+						key.append(c);
+						i++;
 					}
 				}
-				firstRegion = false;
+
+				// keys w/o value separator are not linked
+				if (separator) {
+					regions.put(key.toString(), new Region(keyOffset, i
+							- keyOffset));
+				}
+
+				i = skipValue(i);
+			}
+		}
+
+		private int skipWhitespace(int i) {
+			while (i < text.length() && isWhitespace(text.charAt(i))) {
+				i++;
 			}
-		} finally {
-			if (partitioner != null) {
-				partitioner.disconnect();
+			return i;
+		}
+
+		private int skipLineEnd(int i) {
+			if (text.charAt(i) == '\r' && i + 1 < text.length()
+					&& text.charAt(i + 1) == '\n') {
+				return i + 2;
 			}
+			return i + 1;
 		}
-		return region;
-	}
 
-	private static class PropertyKeyDetector implements IWordDetector {
-		private char prevChar;
+		// to the end of the logical line
+		private int skipValue(int i) {
+			final int length = text.length();
+			while (i < length) {
+				final char c = text.charAt(i);
+				if (c == '\\') {
+					if (i + 1 < length && isLineEnd(text.charAt(i + 1))) {
+						i = skipLineEnd(i + 1);
+					} else {
+						i += 2;
+					}
+				} else if (isLineEnd(c)) {
+					break;
+				} else {
+					i++;
+				}
+			}
+			return i;
+		}
 
-		@Override
-		public boolean isWordStart(char c) {
-			return false;
+		private int readUnicode(int i, final StringBuilder sb) {
+			int value = 0;
+			int digits = 0;
+			while (digits < 4 && i < text.length()) {
+				final int digit = Character.digit(text.charAt(i), 16);
+				if (digit == -1) {
+					break;
+				}
+				value = (value << 4) + digit;
+				digits++;
+				i++;
+			}
+			sb.append((char) value);
+			return i;
 		}
 
-		@Override
-		public boolean isWordPart(char c) {
-			boolean res = Character.MAX_VALUE != c && c != '\r' && c != '\n'
-					&& prevChar != '=' && prevChar != ':';
-			prevChar = c;
-			return res;
+		private char unescape(final char c) {
+			switch (c) {
+			case 't':
+				return '\t';
+			case 'n':
+				return '\n';
+			case 'r':
+				return '\r';
+			case 'f':
+				return '\f';
+			default:
+				return c;
+			}
 		}
 	}
 }
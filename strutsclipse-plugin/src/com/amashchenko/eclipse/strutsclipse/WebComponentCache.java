@@ -0,0 +1,180 @@
+/*
+ * Copyright 2015-2018 Aleksandr Mashchenko.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.amashchenko.eclipse.strutsclipse;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.eclipse.core.resources.IProject;
+import org.eclipse.core.resources.IResource;
+import org.eclipse.core.resources.IResourceChangeEvent;
+import org.eclipse.core.resources.IResourceChangeListener;
+import org.eclipse.core.resources.IResourceDelta;
+import org.eclipse.core.resources.IResourceDeltaVisitor;
+import org.eclipse.core.runtime.CoreException;
+import org.eclipse.wst.common.componentcore.ComponentCore;
+import org.eclipse.wst.common.componentcore.resources.IVirtualComponent;
+import org.eclipse.wst.common.componentcore.resources.IVirtualFolder;
+
+/**
+ * Cache of the web component root folder of the projects and of the
+ * underlying resources of its folders. Project cache is dropped when the
+ * component or facets settings of the project change, or when folders are
+ * added or removed in the project.
+ */
+public class WebComponentCache {
+	// web project structure
+	private static final String COMPONENT_FILE_NAME = "org.eclipse.wst.common.component";
+	private static final String FACETS_FILE_NAME = "org.eclipse.wst.common.project.facet.core.xml";
+
+	private static final Map<IProject, ProjectComponent> PROJECTS = new ConcurrentHashMap<IProject, ProjectComponent>();
+
+	private static final IResourceChangeListener RESOURCE_LISTENER = new ResourceChangeListener();
+
+	private WebComponentCache() {
+	}
+
+	/**
+	 * Gets root folder of the project web component.
+	 * 
+	 * @param project
+	 *            Project.
+	 * @return Existing root folder or <code>null</code>.
+	 */
+	public static IVirtualFolder getRootFolder(final IProject project) {
+		return getProjectComponent(project).rootFolder;
+	}
+
+	/**
+	 * Gets underlying resources of the project web folder.
+	 * 
+	 * @param project
+	 *            Project.
+	 * @param folderName
+	 *            Web folder path or <code>null</code> for the root folder.
+	 * @return Underlying resources or <code>null</code> if folder doesn't
+	 *         exist.
+	 */
+	public static IResource[] getFolderResources(final IProject project,
+			final String folderName) {
+		IResource[] resources = getProjectComponent(project)
+				.getFolderResources(folderName);
+		return resources == null ? null : resources.clone();
+	}
+
+	public static IResourceChangeListener getResourceChangeListener() {
+		return RESOURCE_LISTENER;
+	}
+
+	public static void clear() {
+		PROJECTS.clear();
+	}
+
+	private static ProjectComponent getProjectComponent(final IProject project) {
+		ProjectComponent component = PROJECTS.get(project);
+		if (component == null) {
+			component = new ProjectComponent(project);
+			PROJECTS.put(project, component);
+		}
+		return component;
+	}
+
+	private static class ProjectComponent {
+		private final IVirtualFolder rootFolder;
+		// folder name -> underlying resources
+		private final Map<String, IResource[]> folders = new HashMap<String, IResource[]>();
+
+		private ProjectComponent(IProject project) {
+			IVirtualFolder folder = null;
+			IVirtualComponent rootComponent = ComponentCore
+					.createComponent(project);
+			if (rootComponent != null) {
+				folder = rootComponent.getRootFolder();
+			}
+			rootFolder = folder != null && folder.exists() ? folder : null;
+		}
+
+		private synchronized IResource[] getFolderResources(
+				final String folderName) {
+			if (folders.containsKey(folderName)) {
+				return folders.get(folderName);
+			}
+
+			IResource[] resources = null;
+			if (rootFolder != null) {
+				IVirtualFolder folder = rootFolder;
+				if (folderName != null) {
+					folder = folder.getFolder(folderName);
+				}
+				if (folder != null && folder.exists()) {
+					resources = folder.getUnderlyingResources();
+				}
+			}
+			folders.put(folderName, resources);
+			return resources;
+		}
+	}
+
+	private static class ResourceChangeListener implements
+			IResourceChangeListener, IResourceDeltaVisitor {
+		@Override
+		public void resourceChanged(IResourceChangeEvent event) {
+			if (event.getDelta() != null && !PROJECTS.isEmpty()) {
+				try {
+					event.getDelta().accept(this);
+				} catch (CoreException e) {
+					e.printStackTrace();
+				}
+			}
+		}
+
+		@Override
+		public boolean visit(IResourceDelta delta) throws CoreException {
+			final IResource resource = delta.getResource();
+			final int kind = delta.getKind();
+
+			boolean visitChildren = true;
+			switch (resource.getType()) {
+			case IResource.PROJECT:
+				if (!PROJECTS.containsKey(resource)) {
+					visitChildren = false;
+				} else if (kind == IResourceDelta.REMOVED
+						|| (delta.getFlags() & IResourceDelta.OPEN) != 0) {
+					PROJECTS.remove(resource);
+					visitChildren = false;
+				}
+				break;
+			case IResource.FOLDER:
+				// underlying folder of the component can appear or disappear
+				if (kind == IResourceDelta.ADDED
+						|| kind == IResourceDelta.REMOVED) {
+					PROJECTS.remove(resource.getProject());
+					visitChildren = false;
+				}
+				break;
+			case IResource.FILE:
+				visitChildren = false;
+				if (COMPONENT_FILE_NAME.equals(resource.getName())
+						|| FACETS_FILE_NAME.equals(resource.getName())) {
+					PROJECTS.remove(resource.getProject());
+				}
+				break;
+			}
+			return visitChildren;
+		}
+	}
+}
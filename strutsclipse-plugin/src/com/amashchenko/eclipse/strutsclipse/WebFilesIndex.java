@@ -0,0 +1,401 @@
+/*
+ * Copyright 2015-2018 Aleksandr Mashchenko.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.amashchenko.eclipse.strutsclipse;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.NavigableSet;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.eclipse.core.resources.IContainer;
+import org.eclipse.core.resources.IProject;
+import org.eclipse.core.resources.IResource;
+import org.eclipse.core.resources.IResourceChangeEvent;
+import org.eclipse.core.resources.IResourceChangeListener;
+import org.eclipse.core.resources.IResourceDelta;
+import org.eclipse.core.resources.IResourceDeltaVisitor;
+import org.eclipse.core.resources.IResourceProxy;
+import org.eclipse.core.resources.IResourceProxyVisitor;
+import org.eclipse.core.runtime.CoreException;
+import org.eclipse.core.runtime.IPath;
+import org.eclipse.core.runtime.IProgressMonitor;
+import org.eclipse.core.runtime.NullProgressMonitor;
+import org.eclipse.core.runtime.OperationCanceledException;
+
+/**
+ * Index of the web files paths of the workspace projects by the file
+ * extension. Paths are relative to the web root folder and kept sorted.
+ * Project is scanned once on the first request, afterwards the index is
+ * updated from the resource deltas. Changes of the project web structure
+ * make the project index outdated, it is built again by the
+ * {@link IndexingScheduler} and used until then.
+ */
+public class WebFilesIndex {
+	public static final List<String> JSP_HTML_FILE_EXTENSIONS = Collections
+			.unmodifiableList(Arrays.asList("jsp", "html", "htm"));
+	public static final List<String> FREEMARKER_FILE_EXTENSIONS = Collections
+			.unmodifiableList(Arrays.asList("ftl"));
+
+	private static final List<String> FILE_EXTENSIONS = new ArrayList<String>();
+	static {
+		FILE_EXTENSIONS.addAll(JSP_HTML_FILE_EXTENSIONS);
+		FILE_EXTENSIONS.addAll(FREEMARKER_FILE_EXTENSIONS);
+	}
+	// web project structure
+	private static final String COMPONENT_FILE_NAME = "org.eclipse.wst.common.component";
+
+	private static final ConcurrentMap<IProject, ProjectIndex> PROJECTS = new ConcurrentHashMap<IProject, ProjectIndex>();
+
+	// project -> stamp incremented on every change which can affect the
+	// project index
+	private static final ConcurrentMap<IProject, AtomicLong> CHANGES = new ConcurrentHashMap<IProject, AtomicLong>();
+
+	private static final IResourceChangeListener RESOURCE_LISTENER = new ResourceChangeListener();
+
+	private WebFilesIndex() {
+	}
+
+	/**
+	 * Gets paths of the web files with given extensions.
+	 * 
+	 * @param project
+	 *            Project.
+	 * @param fileExtensions
+	 *            Lower case file extensions, one of the indexed extensions.
+	 * @return Sorted paths relative to the web root, starting with '/'.
+	 */
+	public static NavigableSet<String> getPaths(final IProject project,
+			final List<String> fileExtensions) {
+		NavigableSet<String> paths = new TreeSet<String>();
+		if (project != null && project.exists()) {
+			getProjectIndex(project).addPaths(fileExtensions, null, paths);
+		}
+		return paths;
+	}
+
+	/**
+	 * Gets paths of the web files with given extensions which start with the
+	 * given prefix.
+	 * 
+	 * @param project
+	 *            Project.
+	 * @param fileExtensions
+	 *            Lower case file extensions, one of the indexed extensions.
+	 * @param prefix
+	 *            Path prefix, starting with '/'.
+	 * @return Sorted paths relative to the web root.
+	 */
+	public static NavigableSet<String> getPaths(final IProject project,
+			final List<String> fileExtensions, final String prefix) {
+		NavigableSet<String> paths = new TreeSet<String>();
+		if (project != null && project.exists()) {
+			getProjectIndex(project).addPaths(fileExtensions, prefix, paths);
+		}
+		return paths;
+	}
+
+	public static IResourceChangeListener getResourceChangeListener() {
+		return RESOURCE_LISTENER;
+	}
+
+	/**
+	 * Builds index of the project if there is no index or the index is
+	 * outdated. Outdated index is replaced only when the new one is built.
+	 * 
+	 * @param project
+	 *            Project.
+	 * @param monitor
+	 *            Progress monitor.
+	 * @return <code>false</code> if building is canceled or the project has
+	 *         changed while scanning and index needs to be built again.
+	 */
+	public static boolean build(final IProject project,
+			final IProgressMonitor monitor) {
+		ProjectIndex index = PROJECTS.get(project);
+		if (index != null && !index.stale) {
+			return true;
+		}
+		final AtomicLong changes = getChanges(project);
+		final long stamp = changes.get();
+		try {
+			index = new ProjectIndex(project, monitor);
+		} catch (OperationCanceledException e) {
+			return false;
+		}
+		if (stamp != changes.get()) {
+			return false;
+		}
+		PROJECTS.put(project, index);
+		return true;
+	}
+
+	public static void clear() {
+		PROJECTS.clear();
+		for (AtomicLong changes : CHANGES.values()) {
+			changes.incrementAndGet();
+		}
+	}
+
+	private static ProjectIndex getProjectIndex(final IProject project) {
+		ProjectIndex index = PROJECTS.get(project);
+		if (index == null) {
+			final AtomicLong changes = getChanges(project);
+			final long stamp = changes.get();
+			index = new ProjectIndex(project, new NullProgressMonitor());
+			// do not keep index which could miss changes made while scanning
+			if (stamp == changes.get()) {
+				ProjectIndex existing = PROJECTS.putIfAbsent(project, index);
+				if (existing != null) {
+					index = existing;
+				}
+			}
+		}
+		return index;
+	}
+
+	// outdated index is used until the new one is built
+	private static void invalidate(final IResource resource) {
+		ProjectIndex index = PROJECTS.get(resource.getProject());
+		if (index != null) {
+			index.stale = true;
+			IndexingScheduler.reindex(resource.getProject());
+		}
+		getChanges(resource.getProject()).incrementAndGet();
+	}
+
+	// scan in progress holds the removed stamp and sees the change
+	private static void remove(final IResource resource) {
+		PROJECTS.remove(resource.getProject());
+		AtomicLong changes = CHANGES.remove(resource.getProject());
+		if (changes != null) {
+			changes.incrementAndGet();
+		}
+	}
+
+	private static AtomicLong getChanges(final IProject project) {
+		AtomicLong changes = CHANGES.get(project);
+		if (changes == null) {
+			changes = new AtomicLong();
+			AtomicLong existing = CHANGES.putIfAbsent(project, changes);
+			if (existing != null) {
+				changes = existing;
+			}
+		}
+		return changes;
+	}
+
+	// folders of the index being built are not known, changes outside of the
+	// folders of the current index do not affect it
+	private static boolean affects(final ProjectIndex index, final IPath path) {
+		return index == null || index.stale || index.isInFolders(path);
+	}
+
+	private static String getExtension(final IResource resource) {
+		String ext = resource.getFileExtension();
+		return ext == null ? null : ext.toLowerCase(Locale.ROOT);
+	}
+
+	private static class ProjectIndex {
+		private final List<IContainer> roots = new ArrayList<IContainer>();
+		// extension -> paths
+		private final Map<String, NavigableSet<String>> paths = new HashMap<String, NavigableSet<String>>();
+		private volatile boolean stale;
+
+		private ProjectIndex(IProject project, IProgressMonitor monitor) {
+			for (String ext : FILE_EXTENSIONS) {
+				paths.put(ext, new TreeSet<String>());
+			}
+
+			IResource[] resources = ProjectUtil.getFolderResources(project,
+					null);
+			if (resources != null) {
+				for (IResource res : resources) {
+					if (res instanceof IContainer) {
+						roots.add((IContainer) res);
+						scan((IContainer) res, monitor);
+					}
+				}
+			}
+		}
+
+		private void scan(final IContainer root,
+				final IProgressMonitor monitor) {
+			final IPath rootPath = root.getFullPath();
+			try {
+				root.accept(new IResourceProxyVisitor() {
+					@Override
+					public boolean visit(IResourceProxy proxy)
+							throws CoreException {
+						if (monitor.isCanceled()) {
+							throw new OperationCanceledException();
+						}
+						if (ProjectUtil.isBuildOutput(proxy)) {
+							return false;
+						}
+						if (proxy.getType() == IResource.FILE
+								&& proxy.isAccessible()) {
+							final String name = proxy.getName();
+							final int dot = name.lastIndexOf('.');
+							if (dot != -1) {
+								NavigableSet<String> set = paths.get(name
+										.substring(dot + 1).toLowerCase(
+												Locale.ROOT));
+								if (set != null) {
+									set.add(toPath(proxy.requestFullPath(),
+											rootPath));
+								}
+							}
+						}
+						return true;
+					}
+				}, IResource.NONE);
+			} catch (CoreException e) {
+				e.printStackTrace();
+			}
+		}
+
+		// only paths with the prefix are copied, if prefix is given
+		private synchronized void addPaths(final List<String> fileExtensions,
+				final String prefix, final NavigableSet<String> result) {
+			for (String ext : fileExtensions) {
+				NavigableSet<String> set = paths.get(ext);
+				if (set != null) {
+					result.addAll(prefix == null ? set : set.subSet(prefix,
+							true, prefix + Character.MAX_VALUE, false));
+				}
+			}
+		}
+
+		private boolean isInFolders(final IPath path) {
+			for (IContainer root : roots) {
+				if (root.getFullPath().isPrefixOf(path)) {
+					return true;
+				}
+			}
+			return false;
+		}
+
+		private boolean isRootOrParent(final IPath path) {
+			for (IContainer root : roots) {
+				if (path.isPrefixOf(root.getFullPath())) {
+					return true;
+				}
+			}
+			return false;
+		}
+
+		private synchronized void fileChanged(final IResource file,
+				final boolean added) {
+			NavigableSet<String> set = paths.get(getExtension(file));
+			if (set == null) {
+				return;
+			}
+			final IPath fullPath = file.getFullPath();
+			for (IContainer root : roots) {
+				if (root.getFullPath().isPrefixOf(fullPath)) {
+					final String path = toPath(fullPath, root.getFullPath());
+					if (added) {
+						set.add(path);
+					} else if (!existsInRoots(path)) {
+						set.remove(path);
+					}
+				}
+			}
+		}
+
+		// same path can be in the other root folder
+		private boolean existsInRoots(final String path) {
+			for (IContainer root : roots) {
+				IResource member = root.findMember(path);
+				if (member != null && member.isAccessible()) {
+					return true;
+				}
+			}
+			return false;
+		}
+
+		private String toPath(final IPath fullPath, final IPath rootPath) {
+			return fullPath.makeRelativeTo(rootPath).makeAbsolute().toString();
+		}
+	}
+
+	private static class ResourceChangeListener implements
+			IResourceChangeListener, IResourceDeltaVisitor {
+		@Override
+		public void resourceChanged(IResourceChangeEvent event) {
+			if (event.getDelta() != null) {
+				try {
+					event.getDelta().accept(this);
+				} catch (CoreException e) {
+					e.printStackTrace();
+				}
+			}
+		}
+
+		@Override
+		public boolean visit(IResourceDelta delta) throws CoreException {
+			final IResource resource = delta.getResource();
+			final int kind = delta.getKind();
+
+			boolean visitChildren = true;
+			switch (resource.getType()) {
+			case IResource.PROJECT:
+				if (kind == IResourceDelta.REMOVED
+						|| (delta.getFlags() & IResourceDelta.OPEN) != 0) {
+					remove(resource);
+					visitChildren = false;
+				}
+				break;
+			case IResource.FOLDER:
+				if (kind == IResourceDelta.ADDED
+						|| kind == IResourceDelta.REMOVED) {
+					ProjectIndex index = PROJECTS.get(resource.getProject());
+					if (index != null
+							&& index.isRootOrParent(resource.getFullPath())) {
+						invalidate(resource);
+						visitChildren = false;
+					}
+				}
+				break;
+			case IResource.FILE:
+				visitChildren = false;
+				if (COMPONENT_FILE_NAME.equals(resource.getName())) {
+					invalidate(resource);
+				} else if (kind != IResourceDelta.CHANGED
+						&& FILE_EXTENSIONS.contains(getExtension(resource))) {
+					ProjectIndex index = PROJECTS.get(resource.getProject());
+					if (affects(index, resource.getFullPath())) {
+						getChanges(resource.getProject()).incrementAndGet();
+						if (index != null) {
+							index.fileChanged(resource,
+									kind == IResourceDelta.ADDED);
+						}
+					}
+				}
+				break;
+			}
+			return visitChildren;
+		}
+	}
+}
@@ -0,0 +1,324 @@
+/*
+ * Copyright 2015-2018 Aleksandr Mashchenko.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.amashchenko.eclipse.strutsclipse.java;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import org.eclipse.core.runtime.IProgressMonitor;
+import org.eclipse.core.runtime.IStatus;
+import org.eclipse.core.runtime.Status;
+import org.eclipse.core.runtime.jobs.Job;
+import org.eclipse.jdt.core.IAnnotation;
+import org.eclipse.jdt.core.ICompilationUnit;
+import org.eclipse.jdt.core.IElementChangedListener;
+import org.eclipse.jdt.core.IJavaElement;
+import org.eclipse.jdt.core.IJavaProject;
+import org.eclipse.jdt.core.IPackageFragment;
+import org.eclipse.jdt.core.IPackageFragmentRoot;
+import org.eclipse.jdt.core.JavaModelException;
+
+import com.amashchenko.eclipse.strutsclipse.IndexingScheduler;
+
+/**
+ * Index of the convention plugin <code>@Action</code> and
+ * <code>@Actions</code> annotations in the sources of the java projects.
+ * Project sources are scanned once by the {@link IndexingScheduler} or, if
+ * requested before, in the own background job; requests do not wait for the
+ * scan and get the annotations found so far.
+ * Afterwards only the changed compilation units are parsed again from the
+ * java element deltas. Changes of the classpath make the indexes of the
+ * project and of the projects depending on it outdated, they are built again
+ * by the {@link IndexingScheduler} and used until then.
+ */
+public class ActionAnnotationIndex {
+	private static final AnnotationParser PARSER = AnnotationParser
+			.getDefault();
+
+	private static final ConcurrentMap<IJavaProject, ProjectIndex> PROJECTS = new ConcurrentHashMap<IJavaProject, ProjectIndex>();
+	// indexes which replace the outdated ones when built
+	private static final ConcurrentMap<IJavaProject, ProjectIndex> REBUILDING = new ConcurrentHashMap<IJavaProject, ProjectIndex>();
+
+	private static final IElementChangedListener ELEMENT_LISTENER = new ElementChangedListener();
+
+	private ActionAnnotationIndex() {
+	}
+
+	/**
+	 * Gets values of the action annotations in the project sources.
+	 * 
+	 * @param javaProject
+	 *            Project.
+	 * @return Actions names.
+	 */
+	public static Set<String> getActionNames(final IJavaProject javaProject) {
+		Set<String> names = new HashSet<String>();
+		ProjectIndex index = getProjectIndex(javaProject);
+		if (index != null) {
+			index.addActionNames(names);
+		}
+		return names;
+	}
+
+	/**
+	 * Gets action annotations with the given value.
+	 * 
+	 * @param javaProject
+	 *            Project.
+	 * @param actionName
+	 *            Value of the annotation.
+	 * @return Annotations in the project sources.
+	 */
+	public static List<IAnnotation> getAnnotations(
+			final IJavaProject javaProject, final String actionName) {
+		List<IAnnotation> annotations = new ArrayList<IAnnotation>();
+		ProjectIndex index = getProjectIndex(javaProject);
+		if (index != null) {
+			index.addAnnotations(actionName, annotations);
+		}
+		return annotations;
+	}
+
+	public static IElementChangedListener getElementChangedListener() {
+		return ELEMENT_LISTENER;
+	}
+
+	/**
+	 * Builds index of the project if there is no index or the index is
+	 * outdated. Outdated index is replaced only when the new one is built.
+	 * 
+	 * @param javaProject
+	 *            Project.
+	 * @param monitor
+	 *            Progress monitor.
+	 * @return <code>false</code> if building is canceled or the classpath
+	 *         has changed while scanning.
+	 */
+	public static boolean build(final IJavaProject javaProject,
+			final IProgressMonitor monitor) {
+		if (javaProject == null || !javaProject.exists()) {
+			return true;
+		}
+		ProjectIndex index = PROJECTS.get(javaProject);
+		if (index == null) {
+			index = new ProjectIndex(javaProject);
+			ProjectIndex existing = PROJECTS.putIfAbsent(javaProject, index);
+			if (existing != null) {
+				index = existing;
+			}
+		}
+		if (!index.scanned) {
+			// scanned with the scheduler monitor instead of the own job
+			index.job.cancel();
+			return index.scan(monitor) && !index.stale;
+		}
+		if (!index.stale) {
+			return true;
+		}
+
+		ProjectIndex newIndex = new ProjectIndex(javaProject);
+		REBUILDING.put(javaProject, newIndex);
+		try {
+			// classpath could change while scanning
+			if (!newIndex.scan(monitor) || newIndex.stale) {
+				return false;
+			}
+			PROJECTS.put(javaProject, newIndex);
+		} finally {
+			REBUILDING.remove(javaProject);
+		}
+		return true;
+	}
+
+	public static void clear() {
+		for (ProjectIndex index : PROJECTS.values()) {
+			index.job.cancel();
+		}
+		PROJECTS.clear();
+	}
+
+	private static ProjectIndex getProjectIndex(final IJavaProject javaProject) {
+		if (javaProject == null || !javaProject.exists()) {
+			return null;
+		}
+		ProjectIndex index = PROJECTS.get(javaProject);
+		if (index == null) {
+			index = new ProjectIndex(javaProject);
+			ProjectIndex existing = PROJECTS.putIfAbsent(javaProject, index);
+			if (existing == null) {
+				index.job.schedule();
+			} else {
+				index = existing;
+			}
+		}
+		// annotations found so far are used until the scan is complete
+		return index;
+	}
+
+	private static class ProjectIndex {
+		private final IJavaProject javaProject;
+		private final Job job;
+		// annotations are in the classpath
+		private volatile boolean available;
+		// all sources were scanned once
+		private volatile boolean scanned;
+		private volatile boolean stale;
+		// compilation unit -> annotations by the action name
+		private final Map<ICompilationUnit, Map<String, List<IAnnotation>>> units = new HashMap<ICompilationUnit, Map<String, List<IAnnotation>>>();
+
+		private ProjectIndex(IJavaProject javaProject) {
+			this.javaProject = javaProject;
+			job = new Job("Indexing Struts action annotations") {
+				@Override
+				protected IStatus run(IProgressMonitor monitor) {
+					scan(monitor);
+					return Status.OK_STATUS;
+				}
+			};
+			job.setSystem(true);
+			job.setPriority(Job.SHORT);
+		}
+
+		private boolean scan(final IProgressMonitor monitor) {
+			try {
+				available = PARSER.isActionAnnotationAvailable(javaProject);
+				if (!available) {
+					scanned = true;
+					return true;
+				}
+				for (IPackageFragment fragment : javaProject
+						.getPackageFragments()) {
+					if (monitor.isCanceled()) {
+						return false;
+					}
+					if (fragment.getKind() == IPackageFragmentRoot.K_SOURCE) {
+						for (ICompilationUnit unit : fragment
+								.getCompilationUnits()) {
+							unitChanged(unit);
+						}
+					}
+				}
+			} catch (JavaModelException e) {
+				e.printStackTrace();
+			}
+			scanned = true;
+			return true;
+		}
+
+		// unit is parsed under the lock, so the delta and the scan can't
+		// store outdated annotations
+		private synchronized void unitChanged(final ICompilationUnit unit) {
+			if (!available) {
+				return;
+			}
+			Map<String, List<IAnnotation>> annotations = null;
+			if (unit.exists()) {
+				try {
+					annotations = PARSER.parseActionAnnotations(unit);
+				} catch (JavaModelException e) {
+					e.printStackTrace();
+				}
+			}
+			if (annotations == null || annotations.isEmpty()) {
+				units.remove(unit);
+			} else {
+				units.put(unit, annotations);
+			}
+		}
+
+		private synchronized void packageChanged(final IPackageFragment fragment) {
+			if (!available) {
+				return;
+			}
+			Iterator<ICompilationUnit> it = units.keySet().iterator();
+			while (it.hasNext()) {
+				if (fragment.equals(it.next().getParent())) {
+					it.remove();
+				}
+			}
+			try {
+				if (fragment.exists()
+						&& fragment.getKind() == IPackageFragmentRoot.K_SOURCE) {
+					for (ICompilationUnit unit : fragment.getCompilationUnits()) {
+						unitChanged(unit);
+					}
+				}
+			} catch (JavaModelException e) {
+				e.printStackTrace();
+			}
+		}
+
+		private synchronized void addActionNames(final Set<String> result) {
+			for (Map<String, List<IAnnotation>> annotations : units.values()) {
+				result.addAll(annotations.keySet());
+			}
+		}
+
+		private synchronized void addAnnotations(final String actionName,
+				final List<IAnnotation> result) {
+			for (Map<String, List<IAnnotation>> annotations : units.values()) {
+				List<IAnnotation> list = annotations.get(actionName);
+				if (list != null) {
+					result.addAll(list);
+				}
+			}
+		}
+	}
+
+	private static class ElementChangedListener extends
+			JavaElementChangeListener {
+		@Override
+		protected void classpathChanged(IJavaProject project) {
+			for (ProjectIndex index : REBUILDING.values()) {
+				if (dependsOn(index.javaProject, project)) {
+					index.stale = true;
+				}
+			}
+			for (ProjectIndex index : PROJECTS.values()) {
+				if (!index.javaProject.exists()) {
+					PROJECTS.remove(index.javaProject);
+				} else if (dependsOn(index.javaProject, project)) {
+					index.stale = true;
+					IndexingScheduler.reindex(index.javaProject.getProject());
+				}
+			}
+		}
+
+		@Override
+		protected void sourceChanged(IJavaElement element) {
+			sourceChanged(PROJECTS.get(element.getJavaProject()), element);
+			sourceChanged(REBUILDING.get(element.getJavaProject()), element);
+		}
+
+		private void sourceChanged(ProjectIndex index, IJavaElement element) {
+			if (index == null) {
+				return;
+			}
+			if (element instanceof ICompilationUnit) {
+				index.unitChanged((ICompilationUnit) element);
+			} else if (element instanceof IPackageFragment) {
+				index.packageChanged((IPackageFragment) element);
+			}
+		}
+	}
+}
@@ -16,8 +16,9 @@
 package com.amashchenko.eclipse.strutsclipse.java;
 
 import java.util.ArrayList;
-import java.util.HashSet;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
 
 import org.eclipse.jdt.core.IAnnotatable;
@@ -27,8 +28,6 @@ import org.eclipse.jdt.core.IJavaElement;
 import org.eclipse.jdt.core.IJavaProject;
 import org.eclipse.jdt.core.IMemberValuePair;
 import org.eclipse.jdt.core.IMethod;
-import org.eclipse.jdt.core.IPackageFragment;
-import org.eclipse.jdt.core.IPackageFragmentRoot;
 import org.eclipse.jdt.core.IType;
 import org.eclipse.jdt.core.JavaModelException;
 import org.eclipse.jface.text.IDocument;
@@ -36,98 +35,95 @@ import org.eclipse.jface.text.IDocument;
 import com.amashchenko.eclipse.strutsclipse.ProjectUtil;
 
 public class AnnotationParser {
+	private static final AnnotationParser DEFAULT = new AnnotationParser();
 	private static final String ACTIONS_ANNOTATION = "Actions";
 	private static final String ACTIONS_ANNOTATION_FQN = "org.apache.struts2.convention.annotation.Actions";
 	private static final String ACTION_ANNOTATION = "Action";
 	private static final String ACTION_ANNOTATION_FQN = "org.apache.struts2.convention.annotation.Action";
 	private static final String ANNOTATION_VALUE = "value";
 
+	public static AnnotationParser getDefault() {
+		return DEFAULT;
+	}
+
 	public Set<String> findAnnotationsActionNames(
 			final IDocument currentDocument) {
-		Set<String> names = new HashSet<String>();
-		try {
-			List<IAnnotation> annotations = parseActionAnnotation(currentDocument);
-			for (IAnnotation annotation : annotations) {
-				String name = fetchAnnotationStringValue(annotation);
-				if (name != null) {
-					names.add(name);
-				}
-			}
-		} catch (JavaModelException e) {
-			e.printStackTrace();
-		}
-		return names;
+		return ActionAnnotationIndex.getActionNames(ProjectUtil
+				.getCurrentJavaProject(currentDocument));
 	}
 
 	public List<IJavaElement> findAnnotationsActionElements(
 			final IDocument currentDocument, final String actionValue) {
-		List<IJavaElement> elements = new ArrayList<IJavaElement>();
-		try {
-			List<IAnnotation> annotations = parseActionAnnotation(currentDocument);
-			for (IAnnotation annotation : annotations) {
-				if (sameAnnotationStringValue(annotation, actionValue)) {
-					elements.add(annotation);
-				}
-			}
-		} catch (JavaModelException e) {
-			e.printStackTrace();
-		}
-		return elements;
+		return new ArrayList<IJavaElement>(
+				ActionAnnotationIndex.getAnnotations(
+						ProjectUtil.getCurrentJavaProject(currentDocument),
+						actionValue));
 	}
 
-	private List<IAnnotation> parseActionAnnotation(
-			final IDocument currentDocument) throws JavaModelException {
-		List<IAnnotation> result = new ArrayList<IAnnotation>();
+	/**
+	 * Checks if the convention plugin annotations are in the classpath of the
+	 * project.
+	 */
+	boolean isActionAnnotationAvailable(final IJavaProject javaProject)
+			throws JavaModelException {
+		IType actionAnnotaionType = TypeResolutionCache.findType(javaProject,
+				ACTION_ANNOTATION_FQN);
+		return actionAnnotaionType != null && actionAnnotaionType.exists();
+	}
 
-		IJavaProject javaProject = ProjectUtil
-				.getCurrentJavaProject(currentDocument);
-		if (javaProject != null && javaProject.exists()) {
-			// check if annotation is in the classpath
-			IType actionAnnotaionType = javaProject
-					.findType(ACTION_ANNOTATION_FQN);
-			if (actionAnnotaionType != null && actionAnnotaionType.exists()) {
-				IPackageFragment[] fragments = javaProject
-						.getPackageFragments();
-				for (IPackageFragment fragment : fragments) {
-					if (fragment.getKind() == IPackageFragmentRoot.K_SOURCE) {
-						ICompilationUnit[] units = fragment
-								.getCompilationUnits();
-						for (ICompilationUnit unit : units) {
-							IType[] types = unit.getTypes();
-							for (IType type : types) {
-								boolean actionsImportExist = false;
-								boolean actionImportExist = false;
-								String[][] resolvedType = type
-										.resolveType(ACTIONS_ANNOTATION);
-								if (resolvedType != null) {
-									// if correct Actions annotation
-									actionsImportExist = ACTIONS_ANNOTATION_FQN
-											.equals(resolvedType[0][0] + "."
-													+ resolvedType[0][1]);
-								}
-								resolvedType = type
-										.resolveType(ACTION_ANNOTATION);
-								if (resolvedType != null) {
-									// if correct Action annotation
-									actionImportExist = ACTION_ANNOTATION_FQN
-											.equals(resolvedType[0][0] + "."
-													+ resolvedType[0][1]);
-								}
+	/**
+	 * Gets action annotations of the types and methods of the compilation
+	 * unit.
+	 * 
+	 * @param unit
+	 *            Compilation unit.
+	 * @return Map of the annotations where key is the annotation value.
+	 * @throws JavaModelException
+	 *             If unit can't be read.
+	 */
+	Map<String, List<IAnnotation>> parseActionAnnotations(
+			final ICompilationUnit unit) throws JavaModelException {
+		Map<String, List<IAnnotation>> result = new HashMap<String, List<IAnnotation>>();
+
+		IType[] types = unit.getTypes();
+		for (IType type : types) {
+			boolean actionsImportExist = false;
+			boolean actionImportExist = false;
+			String[][] resolvedType = type.resolveType(ACTIONS_ANNOTATION);
+			if (resolvedType != null) {
+				// if correct Actions annotation
+				actionsImportExist = ACTIONS_ANNOTATION_FQN
+						.equals(resolvedType[0][0] + "." + resolvedType[0][1]);
+			}
+			resolvedType = type.resolveType(ACTION_ANNOTATION);
+			if (resolvedType != null) {
+				// if correct Action annotation
+				actionImportExist = ACTION_ANNOTATION_FQN
+						.equals(resolvedType[0][0] + "." + resolvedType[0][1]);
+			}
 
-								// class annotation
-								result.addAll(fetchActionAnnotationValue(type,
-										actionsImportExist, actionImportExist));
+			List<IAnnotation> annotations = new ArrayList<IAnnotation>();
 
-								// methods annotation
-								IMethod[] methods = type.getMethods();
-								for (IMethod method : methods) {
-									result.addAll(fetchActionAnnotationValue(
-											method, actionsImportExist,
-											actionImportExist));
-								}
-							}
-						}
+			// class annotation
+			annotations.addAll(fetchActionAnnotationValue(type,
+					actionsImportExist, actionImportExist));
+
+			// methods annotation
+			IMethod[] methods = type.getMethods();
+			for (IMethod method : methods) {
+				annotations.addAll(fetchActionAnnotationValue(method,
+						actionsImportExist, actionImportExist));
+			}
+
+			for (IAnnotation annotation : annotations) {
+				String name = fetchAnnotationStringValue(annotation);
+				if (name != null) {
+					List<IAnnotation> list = result.get(name);
+					if (list == null) {
+						list = new ArrayList<IAnnotation>(1);
+						result.put(name, list);
 					}
+					list.add(annotation);
 				}
 			}
 		}
@@ -196,22 +192,4 @@ public class AnnotationParser {
 		}
 		return null;
 	}
-
-	private boolean sameAnnotationStringValue(IAnnotation annotation,
-			String actionValue) throws JavaModelException {
-		boolean res = false;
-		if (annotation.exists()) {
-			IMemberValuePair[] valuePairs = annotation.getMemberValuePairs();
-			for (IMemberValuePair valuePair : valuePairs) {
-				res = valuePair.getValueKind() == IMemberValuePair.K_STRING
-						&& valuePair.getValue() instanceof String
-						&& ANNOTATION_VALUE.equals(valuePair.getMemberName())
-						&& actionValue.equals(valuePair.getValue());
-				if (res) {
-					break;
-				}
-			}
-		}
-		return res;
-	}
 }
@@ -16,27 +16,38 @@
 package com.amashchenko.eclipse.strutsclipse.java;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
+import java.util.Locale;
 
+import org.eclipse.jdt.core.Flags;
 import org.eclipse.jdt.core.IBuffer;
 import org.eclipse.jdt.core.ICompilationUnit;
 import org.eclipse.jdt.core.IJavaProject;
-import org.eclipse.jdt.core.IPackageFragment;
+import org.eclipse.jdt.core.IMethod;
+import org.eclipse.jdt.core.IType;
 import org.eclipse.jdt.core.JavaModelException;
+import org.eclipse.jdt.ui.ISharedImages;
+import org.eclipse.jdt.ui.JavaUI;
 import org.eclipse.jdt.ui.text.java.IJavaCompletionProposal;
 import org.eclipse.jface.text.IDocument;
 import org.eclipse.jface.text.IRegion;
 import org.eclipse.jface.text.contentassist.CompletionProposal;
 import org.eclipse.jface.text.contentassist.ICompletionProposal;
+import org.eclipse.swt.graphics.Image;
 
 import com.amashchenko.eclipse.strutsclipse.ProjectUtil;
 
 public class JavaClassCompletion {
-	private static final String CLASS_NAME = "_xxx";
+	private static final String CLASS_NAME = WorkingCopyPool.CLASS_NAME;
 	private static final String CLASS_SOURCE_END = "\n" + "    }\n" + "}";
 	private static final String CLASS_SOURCE_START = "public class "
 			+ CLASS_NAME + " {\n" + "    public void main(String[] args) {\n"
 			+ "        ";
+	private static final String OBJECT_CLASS_NAME = "java.lang.Object";
+	// return type signatures of the source and binary methods
+	private static final List<String> STRING_SIGNATURES = Arrays.asList(
+			"QString;", "Qjava.lang.String;", "Ljava.lang.String;");
 
 	private JavaClassCompletion() {
 	}
@@ -46,31 +57,79 @@ public class JavaClassCompletion {
 		final String sourceStart = CLASS_SOURCE_START + prefix;
 		final String source = sourceStart + CLASS_SOURCE_END;
 
-		return createProposals(source, sourceStart.length(), document, region,
-				false);
+		return createProposals(source, sourceStart.length(), document, region);
 	}
 
+	/**
+	 * Gets proposals of the action methods: public parameterless methods
+	 * returning String, declared in the class or in its super classes except
+	 * of {@link Object}.
+	 * 
+	 * @param prefix
+	 *            Method name prefix.
+	 * @param className
+	 *            Action class name.
+	 * @param document
+	 *            Current document.
+	 * @param region
+	 *            Region to replace.
+	 * @return Method proposals.
+	 */
 	public static List<ICompletionProposal> getActionMethodProposals(
 			String prefix, String className, IDocument document, IRegion region) {
-		final String sourceStart = CLASS_SOURCE_START + className + " a;a."
-				+ prefix;
-		final String source = sourceStart + CLASS_SOURCE_END;
+		List<ICompletionProposal> proposals = new ArrayList<ICompletionProposal>();
+		IType clazz = ProjectUtil.findClass(document, className);
+		if (clazz == null) {
+			return proposals;
+		}
+
+		final String lowerCasePrefix = prefix == null ? "" : prefix
+				.toLowerCase(Locale.ROOT);
+		final Image image = JavaUI.getSharedImages().getImage(
+				ISharedImages.IMG_OBJS_PUBLIC);
+		try {
+			for (IMethod method : TypeMethodsCache.getParameterlessMethods(
+					clazz).values()) {
+				final String name = method.getElementName();
+				if (name.toLowerCase(Locale.ROOT).startsWith(lowerCasePrefix)
+						&& isActionMethod(method)) {
+					proposals.add(new CompletionProposal(name, region
+							.getOffset(), region.getLength(), name.length(),
+							image, name + "() : String - "
+									+ method.getDeclaringType().getElementName(),
+							null, null));
+				}
+			}
+		} catch (JavaModelException e) {
+			e.printStackTrace();
+		}
+		return proposals;
+	}
 
-		return createProposals(source, sourceStart.length(), document, region,
-				true);
+	private static boolean isActionMethod(final IMethod method)
+			throws JavaModelException {
+		return Flags.isPublic(method.getFlags())
+				&& STRING_SIGNATURES.contains(method.getReturnType())
+				&& !OBJECT_CLASS_NAME.equals(method.getDeclaringType()
+						.getFullyQualifiedName());
 	}
 
 	private static List<ICompletionProposal> createProposals(String source,
-			int completionOffset, IDocument document, IRegion region,
-			boolean collectMethods) {
+			int completionOffset, IDocument document, IRegion region) {
 		List<ICompletionProposal> proposals = new ArrayList<ICompletionProposal>();
+		IJavaProject javaProject = ProjectUtil.getCurrentJavaProject(document);
+		if (javaProject == null) {
+			return proposals;
+		}
+
+		ICompilationUnit unit = null;
 		try {
-			ICompilationUnit unit = createSourceCompilationUnit(document);
+			unit = WorkingCopyPool.acquire(javaProject);
 			if (unit != null) {
 				setCompilationUnitContents(unit, source);
 
 				SimpleJavaProposalCollector collector = new SimpleJavaProposalCollector(
-						unit, collectMethods);
+						unit);
 				unit.codeComplete(completionOffset, collector);
 
 				IJavaCompletionProposal[] props = collector
@@ -98,27 +157,13 @@ public class JavaClassCompletion {
 			}
 		} catch (JavaModelException e) {
 			e.printStackTrace();
+		} finally {
+			WorkingCopyPool.release(javaProject, unit);
 		}
 
 		return proposals;
 	}
 
-	private static ICompilationUnit createSourceCompilationUnit(
-			IDocument document) throws JavaModelException {
-		ICompilationUnit unit = null;
-
-		IJavaProject javaProject = ProjectUtil.getCurrentJavaProject(document);
-		if (javaProject != null) {
-			IPackageFragment packageFragment = javaProject
-					.getPackageFragments()[0];
-			if (packageFragment != null) {
-				unit = packageFragment.getCompilationUnit(CLASS_NAME + ".java")
-						.getWorkingCopy(null);
-			}
-		}
-		return unit;
-	}
-
 	private static void setCompilationUnitContents(ICompilationUnit cu,
 			String source) {
 		if (cu == null) {
@@ -0,0 +1,188 @@
+/*
+ * Copyright 2015-2018 Aleksandr Mashchenko.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.amashchenko.eclipse.strutsclipse.java;
+
+import java.util.Arrays;
+
+import org.eclipse.jdt.core.ElementChangedEvent;
+import org.eclipse.jdt.core.ICompilationUnit;
+import org.eclipse.jdt.core.IElementChangedListener;
+import org.eclipse.jdt.core.IJavaElement;
+import org.eclipse.jdt.core.IJavaElementDelta;
+import org.eclipse.jdt.core.IJavaProject;
+import org.eclipse.jdt.core.IType;
+import org.eclipse.jdt.core.JavaModelException;
+
+/**
+ * Listener of the java element deltas for the caches of the java model
+ * data. Reports changes of the project classpath, which can affect any data
+ * cached for the project and the projects depending on it, and changes of
+ * the compilation units, class files and packages.
+ */
+public abstract class JavaElementChangeListener implements
+		IElementChangedListener {
+	private static final int CLASSPATH_FLAGS = IJavaElementDelta.F_CLASSPATH_CHANGED
+			| IJavaElementDelta.F_RESOLVED_CLASSPATH_CHANGED
+			| IJavaElementDelta.F_OPENED | IJavaElementDelta.F_CLOSED;
+	private static final int ROOT_FLAGS = IJavaElementDelta.F_ADDED_TO_CLASSPATH
+			| IJavaElementDelta.F_REMOVED_FROM_CLASSPATH
+			| IJavaElementDelta.F_ARCHIVE_CONTENT_CHANGED
+			| IJavaElementDelta.F_REORDER;
+
+	/**
+	 * Called when classpath of the project has changed, or project is added,
+	 * removed, opened or closed.
+	 * 
+	 * @param project
+	 *            Changed project.
+	 */
+	protected abstract void classpathChanged(IJavaProject project);
+
+	/**
+	 * Called when java source is changed.
+	 * 
+	 * @param element
+	 *            Primary compilation unit, class file or added or removed
+	 *            package fragment.
+	 */
+	protected abstract void sourceChanged(IJavaElement element);
+
+	@Override
+	public void elementChanged(ElementChangedEvent event) {
+		if (event.getDelta() != null) {
+			visit(event.getDelta());
+		}
+	}
+
+	/**
+	 * Gets element which declares the type.
+	 * 
+	 * @param type
+	 *            Type.
+	 * @return Primary compilation unit or class file of the type.
+	 */
+	static IJavaElement getSource(final IType type) {
+		IJavaElement source;
+		if (type.isBinary()) {
+			source = type.getClassFile();
+		} else {
+			source = getPrimary(type.getCompilationUnit());
+		}
+		return source;
+	}
+
+	/**
+	 * Checks if the element is or contains the source.
+	 * 
+	 * @param element
+	 *            Changed element.
+	 * @param source
+	 *            Source of the type.
+	 * @return <code>true</code> if source is affected by the change.
+	 */
+	static boolean isAffected(final IJavaElement element,
+			final IJavaElement source) {
+		return source != null
+				&& (element.equals(source) || element.equals(source
+						.getAncestor(element.getElementType())));
+	}
+
+	/**
+	 * Checks if the project is the changed project or requires it.
+	 * 
+	 * @param project
+	 *            Project of the cached data.
+	 * @param changed
+	 *            Project which classpath has changed.
+	 * @return <code>true</code> if data of the project can be affected.
+	 */
+	protected static boolean dependsOn(final IJavaProject project,
+			final IJavaProject changed) {
+		if (project.equals(changed)) {
+			return true;
+		}
+		if (!project.exists()) {
+			return false;
+		}
+		try {
+			return Arrays.asList(project.getRequiredProjectNames()).contains(
+					changed.getElementName());
+		} catch (JavaModelException e) {
+			e.printStackTrace();
+			return true;
+		}
+	}
+
+	private static IJavaElement getPrimary(final IJavaElement element) {
+		if (element instanceof ICompilationUnit) {
+			return ((ICompilationUnit) element).getPrimary();
+		}
+		return element;
+	}
+
+	private void visit(final IJavaElementDelta delta) {
+		final IJavaElement element = delta.getElement();
+		final int kind = delta.getKind();
+		final int flags = delta.getFlags();
+
+		switch (element.getElementType()) {
+		case IJavaElement.JAVA_MODEL:
+			visitChildren(delta);
+			break;
+		case IJavaElement.JAVA_PROJECT:
+			// projects can depend on each other
+			if (kind != IJavaElementDelta.CHANGED
+					|| (flags & CLASSPATH_FLAGS) != 0) {
+				classpathChanged((IJavaProject) element);
+			} else {
+				visitChildren(delta);
+			}
+			break;
+		case IJavaElement.PACKAGE_FRAGMENT_ROOT:
+			if (kind != IJavaElementDelta.CHANGED || (flags & ROOT_FLAGS) != 0) {
+				classpathChanged(element.getJavaProject());
+			} else {
+				visitChildren(delta);
+			}
+			break;
+		case IJavaElement.PACKAGE_FRAGMENT:
+			if (kind != IJavaElementDelta.CHANGED) {
+				sourceChanged(element);
+			} else {
+				visitChildren(delta);
+			}
+			break;
+		case IJavaElement.COMPILATION_UNIT:
+		case IJavaElement.CLASS_FILE:
+			sourceChanged(getPrimary(element));
+			break;
+		default:
+			// member changes inside of the compilation unit
+			IJavaElement cu = element
+					.getAncestor(IJavaElement.COMPILATION_UNIT);
+			if (cu != null) {
+				sourceChanged(getPrimary(cu));
+			}
+			break;
+		}
+	}
+
+	private void visitChildren(final IJavaElementDelta delta) {
+		for (IJavaElementDelta child : delta.getAffectedChildren()) {
+			visit(child);
+		}
+	}
+}
@@ -0,0 +1,184 @@
+/*
+ * Copyright 2015-2018 Aleksandr Mashchenko.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.amashchenko.eclipse.strutsclipse.java;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.eclipse.jdt.core.IElementChangedListener;
+import org.eclipse.jdt.core.IJavaElement;
+import org.eclipse.jdt.core.IJavaProject;
+import org.eclipse.jdt.core.IMethod;
+import org.eclipse.jdt.core.IType;
+import org.eclipse.jdt.core.JavaModelException;
+
+/**
+ * Cache of the parameterless methods of the types, including methods
+ * inherited from the super classes, so the supertype hierarchy of the type
+ * is built only once. Cache is kept per project and updated from the java
+ * element deltas: types which class or one of the super classes is changed
+ * are dropped, changes of the classpath drop the cache of the project and
+ * of the projects depending on it. Table built while the types were changed
+ * is not kept.
+ */
+public class TypeMethodsCache {
+	private static final ConcurrentMap<IJavaProject, ProjectTables> PROJECTS = new ConcurrentHashMap<IJavaProject, ProjectTables>();
+
+	private static final IElementChangedListener ELEMENT_LISTENER = new ElementChangedListener();
+
+	private TypeMethodsCache() {
+	}
+
+	/**
+	 * Gets parameterless methods declared in the type or in its super
+	 * classes. Method declared in the subclass hides methods with the same
+	 * name from the super classes.
+	 * 
+	 * @param type
+	 *            Type.
+	 * @return Unmodifiable map of methods by name.
+	 * @throws JavaModelException
+	 *             If type or its hierarchy can't be read.
+	 */
+	public static Map<String, IMethod> getParameterlessMethods(final IType type)
+			throws JavaModelException {
+		final IJavaProject project = type.getJavaProject();
+		ProjectTables projectTables = PROJECTS.get(project);
+		if (projectTables == null) {
+			projectTables = new ProjectTables();
+			ProjectTables existing = PROJECTS.putIfAbsent(project,
+					projectTables);
+			if (existing != null) {
+				projectTables = existing;
+			}
+		}
+
+		MethodTable table = projectTables.tables.get(type);
+		if (table == null) {
+			final long generation = projectTables.generation.get();
+			table = new MethodTable(type);
+			MethodTable existing = projectTables.tables.putIfAbsent(type,
+					table);
+			if (existing != null) {
+				table = existing;
+			} else if (generation != projectTables.generation.get()) {
+				// types were changed while building, invalidation could have
+				// missed the table
+				projectTables.tables.remove(type, table);
+			}
+		}
+		return table.methods;
+	}
+
+	public static IElementChangedListener getElementChangedListener() {
+		return ELEMENT_LISTENER;
+	}
+
+	public static void clear() {
+		PROJECTS.clear();
+	}
+
+	// drops types which are declared in the changed element, super classes
+	// can be declared in the other projects
+	private static void invalidate(final IJavaElement element) {
+		for (ProjectTables projectTables : PROJECTS.values()) {
+			projectTables.generation.incrementAndGet();
+			for (Map.Entry<IType, MethodTable> e : projectTables.tables
+					.entrySet()) {
+				if (e.getValue().isDeclaredIn(element)) {
+					projectTables.tables.remove(e.getKey(), e.getValue());
+				}
+			}
+		}
+	}
+
+	private static class ProjectTables {
+		private final ConcurrentMap<IType, MethodTable> tables = new ConcurrentHashMap<IType, MethodTable>();
+		// incremented before the tables are invalidated
+		private final AtomicLong generation = new AtomicLong();
+	}
+
+	private static class MethodTable {
+		private final Map<String, IMethod> methods;
+		// compilation units and class files of the type and super classes
+		private final List<IJavaElement> sources;
+
+		private MethodTable(IType type) throws JavaModelException {
+			Map<String, IMethod> methodsMap = new LinkedHashMap<String, IMethod>();
+			sources = new ArrayList<IJavaElement>();
+
+			addMethods(type, methodsMap);
+			IType[] superClasses = type.newSupertypeHierarchy(null)
+					.getAllSuperclasses(type);
+			for (IType superType : superClasses) {
+				addMethods(superType, methodsMap);
+			}
+
+			methods = Collections.unmodifiableMap(methodsMap);
+		}
+
+		private void addMethods(final IType type,
+				final Map<String, IMethod> methodsMap)
+				throws JavaModelException {
+			IJavaElement source = JavaElementChangeListener.getSource(type);
+			if (source != null) {
+				sources.add(source);
+			}
+			for (IMethod method : type.getMethods()) {
+				if (method.getNumberOfParameters() == 0
+						&& !method.isConstructor()
+						&& !methodsMap.containsKey(method.getElementName())) {
+					methodsMap.put(method.getElementName(), method);
+				}
+			}
+		}
+
+		private boolean isDeclaredIn(final IJavaElement element) {
+			for (IJavaElement source : sources) {
+				if (JavaElementChangeListener.isAffected(element, source)) {
+					return true;
+				}
+			}
+			return false;
+		}
+	}
+
+	private static class ElementChangedListener extends
+			JavaElementChangeListener {
+		@Override
+		protected void classpathChanged(IJavaProject project) {
+			for (IJavaProject p : PROJECTS.keySet()) {
+				if (dependsOn(p, project)) {
+					ProjectTables projectTables = PROJECTS.remove(p);
+					if (projectTables != null) {
+						projectTables.generation.incrementAndGet();
+					}
+				}
+			}
+		}
+
+		@Override
+		protected void sourceChanged(IJavaElement element) {
+			invalidate(element);
+		}
+	}
+}
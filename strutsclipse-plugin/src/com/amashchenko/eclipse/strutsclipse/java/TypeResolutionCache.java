@@ -0,0 +1,179 @@
+/*
+ * Copyright 2015-2018 Aleksandr Mashchenko.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.amashchenko.eclipse.strutsclipse.java;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.eclipse.jdt.core.IElementChangedListener;
+import org.eclipse.jdt.core.IJavaElement;
+import org.eclipse.jdt.core.IJavaProject;
+import org.eclipse.jdt.core.IType;
+import org.eclipse.jdt.core.JavaModelException;
+
+/**
+ * Cache of the types found by the fully qualified names in the projects.
+ * Types which are not found are cached too. Cache is updated from the java
+ * element deltas: changed sources drop types declared in them and all not
+ * found types, changes of the classpath drop the cache of the project and of
+ * the projects depending on it. Type found while the sources were changed is
+ * not kept.
+ */
+public class TypeResolutionCache {
+	private static final ConcurrentMap<IJavaProject, ProjectTypes> PROJECTS = new ConcurrentHashMap<IJavaProject, ProjectTypes>();
+
+	private static final AtomicLong HITS = new AtomicLong();
+	private static final AtomicLong MISSES = new AtomicLong();
+
+	private static final IElementChangedListener ELEMENT_LISTENER = new ElementChangedListener();
+
+	private TypeResolutionCache() {
+	}
+
+	/**
+	 * Finds type in the project.
+	 * 
+	 * @param javaProject
+	 *            Project.
+	 * @param fullyQualifiedName
+	 *            Fully qualified name of the type.
+	 * @return Found type or <code>null</code>.
+	 * @throws JavaModelException
+	 *             If type can't be searched.
+	 */
+	public static IType findType(final IJavaProject javaProject,
+			final String fullyQualifiedName) throws JavaModelException {
+		ProjectTypes projectTypes = PROJECTS.get(javaProject);
+		if (projectTypes == null) {
+			projectTypes = new ProjectTypes();
+			ProjectTypes existing = PROJECTS.putIfAbsent(javaProject,
+					projectTypes);
+			if (existing != null) {
+				projectTypes = existing;
+			}
+		}
+
+		Resolution resolution = projectTypes.types.get(fullyQualifiedName);
+		if (resolution == null) {
+			MISSES.incrementAndGet();
+			final long generation = projectTypes.generation.get();
+			resolution = new Resolution(
+					javaProject.findType(fullyQualifiedName));
+			// sources were changed while searching, invalidation could have
+			// missed the type
+			if (generation == projectTypes.generation.get()) {
+				projectTypes.types.put(fullyQualifiedName, resolution);
+				if (generation != projectTypes.generation.get()) {
+					projectTypes.types.remove(fullyQualifiedName, resolution);
+				}
+			}
+		} else {
+			HITS.incrementAndGet();
+		}
+		return resolution.type;
+	}
+
+	public static IElementChangedListener getElementChangedListener() {
+		return ELEMENT_LISTENER;
+	}
+
+	public static void clear() {
+		PROJECTS.clear();
+		HITS.set(0);
+		MISSES.set(0);
+	}
+
+	public static long getHitCount() {
+		return HITS.get();
+	}
+
+	public static long getMissCount() {
+		return MISSES.get();
+	}
+
+	/**
+	 * @return Ratio of the requests served from the cache or 0 if there
+	 *         were no requests.
+	 */
+	public static double getHitRate() {
+		final long hits = HITS.get();
+		final long total = hits + MISSES.get();
+		return total == 0 ? 0 : (double) hits / total;
+	}
+
+	public static int size() {
+		int size = 0;
+		for (ProjectTypes projectTypes : PROJECTS.values()) {
+			size += projectTypes.types.size();
+		}
+		return size;
+	}
+
+	// drops types declared in the changed element and not found types,
+	// changed element could declare them now
+	private static void invalidate(final IJavaElement element) {
+		for (ProjectTypes projectTypes : PROJECTS.values()) {
+			projectTypes.generation.incrementAndGet();
+			for (Map.Entry<String, Resolution> e : projectTypes.types
+					.entrySet()) {
+				if (e.getValue().type == null
+						|| JavaElementChangeListener.isAffected(element,
+								e.getValue().source)) {
+					projectTypes.types.remove(e.getKey(), e.getValue());
+				}
+			}
+		}
+	}
+
+	private static class ProjectTypes {
+		private final ConcurrentMap<String, Resolution> types = new ConcurrentHashMap<String, Resolution>();
+		// incremented before the types are invalidated
+		private final AtomicLong generation = new AtomicLong();
+	}
+
+	private static class Resolution {
+		private final IType type;
+		private final IJavaElement source;
+
+		private Resolution(IType type) {
+			this.type = type;
+			this.source = type == null ? null : JavaElementChangeListener
+					.getSource(type);
+		}
+	}
+
+	private static class ElementChangedListener extends
+			JavaElementChangeListener {
+		@Override
+		protected void classpathChanged(IJavaProject project) {
+			for (IJavaProject p : PROJECTS.keySet()) {
+				if (dependsOn(p, project)) {
+					ProjectTypes projectTypes = PROJECTS.remove(p);
+					if (projectTypes != null) {
+						projectTypes.generation.incrementAndGet();
+					}
+				}
+			}
+		}
+
+		@Override
+		protected void sourceChanged(IJavaElement element) {
+			invalidate(element);
+		}
+	}
+}
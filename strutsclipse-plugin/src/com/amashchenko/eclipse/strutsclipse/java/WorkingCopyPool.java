@@ -0,0 +1,240 @@
+/*
+ * Copyright 2015-2018 Aleksandr Mashchenko.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.amashchenko.eclipse.strutsclipse.java;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+
+import org.eclipse.core.runtime.IProgressMonitor;
+import org.eclipse.core.runtime.IStatus;
+import org.eclipse.core.runtime.Status;
+import org.eclipse.core.runtime.jobs.Job;
+import org.eclipse.jdt.core.ElementChangedEvent;
+import org.eclipse.jdt.core.ICompilationUnit;
+import org.eclipse.jdt.core.IElementChangedListener;
+import org.eclipse.jdt.core.IJavaElement;
+import org.eclipse.jdt.core.IJavaElementDelta;
+import org.eclipse.jdt.core.IJavaProject;
+import org.eclipse.jdt.core.IPackageFragment;
+import org.eclipse.jdt.core.JavaModelException;
+
+/**
+ * Pool of the working copies of the scratch compilation unit used for the
+ * code completion. At most {@link #MAX_SIZE} working copies are kept per
+ * project and reused between the requests. Working copies are discarded
+ * when they are not used for {@link #IDLE_TIMEOUT} and when the project is
+ * closed or removed.
+ */
+public class WorkingCopyPool {
+	public static final String CLASS_NAME = "_xxx";
+
+	private static final String UNIT_NAME = CLASS_NAME + ".java";
+	private static final int MAX_SIZE = 2;
+	private static final long IDLE_TIMEOUT = 5 * 60 * 1000;
+
+	// project -> idle working copies, most recently used first
+	private static final Map<IJavaProject, Deque<PooledWorkingCopy>> POOLS = new HashMap<IJavaProject, Deque<PooledWorkingCopy>>();
+
+	private static final Job EVICTION_JOB = new EvictionJob();
+
+	private static final IElementChangedListener ELEMENT_LISTENER = new ElementChangedListener();
+
+	private WorkingCopyPool() {
+	}
+
+	/**
+	 * Gets working copy of the scratch compilation unit in the project. It
+	 * must be returned to the pool with the
+	 * {@link #release(IJavaProject, ICompilationUnit)}.
+	 * 
+	 * @param javaProject
+	 *            Project.
+	 * @return Working copy or <code>null</code> if project has no packages.
+	 * @throws JavaModelException
+	 *             If working copy can't be created.
+	 */
+	public static ICompilationUnit acquire(final IJavaProject javaProject)
+			throws JavaModelException {
+		synchronized (POOLS) {
+			Deque<PooledWorkingCopy> pool = POOLS.get(javaProject);
+			if (pool != null && !pool.isEmpty()) {
+				return pool.pop().unit;
+			}
+		}
+
+		ICompilationUnit unit = null;
+		IPackageFragment[] fragments = javaProject.getPackageFragments();
+		if (fragments.length > 0 && fragments[0] != null) {
+			unit = fragments[0].getCompilationUnit(UNIT_NAME).getWorkingCopy(
+					null);
+		}
+		return unit;
+	}
+
+	/**
+	 * Returns working copy to the pool. Working copy is discarded if the pool
+	 * is full.
+	 * 
+	 * @param javaProject
+	 *            Project.
+	 * @param unit
+	 *            Working copy got from the {@link #acquire(IJavaProject)}.
+	 */
+	public static void release(final IJavaProject javaProject,
+			final ICompilationUnit unit) {
+		if (unit == null) {
+			return;
+		}
+		boolean pooled = false;
+		synchronized (POOLS) {
+			Deque<PooledWorkingCopy> pool = POOLS.get(javaProject);
+			if (pool == null) {
+				pool = new ArrayDeque<PooledWorkingCopy>();
+				POOLS.put(javaProject, pool);
+			}
+			if (pool.size() < MAX_SIZE) {
+				pool.push(new PooledWorkingCopy(unit));
+				pooled = true;
+			}
+		}
+
+		if (pooled) {
+			EVICTION_JOB.schedule(IDLE_TIMEOUT);
+		} else {
+			discard(unit);
+		}
+	}
+
+	/**
+	 * Discards pooled working copies of the project.
+	 * 
+	 * @param javaProject
+	 *            Project.
+	 */
+	public static void dispose(final IJavaProject javaProject) {
+		Deque<PooledWorkingCopy> pool;
+		synchronized (POOLS) {
+			pool = POOLS.remove(javaProject);
+		}
+		if (pool != null) {
+			for (PooledWorkingCopy copy : pool) {
+				discard(copy.unit);
+			}
+		}
+	}
+
+	public static void disposeAll() {
+		EVICTION_JOB.cancel();
+		List<PooledWorkingCopy> copies = new ArrayList<PooledWorkingCopy>();
+		synchronized (POOLS) {
+			for (Deque<PooledWorkingCopy> pool : POOLS.values()) {
+				copies.addAll(pool);
+			}
+			POOLS.clear();
+		}
+		for (PooledWorkingCopy copy : copies) {
+			discard(copy.unit);
+		}
+	}
+
+	public static IElementChangedListener getElementChangedListener() {
+		return ELEMENT_LISTENER;
+	}
+
+	// discards working copies not used for the idle timeout
+	private static void evictIdle() {
+		final long now = System.currentTimeMillis();
+		List<PooledWorkingCopy> evicted = new ArrayList<PooledWorkingCopy>();
+		boolean hasIdle = false;
+		synchronized (POOLS) {
+			Iterator<Deque<PooledWorkingCopy>> pools = POOLS.values()
+					.iterator();
+			while (pools.hasNext()) {
+				Deque<PooledWorkingCopy> pool = pools.next();
+				// least recently used are in the end
+				while (!pool.isEmpty()
+						&& now - pool.peekLast().released >= IDLE_TIMEOUT) {
+					evicted.add(pool.removeLast());
+				}
+				if (pool.isEmpty()) {
+					pools.remove();
+				} else {
+					hasIdle = true;
+				}
+			}
+		}
+		for (PooledWorkingCopy copy : evicted) {
+			discard(copy.unit);
+		}
+		if (hasIdle) {
+			EVICTION_JOB.schedule(IDLE_TIMEOUT);
+		}
+	}
+
+	private static void discard(final ICompilationUnit unit) {
+		try {
+			unit.discardWorkingCopy();
+		} catch (JavaModelException e) {
+			e.printStackTrace();
+		}
+	}
+
+	private static class PooledWorkingCopy {
+		private final ICompilationUnit unit;
+		private final long released;
+
+		private PooledWorkingCopy(ICompilationUnit unit) {
+			this.unit = unit;
+			this.released = System.currentTimeMillis();
+		}
+	}
+
+	private static class EvictionJob extends Job {
+		private EvictionJob() {
+			super("Discard idle working copies");
+			setSystem(true);
+		}
+
+		@Override
+		protected IStatus run(IProgressMonitor monitor) {
+			evictIdle();
+			return Status.OK_STATUS;
+		}
+	}
+
+	private static class ElementChangedListener implements
+			IElementChangedListener {
+		@Override
+		public void elementChanged(ElementChangedEvent event) {
+			if (event.getDelta() != null) {
+				for (IJavaElementDelta delta : event.getDelta()
+						.getAffectedChildren()) {
+					IJavaElement element = delta.getElement();
+					if (element.getElementType() == IJavaElement.JAVA_PROJECT
+							&& (delta.getKind() == IJavaElementDelta.REMOVED || (delta
+									.getFlags() & IJavaElementDelta.F_CLOSED) != 0)) {
+						dispose((IJavaProject) element);
+					}
+				}
+			}
+		}
+	}
+}
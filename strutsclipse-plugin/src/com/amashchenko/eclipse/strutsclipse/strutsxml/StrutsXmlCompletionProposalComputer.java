@@ -19,6 +19,7 @@ import java.util.ArrayList;
 import java.util.Collections;
 import java.util.HashSet;
 import java.util.List;
+import java.util.Map.Entry;
 import java.util.Set;
 
 import org.eclipse.core.resources.IProject;
@@ -51,8 +52,8 @@ public class StrutsXmlCompletionProposalComputer implements
 	private final ActionMethodProposalComparator methodProposalComparator;
 
 	public StrutsXmlCompletionProposalComputer() {
-		strutsXmlParser = new StrutsXmlParser();
-		tilesXmlParser = new TilesXmlParser();
+		strutsXmlParser = StrutsXmlParser.getDefault();
+		tilesXmlParser = TilesXmlParser.getDefault();
 		proposalComparator = new CompletionProposalComparator();
 		proposalComparator.setOrderAlphabetically(true);
 		methodProposalComparator = new ActionMethodProposalComparator();
@@ -235,20 +236,18 @@ public class StrutsXmlCompletionProposalComputer implements
 
 		// other struts files
 		IPath currentPath = ProjectUtil.getCurrentDocumentPath(document);
-		List<ResourceDocument> resources = ProjectUtil
-				.findStrutsResources(document);
-		for (ResourceDocument rd : resources) {
-			if (!rd.getResource().getFullPath().equals(currentPath)) {
-				packageNames.addAll(strutsXmlParser.getPackageNames(rd
-						.getDocument()));
+		for (StrutsXmlFile file : StrutsXmlIndex.getFiles(document)) {
+			if (!file.getFile().getFullPath().equals(currentPath)) {
+				packageNames.addAll(file.getData().getPackageNames());
 			}
 		}
 
 		List<JarEntryStorage> jarStorages = ProjectUtil
 				.findJarEntryStrutsResources(document);
 		for (JarEntryStorage jarStorage : jarStorages) {
-			packageNames.addAll(strutsXmlParser.getPackageNames(jarStorage
-					.toDocument()));
+			for (PackageData pd : StrutsXmlJarCache.getPackages(jarStorage)) {
+				packageNames.add(pd.getName());
+			}
 		}
 
 		// remove current package name
@@ -303,14 +302,9 @@ public class StrutsXmlCompletionProposalComputer implements
 		IPath currentPath = ProjectUtil.getCurrentDocumentPath(currentDocument);
 
 		Set<String> paths = new HashSet<String>();
-		List<ResourceDocument> resources = ProjectUtil
-				.findStrutsResources(currentDocument);
-
-		if (resources != null) {
-			for (ResourceDocument r : resources) {
-				if (!r.getResource().getFullPath().equals(currentPath)) {
-					paths.add(r.getRelativePath());
-				}
+		for (StrutsXmlFile file : StrutsXmlIndex.getFiles(currentDocument)) {
+			if (!file.getFile().getFullPath().equals(currentPath)) {
+				paths.add(file.getRelativePath());
 			}
 		}
 
@@ -352,43 +346,19 @@ public class StrutsXmlCompletionProposalComputer implements
 		TagRegion packageTagRegion = strutsXmlParser.getParentTagRegion(
 				document, offset, StrutsXmlConstants.PACKAGE_TAG);
 		if (packageTagRegion != null) {
-			List<PackageData> packages = strutsXmlParser
-					.getAllStrutsPackagesData(document, false);
-
-			collectInterceptorsNames(packages, packageTagRegion.getAttrValue(
-					StrutsXmlConstants.NAME_ATTR, ""),
-					new ArrayList<PackageData>(), results);
+			for (Entry<String, String> entr : StrutsXmlIndex
+					.getPackageGraph(document)
+					.getInterceptors(
+							packageTagRegion.getAttrValue(
+									StrutsXmlConstants.NAME_ATTR, ""))
+					.entrySet()) {
+				results.add(new String[] { entr.getKey(), entr.getValue() });
+			}
 		}
 
 		return CompletionProposalHelper.proposalDataFromList(results);
 	}
 
-	private void collectInterceptorsNames(List<PackageData> packages,
-			String packageName, List<PackageData> scaned, List<String[]> results) {
-		for (PackageData pd : packages) {
-			if (packageName.equals(pd.getName()) && !scaned.contains(pd)) {
-				if (pd.getTagRegions() != null) {
-					for (TagRegion tr : pd.getTagRegions()) {
-						String val = tr.getAttrValue(
-								StrutsXmlConstants.NAME_ATTR, null);
-						if (val != null) {
-							results.add(new String[] {
-									val,
-									tr.getName() + " from " + packageName
-											+ " package" });
-						}
-					}
-				}
-
-				scaned.add(pd);
-
-				for (String ext : pd.getExtending()) {
-					collectInterceptorsNames(packages, ext, scaned, results);
-				}
-			}
-		}
-	}
-
 	@Override
 	public List<IContextInformation> computeContextInformation(
 			CompletionProposalInvocationContext context,
@@ -0,0 +1,190 @@
+/*
+ * Copyright 2015-2018 Aleksandr Mashchenko.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.amashchenko.eclipse.strutsclipse.strutsxml;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import org.eclipse.core.filebuffers.FileBuffers;
+import org.eclipse.core.filebuffers.ITextFileBuffer;
+import org.eclipse.core.filebuffers.LocationKind;
+import org.eclipse.core.resources.IFile;
+import org.eclipse.core.resources.IResource;
+import org.eclipse.jface.text.Document;
+import org.eclipse.jface.text.IDocument;
+
+import com.amashchenko.eclipse.strutsclipse.ProjectUtil;
+import com.amashchenko.eclipse.strutsclipse.ResourceDocument;
+import com.amashchenko.eclipse.strutsclipse.xmlparser.PackageData;
+import com.amashchenko.eclipse.strutsclipse.xmlparser.XmlModel;
+import com.amashchenko.eclipse.strutsclipse.xmlparser.XmlModelCache;
+
+/**
+ * Struts xml file of the {@link StrutsXmlIndex}. Document is read on demand
+ * and kept until the file is changed, file data is parsed again only if the
+ * document has changed. Data restored from the {@link StrutsXmlIndexStore}
+ * is used without reading the document while the file is not changed.
+ */
+public class StrutsXmlFile {
+	private final IFile file;
+	private final String relativePath;
+
+	private IDocument document;
+	private long documentStamp = IResource.NULL_STAMP;
+	private XmlModel dataModel;
+	private StrutsXmlFileData data;
+	// file modification stamp of the data, if parsed from the saved file
+	private long dataStamp = IResource.NULL_STAMP;
+	// packages of the data for the package graph
+	private StrutsXmlFileData packagesData;
+	private List<StrutsXmlPackage> packages;
+
+	StrutsXmlFile(IFile file, String relativePath) {
+		this.file = file;
+		this.relativePath = relativePath;
+	}
+
+	public IFile getFile() {
+		return file;
+	}
+
+	/**
+	 * @return Path relative to the struts resources folder.
+	 */
+	public String getRelativePath() {
+		return relativePath;
+	}
+
+	/**
+	 * Gets document of the file. If file is open its file buffer document
+	 * with not saved changes is returned.
+	 * 
+	 * @return File document or <code>null</code> if file can't be read.
+	 */
+	public IDocument getDocument() {
+		ITextFileBuffer buffer = FileBuffers.getTextFileBufferManager()
+				.getTextFileBuffer(file.getFullPath(), LocationKind.IFILE);
+		if (buffer != null) {
+			return buffer.getDocument();
+		}
+		synchronized (this) {
+			if (document != null) {
+				return document;
+			}
+		}
+		// read w/o the lock, so readers of the data do not wait for it
+		final long stamp = file.getModificationStamp();
+		IDocument loaded = ProjectUtil.loadDocument(file);
+		synchronized (this) {
+			if (document == null) {
+				documentStamp = stamp;
+				document = loaded;
+			}
+			return document;
+		}
+	}
+
+	/**
+	 * Gets data of the file. Document is parsed w/o holding the lock of the
+	 * file, so requests do not wait for the indexing job parsing the same
+	 * file. Data of the latest document version is kept.
+	 * 
+	 * @return Parsed data.
+	 */
+	public StrutsXmlFileData getData() {
+		final boolean open = isOpen();
+		synchronized (this) {
+			// restored data
+			if (data != null && dataModel == null && !open
+					&& dataStamp == file.getModificationStamp()) {
+				return data;
+			}
+		}
+
+		IDocument doc = getDocument();
+		if (doc == null) {
+			doc = new Document();
+		}
+		XmlModel model = XmlModelCache.getModel(doc);
+		synchronized (this) {
+			if (data != null && model == dataModel) {
+				return data;
+			}
+		}
+
+		StrutsXmlFileData parsed = StrutsXmlIndex.getParser().getFileData(doc);
+		synchronized (this) {
+			if (data != null && model == dataModel) {
+				return data;
+			}
+			// do not replace data of the newer document version
+			if (dataModel == null || XmlModelCache.getModel(doc) == model) {
+				data = parsed;
+				dataModel = model;
+				dataStamp = open ? IResource.NULL_STAMP : documentStamp;
+			}
+			return parsed;
+		}
+	}
+
+	/**
+	 * Gets packages of the file data. Packages are created once per data
+	 * version, so the package graph keeps closures of the not changed files.
+	 * 
+	 * @return Packages in the document order.
+	 */
+	List<StrutsXmlPackage> getPackages() {
+		final StrutsXmlFileData current = getData();
+		synchronized (this) {
+			if (packagesData != current) {
+				List<StrutsXmlPackage> list = new ArrayList<StrutsXmlPackage>();
+				for (PackageData pd : current.getPackages()) {
+					list.add(new StrutsXmlPackage(pd, file));
+				}
+				packages = Collections.unmodifiableList(list);
+				packagesData = current;
+			}
+			return packages;
+		}
+	}
+
+	synchronized void restore(final long stamp, final StrutsXmlFileData data) {
+		this.data = data;
+		this.dataStamp = stamp;
+		this.dataModel = null;
+	}
+
+	/**
+	 * @return Data parsed from the saved file or <code>null</code>.
+	 */
+	synchronized StrutsXmlIndexStore.Entry getSavedData() {
+		if (data == null || dataStamp == IResource.NULL_STAMP
+				|| dataStamp != file.getModificationStamp()) {
+			return null;
+		}
+		return new StrutsXmlIndexStore.Entry(dataStamp, data);
+	}
+
+	private boolean isOpen() {
+		return FileBuffers.getTextFileBufferManager().getTextFileBuffer(
+				file.getFullPath(), LocationKind.IFILE) != null;
+	}
+
+	public ResourceDocument toResourceDocument() {
+		return new ResourceDocument(file, getDocument(), relativePath);
+	}
+}
@@ -0,0 +1,125 @@
+/*
+ * Copyright 2015-2018 Aleksandr Mashchenko.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.amashchenko.eclipse.strutsclipse.strutsxml;
+
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import com.amashchenko.eclipse.strutsclipse.xmlparser.PackageData;
+
+/**
+ * Summary of the struts xml file: names declared in the file w/o document
+ * regions. Created by
+ * {@link StrutsXmlParser#getFileData(org.eclipse.jface.text.IDocument)}.
+ */
+public class StrutsXmlFileData {
+	private final Set<String> packageNames;
+	private final Set<String> packageNamespaces;
+	private final Set<String> actionNames;
+	private final Map<String, Set<String>> namespacedActionNames;
+	private final Set<String> interceptorNames;
+	private final Set<String> resultTypeNames;
+	private final Map<String, String> constants;
+	private final Set<String> includedFiles;
+	private final List<PackageData> packages;
+
+	public StrutsXmlFileData(Set<String> packageNames,
+			Set<String> packageNamespaces, Set<String> actionNames,
+			Map<String, Set<String>> namespacedActionNames,
+			Set<String> interceptorNames, Set<String> resultTypeNames,
+			Map<String, String> constants, Set<String> includedFiles,
+			List<PackageData> packages) {
+		this.packageNames = Collections.unmodifiableSet(packageNames);
+		this.packageNamespaces = Collections.unmodifiableSet(packageNamespaces);
+		this.actionNames = Collections.unmodifiableSet(actionNames);
+		this.namespacedActionNames = Collections
+				.unmodifiableMap(namespacedActionNames);
+		this.interceptorNames = Collections.unmodifiableSet(interceptorNames);
+		this.resultTypeNames = Collections.unmodifiableSet(resultTypeNames);
+		this.constants = Collections.unmodifiableMap(constants);
+		this.includedFiles = Collections.unmodifiableSet(includedFiles);
+		this.packages = Collections.unmodifiableList(packages);
+	}
+
+	public Set<String> getPackageNames() {
+		return packageNames;
+	}
+
+	public Set<String> getPackageNamespaces() {
+		return packageNamespaces;
+	}
+
+	/**
+	 * @return Names of all actions in the file.
+	 */
+	public Set<String> getActionNames() {
+		return actionNames;
+	}
+
+	/**
+	 * Gets names of the actions in the packages with given namespaces.
+	 * 
+	 * @param namespaces
+	 *            Packages namespaces.
+	 * @return Actions names.
+	 */
+	public Set<String> getActionNames(final Set<String> namespaces) {
+		Set<String> result = new HashSet<String>();
+		for (String namespace : namespaces) {
+			Set<String> names = namespacedActionNames.get(namespace);
+			if (names != null) {
+				result.addAll(names);
+			}
+		}
+		return result;
+	}
+
+	Map<String, Set<String>> getNamespacedActionNames() {
+		return namespacedActionNames;
+	}
+
+	/**
+	 * @return Names of the interceptors and interceptor stacks.
+	 */
+	public Set<String> getInterceptorNames() {
+		return interceptorNames;
+	}
+
+	public Set<String> getResultTypeNames() {
+		return resultTypeNames;
+	}
+
+	public Map<String, String> getConstants() {
+		return constants;
+	}
+
+	/**
+	 * @return File attribute values of the include tags.
+	 */
+	public Set<String> getIncludedFiles() {
+		return includedFiles;
+	}
+
+	/**
+	 * @return Packages declared in the file in the document order.
+	 */
+	public List<PackageData> getPackages() {
+		return packages;
+	}
+}
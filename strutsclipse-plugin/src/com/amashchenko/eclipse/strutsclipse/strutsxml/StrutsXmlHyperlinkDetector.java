@@ -38,7 +38,6 @@ import com.amashchenko.eclipse.strutsclipse.ProjectUtil;
 import com.amashchenko.eclipse.strutsclipse.ResourceDocument;
 import com.amashchenko.eclipse.strutsclipse.tilesxml.TilesXmlParser;
 import com.amashchenko.eclipse.strutsclipse.xmlparser.ElementRegion;
-import com.amashchenko.eclipse.strutsclipse.xmlparser.PackageData;
 import com.amashchenko.eclipse.strutsclipse.xmlparser.TagRegion;
 
 public class StrutsXmlHyperlinkDetector extends AbstractStrutsHyperlinkDetector
@@ -49,8 +48,8 @@ public class StrutsXmlHyperlinkDetector extends AbstractStrutsHyperlinkDetector
 	private final TilesXmlParser tilesXmlParser;
 
 	public StrutsXmlHyperlinkDetector() {
-		strutsXmlParser = new StrutsXmlParser();
-		tilesXmlParser = new TilesXmlParser();
+		strutsXmlParser = StrutsXmlParser.getDefault();
+		tilesXmlParser = TilesXmlParser.getDefault();
 	}
 
 	@Override
@@ -290,18 +289,14 @@ public class StrutsXmlHyperlinkDetector extends AbstractStrutsHyperlinkDetector
 
 		IPath currentPath = ProjectUtil.getCurrentDocumentPath(document);
 
-		List<ResourceDocument> resources = ProjectUtil
-				.findStrutsResources(document);
-		for (ResourceDocument rd : resources) {
-			if (!rd.getResource().getFullPath().equals(currentPath)) {
+		for (StrutsXmlFile file : StrutsXmlIndex.getFiles(document)) {
+			if (!file.getFile().getFullPath().equals(currentPath)
+					&& file.getData().getPackageNames().contains(elementValue)) {
 				IRegion nameRegion = strutsXmlParser.getPackageNameRegion(
-						rd.getDocument(), elementValue);
-				if (nameRegion != null) {
-					if (rd.getResource().getType() == IResource.FILE
-							&& rd.getResource().exists()) {
-						links.add(new FileHyperlink(elementRegion, (IFile) rd
-								.getResource(), nameRegion));
-					}
+						file.getDocument(), elementValue);
+				if (nameRegion != null && file.getFile().exists()) {
+					links.add(new FileHyperlink(elementRegion, file.getFile(),
+							nameRegion));
 				}
 			}
 		}
@@ -336,57 +331,39 @@ public class StrutsXmlHyperlinkDetector extends AbstractStrutsHyperlinkDetector
 		TagRegion parentPackage = strutsXmlParser.getParentTagRegion(document,
 				elementRegion.getOffset(), StrutsXmlConstants.PACKAGE_TAG);
 		if (parentPackage != null) {
-			List<PackageData> packages = strutsXmlParser
-					.getAllStrutsPackagesData(document, fetchResultTypes);
-
-			List<PackageData> results = new ArrayList<PackageData>();
-
-			collectPackageData(packages, parentPackage.getAttrValue(
-					StrutsXmlConstants.NAME_ATTR, ""), elementValue,
-					new ArrayList<PackageData>(), results);
-
-			for (PackageData result : results) {
-				if (result.getResourceDocument() == null) {
-					links.add(new StorageHyperlink(elementRegion, result
-							.getJarEntryStorage(), result.getRegion()
-							.getValueRegion()));
-				} else {
-					IResource res = result.getResourceDocument().getResource();
-					if (res.getType() == IResource.FILE && res.exists()) {
-						links.add(new FileHyperlink(elementRegion, (IFile) res,
-								result.getRegion().getValueRegion()));
-					}
-				}
+			final String packageName = parentPackage.getAttrValue(
+					StrutsXmlConstants.NAME_ATTR, "");
+			final StrutsXmlPackageGraph graph = StrutsXmlIndex
+					.getPackageGraph(document);
+			Set<String> names = fetchResultTypes ? graph
+					.getResultTypeNames(packageName) : graph
+					.getInterceptorNames(packageName);
+			if (!names.contains(elementValue)) {
+				return links;
 			}
-		}
-
-		return links;
-	}
-
-	private void collectPackageData(List<PackageData> packages,
-			String packageName, String tagName, List<PackageData> scaned,
-			List<PackageData> results) {
-		for (PackageData pd : packages) {
-			if (packageName.equals(pd.getName()) && !scaned.contains(pd)) {
-				if (pd.getTagRegions() != null) {
-					for (TagRegion tr : pd.getTagRegions()) {
-						if (tagName.equals(tr.getAttrValue(
-								StrutsXmlConstants.NAME_ATTR, null))) {
-							ElementRegion region = tr.getAttrs().get(
-									StrutsXmlConstants.NAME_ATTR);
-							pd.setRegion(region);
-							results.add(pd);
+			for (StrutsXmlPackage p : graph.getPackages(packageName)) {
+				List<TagRegion> tagRegions = fetchResultTypes ? p.getData()
+						.getResultTypeRegions() : p.getData()
+						.getInterceptorRegions();
+				for (TagRegion tr : tagRegions) {
+					if (elementValue.equals(tr.getAttrValue(
+							StrutsXmlConstants.NAME_ATTR, null))) {
+						ElementRegion region = tr.getAttrs().get(
+								StrutsXmlConstants.NAME_ATTR);
+						if (p.getFile() == null) {
+							links.add(new StorageHyperlink(elementRegion, p
+									.getJarEntryStorage(), region
+									.getValueRegion()));
+						} else if (p.getFile().exists()) {
+							links.add(new FileHyperlink(elementRegion, p
+									.getFile(), region.getValueRegion()));
 						}
 					}
 				}
-
-				scaned.add(pd);
-
-				for (String ext : pd.getExtending()) {
-					collectPackageData(packages, ext, tagName, scaned, results);
-				}
 			}
 		}
+
+		return links;
 	}
 
 	private List<IHyperlink> createValidationLinks(final IDocument document,
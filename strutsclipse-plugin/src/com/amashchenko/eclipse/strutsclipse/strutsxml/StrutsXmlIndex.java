@@ -0,0 +1,747 @@
+/*
+ * Copyright 2015-2018 Aleksandr Mashchenko.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.amashchenko.eclipse.strutsclipse.strutsxml;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.eclipse.core.filebuffers.IFileBuffer;
+import org.eclipse.core.filebuffers.IFileBufferListener;
+import org.eclipse.core.filebuffers.ITextFileBuffer;
+import org.eclipse.core.resources.IFile;
+import org.eclipse.core.resources.IProject;
+import org.eclipse.core.resources.IResource;
+import org.eclipse.core.resources.IResourceChangeEvent;
+import org.eclipse.core.resources.IResourceChangeListener;
+import org.eclipse.core.resources.IResourceDelta;
+import org.eclipse.core.resources.IResourceDeltaVisitor;
+import org.eclipse.core.resources.ResourcesPlugin;
+import org.eclipse.core.runtime.CoreException;
+import org.eclipse.core.runtime.IPath;
+import org.eclipse.core.runtime.IProgressMonitor;
+import org.eclipse.core.runtime.OperationCanceledException;
+import org.eclipse.jdt.core.IElementChangedListener;
+import org.eclipse.jdt.core.IJavaElement;
+import org.eclipse.jdt.core.IJavaProject;
+import org.eclipse.jface.text.DocumentEvent;
+import org.eclipse.jface.text.IDocument;
+import org.eclipse.jface.text.IDocumentListener;
+
+import com.amashchenko.eclipse.strutsclipse.BulkParser;
+import com.amashchenko.eclipse.strutsclipse.IndexingScheduler;
+import com.amashchenko.eclipse.strutsclipse.JarDataStore;
+import com.amashchenko.eclipse.strutsclipse.JarEntryStorage;
+import com.amashchenko.eclipse.strutsclipse.ProjectUtil;
+import com.amashchenko.eclipse.strutsclipse.ResourceDocument;
+import com.amashchenko.eclipse.strutsclipse.java.JavaElementChangeListener;
+import com.amashchenko.eclipse.strutsclipse.xmlparser.PackageData;
+
+/**
+ * Index of the struts xml files of the workspace projects. Project is
+ * scanned once on the first request, afterwards the index is updated from
+ * the resource deltas: only added, removed and changed xml files are checked
+ * again. Files of the project are published as immutable versions, changed
+ * files are parsed by the {@link IndexingScheduler} job and the new version
+ * replaces the previous one, so requests never wait for the writers.
+ * Changes of the project web structure make the project index outdated, it
+ * is built again in the same way. Index also keeps package graph of the
+ * project, edits of the open files update it in the same way as the saved
+ * changes.
+ */
+public class StrutsXmlIndex {
+	private static final String XML_FILE_EXTENSION = "xml";
+	// web project structure
+	private static final String COMPONENT_FILE_NAME = "org.eclipse.wst.common.component";
+
+	private static final ConcurrentMap<IProject, ProjectIndex> PROJECTS = new ConcurrentHashMap<IProject, ProjectIndex>();
+
+	// project -> stamp incremented on every change which can affect the
+	// project index
+	private static final ConcurrentMap<IProject, AtomicLong> CHANGES = new ConcurrentHashMap<IProject, AtomicLong>();
+
+	private static final StrutsXmlParser PARSER = StrutsXmlParser.getDefault();
+
+	private static final IResourceChangeListener RESOURCE_LISTENER = new ResourceChangeListener();
+
+	private static final BulkParser.Task<StrutsXmlFile, StrutsXmlFileData> FILE_DATA = new BulkParser.Task<StrutsXmlFile, StrutsXmlFileData>() {
+		@Override
+		public StrutsXmlFileData parse(StrutsXmlFile file) {
+			return file.getData();
+		}
+	};
+
+	private static final BulkParser.Task<StrutsXmlFile, List<StrutsXmlPackage>> FILE_PACKAGES = new BulkParser.Task<StrutsXmlFile, List<StrutsXmlPackage>>() {
+		@Override
+		public List<StrutsXmlPackage> parse(StrutsXmlFile file) {
+			return file.getPackages();
+		}
+	};
+
+	private static final BulkParser.Task<JarEntryStorage, List<StrutsXmlPackage>> JAR_PACKAGES = new BulkParser.Task<JarEntryStorage, List<StrutsXmlPackage>>() {
+		@Override
+		public List<StrutsXmlPackage> parse(JarEntryStorage jarStorage) {
+			List<StrutsXmlPackage> packages = new ArrayList<StrutsXmlPackage>();
+			for (PackageData pd : StrutsXmlJarCache.getPackages(jarStorage)) {
+				packages.add(new StrutsXmlPackage(pd, jarStorage));
+			}
+			return Collections.unmodifiableList(packages);
+		}
+	};
+
+	private static final IElementChangedListener ELEMENT_LISTENER = new ElementChangedListener();
+
+	private static final IFileBufferListener BUFFER_LISTENER = new BufferListener();
+
+	private StrutsXmlIndex() {
+	}
+
+	/**
+	 * Gets struts xml files of the document project.
+	 * 
+	 * @param currentDocument
+	 *            Document in the project.
+	 * @return Struts xml files or empty list.
+	 */
+	public static List<StrutsXmlFile> getFiles(final IDocument currentDocument) {
+		IProject project = ProjectUtil.getCurrentProject(currentDocument);
+		if (project == null || !project.exists()) {
+			return new ArrayList<StrutsXmlFile>();
+		}
+		return getProjectIndex(project).getFiles();
+	}
+
+	/**
+	 * Gets struts xml files of the document project with their documents.
+	 * 
+	 * @param currentDocument
+	 *            Document in the project.
+	 * @return Struts resources or empty list.
+	 */
+	public static List<ResourceDocument> getResources(
+			final IDocument currentDocument) {
+		List<ResourceDocument> resources = new ArrayList<ResourceDocument>();
+		for (StrutsXmlFile file : getFiles(currentDocument)) {
+			ResourceDocument rd = file.toResourceDocument();
+			if (rd.getDocument() != null) {
+				resources.add(rd);
+			}
+		}
+		return resources;
+	}
+
+	/**
+	 * Gets package graph of the document project. Graph published by the
+	 * indexing job, with the project struts xml files and the struts xml
+	 * files from the jars, is used with the packages of the current document
+	 * which can have not saved changes. Until the graph is published it is
+	 * built for the request.
+	 * 
+	 * @param currentDocument
+	 *            Document in the project.
+	 * @return Package graph.
+	 */
+	public static StrutsXmlPackageGraph getPackageGraph(
+			final IDocument currentDocument) {
+		IProject project = ProjectUtil.getCurrentProject(currentDocument);
+		if (project == null || !project.exists()) {
+			return new StrutsXmlPackageGraph();
+		}
+		return getProjectIndex(project).getPackageGraph(
+				ProjectUtil.getCurrentDocumentPath(currentDocument));
+	}
+
+	public static IResourceChangeListener getResourceChangeListener() {
+		return RESOURCE_LISTENER;
+	}
+
+	public static IElementChangedListener getElementChangedListener() {
+		return ELEMENT_LISTENER;
+	}
+
+	public static IFileBufferListener getBufferListener() {
+		return BUFFER_LISTENER;
+	}
+
+	/**
+	 * Builds index of the project if there is no index or the index is
+	 * outdated, or publishes the changed files of the index. Outdated index
+	 * is replaced only when the new one is built and its files are parsed.
+	 * 
+	 * @param project
+	 *            Project.
+	 * @param monitor
+	 *            Progress monitor.
+	 * @return <code>false</code> if the project has changed while scanning
+	 *         and index needs to be built again.
+	 * @throws OperationCanceledException
+	 *             If monitor was canceled while parsing files.
+	 */
+	public static boolean build(final IProject project,
+			final IProgressMonitor monitor) {
+		ProjectIndex index = PROJECTS.get(project);
+		if (index != null && !index.stale) {
+			index.publishChanges(monitor);
+			return true;
+		}
+		final AtomicLong changes = getChanges(project);
+		final long stamp = changes.get();
+		index = new ProjectIndex(project);
+		index.parseFiles(monitor);
+		index.updatePackageGraph(monitor);
+		if (stamp != changes.get()) {
+			return false;
+		}
+		PROJECTS.put(project, index);
+		return true;
+	}
+
+	public static void clear() {
+		PROJECTS.clear();
+		for (AtomicLong changes : CHANGES.values()) {
+			changes.incrementAndGet();
+		}
+	}
+
+	static StrutsXmlParser getParser() {
+		return PARSER;
+	}
+
+	/**
+	 * @return Files of the indexed projects.
+	 */
+	static Map<IProject, List<StrutsXmlFile>> getIndexedFiles() {
+		Map<IProject, List<StrutsXmlFile>> result = new HashMap<IProject, List<StrutsXmlFile>>();
+		for (Map.Entry<IProject, ProjectIndex> e : PROJECTS.entrySet()) {
+			result.put(e.getKey(), e.getValue().getFiles());
+		}
+		return result;
+	}
+
+	private static ProjectIndex getProjectIndex(final IProject project) {
+		ProjectIndex index = PROJECTS.get(project);
+		if (index == null) {
+			final AtomicLong changes = getChanges(project);
+			final long stamp = changes.get();
+			index = new ProjectIndex(project);
+			// do not keep index which could miss changes made while scanning
+			if (stamp == changes.get()) {
+				ProjectIndex existing = PROJECTS.putIfAbsent(project, index);
+				if (existing != null) {
+					index = existing;
+				} else {
+					// package graph is built by the job
+					IndexingScheduler.warmUp(project);
+				}
+			}
+		}
+		return index;
+	}
+
+	// outdated index is used until the new one is built
+	private static void invalidate(final IResource resource) {
+		ProjectIndex index = PROJECTS.get(resource.getProject());
+		if (index != null) {
+			index.stale = true;
+			IndexingScheduler.reindex(resource.getProject());
+		}
+		getChanges(resource.getProject()).incrementAndGet();
+	}
+
+	// not saved changes of the open file are put into the package graph
+	private static void bufferChanged(final IPath location) {
+		if (location == null || location.segmentCount() < 2) {
+			return;
+		}
+		IProject project = ResourcesPlugin.getWorkspace().getRoot()
+				.getProject(location.segment(0));
+		ProjectIndex index = PROJECTS.get(project);
+		if (index != null && index.files.get().containsKey(location)) {
+			index.graphChanged();
+		}
+	}
+
+	// scan in progress holds the removed stamp and sees the change
+	private static void remove(final IResource resource) {
+		PROJECTS.remove(resource.getProject());
+		AtomicLong changes = CHANGES.remove(resource.getProject());
+		if (changes != null) {
+			changes.incrementAndGet();
+		}
+	}
+
+	private static AtomicLong getChanges(final IProject project) {
+		AtomicLong changes = CHANGES.get(project);
+		if (changes == null) {
+			changes = new AtomicLong();
+			AtomicLong existing = CHANGES.putIfAbsent(project, changes);
+			if (existing != null) {
+				changes = existing;
+			}
+		}
+		return changes;
+	}
+
+	// folders of the index being built are not known, changes outside of the
+	// folders of the current index do not affect it
+	private static boolean affects(final ProjectIndex index, final IPath path) {
+		return index == null || index.stale || index.isInFolders(path);
+	}
+
+	private static class ProjectIndex {
+		private final IProject project;
+		private final List<IPath> folders;
+		// published files, replaced as a whole on change
+		private final AtomicReference<Map<IPath, StrutsXmlFile>> files;
+		// changed files not published yet
+		private final Set<IFile> changedFiles = new LinkedHashSet<IFile>();
+		private final StrutsXmlPackageGraph packageGraph = new StrutsXmlPackageGraph();
+		// published files are not in the package graph yet
+		private volatile boolean graphOutdated = true;
+		// package graph has been updated by the job at least once
+		private volatile boolean graphPublished;
+		// packages of the jars by entry path, found again on classpath change
+		private volatile Map<String, List<StrutsXmlPackage>> jarPackages;
+		private volatile boolean stale;
+
+		private ProjectIndex(IProject project) {
+			this.project = project;
+			this.folders = new ArrayList<IPath>();
+
+			IResource[] resources = ProjectUtil
+					.getStrutsResourcesFolders(project);
+			if (resources != null) {
+				for (IResource res : resources) {
+					folders.add(res.getFullPath());
+				}
+			}
+
+			Map<IPath, StrutsXmlFile> map = new LinkedHashMap<IPath, StrutsXmlFile>();
+			for (ResourceDocument rd : ProjectUtil.findStrutsResources(project)) {
+				if (rd.getResource() instanceof IFile) {
+					addFile(map, (IFile) rd.getResource());
+				}
+			}
+			this.files = new AtomicReference<Map<IPath, StrutsXmlFile>>(
+					Collections.unmodifiableMap(map));
+		}
+
+		private List<StrutsXmlFile> getFiles() {
+			return new ArrayList<StrutsXmlFile>(files.get().values());
+		}
+
+		// parses files data before the index is published
+		private void parseFiles(final IProgressMonitor monitor) {
+			BulkParser.parse(getFiles(), FILE_DATA, monitor);
+		}
+
+		/**
+		 * Gets published package graph with the packages of the document
+		 * file, or the graph built for the request if none is published yet.
+		 */
+		private StrutsXmlPackageGraph getPackageGraph(final IPath documentPath) {
+			if (!graphPublished) {
+				return createPackageGraph();
+			}
+			StrutsXmlFile file = documentPath == null ? null : files.get()
+					.get(documentPath);
+			if (file == null) {
+				return packageGraph;
+			}
+			StrutsXmlPackageGraph graph = packageGraph.withFile(
+					documentPath.toString(), file.getPackages());
+			// document changed w/o the buffer listener, e.g. open before
+			// the plugin has started
+			if (graph != packageGraph && !graphOutdated) {
+				graphChanged();
+			}
+			return graph;
+		}
+
+		// current packages of the files and jars, read w/o the bulk parser
+		private StrutsXmlPackageGraph createPackageGraph() {
+			Map<String, List<StrutsXmlPackage>> graphFiles = new LinkedHashMap<String, List<StrutsXmlPackage>>();
+			for (StrutsXmlFile file : getFiles()) {
+				graphFiles.put(file.getFile().getFullPath().toString(),
+						file.getPackages());
+			}
+			Map<String, List<StrutsXmlPackage>> jars = jarPackages;
+			if (jars == null) {
+				// jar packages are kept by the job only
+				for (JarEntryStorage jarStorage : ProjectUtil
+						.findJarEntryStrutsResources(project)) {
+					graphFiles.put(jarStorage.getFullPath().toString(),
+							JAR_PACKAGES.parse(jarStorage));
+				}
+			} else {
+				graphFiles.putAll(jars);
+			}
+
+			StrutsXmlPackageGraph graph = new StrutsXmlPackageGraph();
+			graph.update(graphFiles);
+			return graph;
+		}
+
+		/**
+		 * Updates package graph with the published files and the struts xml
+		 * files from the jars. Called by the indexing job only, requests use
+		 * the graph published before. Packages of the not changed files and
+		 * of the jars are reused.
+		 */
+		private void updatePackageGraph(final IProgressMonitor monitor) {
+			// changes made while reading the packages are not lost
+			graphOutdated = false;
+
+			List<StrutsXmlFile> localFiles = getFiles();
+			List<List<StrutsXmlPackage>> localPackages;
+			Map<String, List<StrutsXmlPackage>> jars = jarPackages;
+			try {
+				localPackages = BulkParser.parse(localFiles, FILE_PACKAGES,
+						monitor);
+				if (jars == null) {
+					jars = findJarPackages(monitor);
+				}
+			} catch (OperationCanceledException e) {
+				graphOutdated = true;
+				throw e;
+			}
+
+			// merged in the lookup order
+			Map<String, List<StrutsXmlPackage>> graphFiles = new LinkedHashMap<String, List<StrutsXmlPackage>>();
+			for (int i = 0; i < localFiles.size(); i++) {
+				graphFiles.put(localFiles.get(i).getFile().getFullPath()
+						.toString(), localPackages.get(i));
+			}
+			graphFiles.putAll(jars);
+
+			packageGraph.update(graphFiles);
+			graphPublished = true;
+		}
+
+		private Map<String, List<StrutsXmlPackage>> findJarPackages(
+				final IProgressMonitor monitor) {
+			List<JarEntryStorage> jarStorages = ProjectUtil
+					.findJarEntryStrutsResources(project);
+			List<List<StrutsXmlPackage>> packages = BulkParser.parse(
+					jarStorages, JAR_PACKAGES, monitor);
+
+			Map<String, List<StrutsXmlPackage>> jars = new LinkedHashMap<String, List<StrutsXmlPackage>>();
+			for (int i = 0; i < jarStorages.size(); i++) {
+				jars.put(jarStorages.get(i).getFullPath().toString(),
+						packages.get(i));
+			}
+			jarPackages = jars;
+			return jars;
+		}
+
+		// packages of the files are read again by the next build
+		private void graphChanged() {
+			graphOutdated = true;
+			IndexingScheduler.reindex(project);
+		}
+
+		// jars are found again by the next build
+		private void classpathChanged() {
+			jarPackages = null;
+			graphOutdated = true;
+			IndexingScheduler.reindex(project);
+		}
+
+		private boolean isInFolders(final IPath path) {
+			for (IPath folder : folders) {
+				if (folder.isPrefixOf(path)) {
+					return true;
+				}
+			}
+			return false;
+		}
+
+		private boolean isFolderOrParent(final IPath path) {
+			for (IPath folder : folders) {
+				if (path.isPrefixOf(folder)) {
+					return true;
+				}
+			}
+			return false;
+		}
+
+		private StrutsXmlFile addFile(final Map<IPath, StrutsXmlFile> map,
+				final IFile file) {
+			final IPath path = file.getFullPath();
+			for (IPath folder : folders) {
+				if (folder.isPrefixOf(path)) {
+					StrutsXmlFile strutsXmlFile = new StrutsXmlFile(file, path
+							.makeRelativeTo(folder).toString());
+					StrutsXmlIndexStore.restore(strutsXmlFile);
+					map.put(path, strutsXmlFile);
+					return strutsXmlFile;
+				}
+			}
+			return null;
+		}
+
+		private void fileChanged(final IFile file) {
+			synchronized (changedFiles) {
+				changedFiles.add(file);
+			}
+			IndexingScheduler.reindex(project);
+		}
+
+		/**
+		 * Publishes new version of the files with the changed files parsed
+		 * again and updates the package graph with them. Requests use the
+		 * previous version until then.
+		 */
+		private void publishChanges(final IProgressMonitor monitor) {
+			List<IFile> changed;
+			synchronized (changedFiles) {
+				changed = new ArrayList<IFile>(changedFiles);
+				changedFiles.clear();
+			}
+			if (changed.isEmpty()) {
+				if (graphOutdated) {
+					updatePackageGraph(monitor);
+				}
+				return;
+			}
+
+			Map<IPath, StrutsXmlFile> map = new LinkedHashMap<IPath, StrutsXmlFile>(
+					files.get());
+			List<StrutsXmlFile> added = new ArrayList<StrutsXmlFile>();
+			for (IFile file : changed) {
+				// forget read document and data
+				map.remove(file.getFullPath());
+				if (file.exists()
+						&& ProjectUtil.isStrutsResource(project, file)) {
+					StrutsXmlFile strutsXmlFile = addFile(map, file);
+					if (strutsXmlFile != null) {
+						added.add(strutsXmlFile);
+					}
+				}
+			}
+			try {
+				BulkParser.parse(added, FILE_DATA, monitor);
+			} catch (OperationCanceledException e) {
+				// publish on the next build
+				synchronized (changedFiles) {
+					changedFiles.addAll(changed);
+				}
+				throw e;
+			}
+			files.set(Collections.unmodifiableMap(map));
+			updatePackageGraph(monitor);
+		}
+	}
+
+	private static class ElementChangedListener extends
+			JavaElementChangeListener {
+		@Override
+		protected void classpathChanged(IJavaProject javaProject) {
+			// data of the remaining archives is kept referenced
+			ProjectUtil.releaseRemovedJars(javaProject);
+			for (ProjectIndex index : PROJECTS.values()) {
+				IJavaProject indexProject = ProjectUtil
+						.getJavaProject(index.project);
+				if (indexProject != null
+						&& dependsOn(indexProject, javaProject)) {
+					index.classpathChanged();
+				}
+			}
+		}
+
+		@Override
+		protected void sourceChanged(IJavaElement element) {
+		}
+	}
+
+	/**
+	 * Listens to the documents of the open xml files. Package graph is
+	 * updated after the burst of the edits, only closures of the changed
+	 * packages are dropped. Buffer disposed w/o saving puts the saved file
+	 * back into the graph.
+	 */
+	private static class BufferListener implements IFileBufferListener {
+		// guarded by itself
+		private final Map<IFileBuffer, DocumentListener> listeners = new HashMap<IFileBuffer, DocumentListener>();
+
+		@Override
+		public void bufferCreated(IFileBuffer buffer) {
+			final IPath location = buffer.getLocation();
+			// buffers of the indexed files are created by the indexing too
+			if (!(buffer instanceof ITextFileBuffer) || location == null
+					|| location.getFileExtension() == null
+					|| !XML_FILE_EXTENSION.equals(location.getFileExtension()
+							.toLowerCase(Locale.ROOT))
+					|| ProjectUtil.isLoadingDocument()) {
+				return;
+			}
+			DocumentListener listener = new DocumentListener(buffer);
+			synchronized (listeners) {
+				listeners.put(buffer, listener);
+			}
+			((ITextFileBuffer) buffer).getDocument().addDocumentListener(
+					listener);
+		}
+
+		@Override
+		public void bufferDisposed(IFileBuffer buffer) {
+			DocumentListener listener;
+			synchronized (listeners) {
+				listener = listeners.remove(buffer);
+			}
+			if (listener != null) {
+				((ITextFileBuffer) buffer).getDocument()
+						.removeDocumentListener(listener);
+				if (listener.changed) {
+					bufferChanged(buffer.getLocation());
+				}
+			}
+		}
+
+		@Override
+		public void bufferContentAboutToBeReplaced(IFileBuffer buffer) {
+		}
+
+		@Override
+		public void bufferContentReplaced(IFileBuffer buffer) {
+		}
+
+		@Override
+		public void stateChanging(IFileBuffer buffer) {
+		}
+
+		@Override
+		public void dirtyStateChanged(IFileBuffer buffer, boolean isDirty) {
+		}
+
+		@Override
+		public void stateValidationChanged(IFileBuffer buffer,
+				boolean isStateValidated) {
+		}
+
+		@Override
+		public void underlyingFileMoved(IFileBuffer buffer, IPath path) {
+		}
+
+		@Override
+		public void underlyingFileDeleted(IFileBuffer buffer) {
+		}
+
+		@Override
+		public void stateChangeFailed(IFileBuffer buffer) {
+		}
+	}
+
+	private static class DocumentListener implements IDocumentListener {
+		private final IFileBuffer buffer;
+		private volatile boolean changed;
+
+		private DocumentListener(IFileBuffer buffer) {
+			this.buffer = buffer;
+		}
+
+		@Override
+		public void documentAboutToBeChanged(DocumentEvent event) {
+		}
+
+		@Override
+		public void documentChanged(DocumentEvent event) {
+			changed = true;
+			// location of the moved file is read from the buffer
+			bufferChanged(buffer.getLocation());
+		}
+	}
+
+	private static class ResourceChangeListener implements
+			IResourceChangeListener, IResourceDeltaVisitor {
+		private static final int CONTENT_FLAGS = IResourceDelta.CONTENT
+				| IResourceDelta.REPLACED | IResourceDelta.ENCODING
+				| IResourceDelta.TYPE;
+
+		@Override
+		public void resourceChanged(IResourceChangeEvent event) {
+			if (event.getDelta() != null) {
+				try {
+					event.getDelta().accept(this);
+				} catch (CoreException e) {
+					e.printStackTrace();
+				}
+			}
+		}
+
+		@Override
+		public boolean visit(IResourceDelta delta) throws CoreException {
+			final IResource resource = delta.getResource();
+			final int kind = delta.getKind();
+
+			boolean visitChildren = true;
+			switch (resource.getType()) {
+			case IResource.PROJECT:
+				if (kind == IResourceDelta.REMOVED
+						|| (delta.getFlags() & IResourceDelta.OPEN) != 0) {
+					remove(resource);
+					IndexingScheduler.cancel((IProject) resource);
+					// let shared data of the project jars to be reclaimed
+					JarDataStore.release(resource.getName());
+					visitChildren = false;
+				}
+				break;
+			case IResource.FOLDER:
+				if (kind == IResourceDelta.ADDED
+						|| kind == IResourceDelta.REMOVED) {
+					ProjectIndex index = PROJECTS.get(resource.getProject());
+					if (index != null
+							&& index.isFolderOrParent(resource.getFullPath())) {
+						invalidate(resource);
+						visitChildren = false;
+					} else if (affects(index, resource.getFullPath())) {
+						getChanges(resource.getProject()).incrementAndGet();
+					}
+				}
+				break;
+			case IResource.FILE:
+				visitChildren = false;
+				if (COMPONENT_FILE_NAME.equals(resource.getName())) {
+					invalidate(resource);
+				} else if (resource.getFileExtension() != null
+						&& XML_FILE_EXTENSION.equals(resource
+								.getFileExtension().toLowerCase(Locale.ROOT))
+						&& (kind != IResourceDelta.CHANGED || (delta
+								.getFlags() & CONTENT_FLAGS) != 0)) {
+					ProjectIndex index = PROJECTS.get(resource.getProject());
+					if (affects(index, resource.getFullPath())) {
+						getChanges(resource.getProject()).incrementAndGet();
+						if (index != null) {
+							index.fileChanged((IFile) resource);
+						}
+					}
+				}
+				break;
+			}
+			return visitChildren;
+		}
+	}
+}
@@ -0,0 +1,299 @@
+/*
+ * Copyright 2015-2018 Aleksandr Mashchenko.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.amashchenko.eclipse.strutsclipse.strutsxml;
+
+import java.io.BufferedOutputStream;
+import java.io.DataInput;
+import java.io.DataInputStream;
+import java.io.DataOutput;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.eclipse.core.resources.IProject;
+
+import com.amashchenko.eclipse.strutsclipse.Activator;
+
+/**
+ * Snapshot of the struts xml files data persisted in the plugin state
+ * location. Snapshot is saved when the plugin stops and read, memory mapped,
+ * on the first index request. Data of the file is restored from the
+ * snapshot only if the file modification stamp is the same as when the data
+ * was parsed, other files are parsed again.
+ */
+public class StrutsXmlIndexStore {
+	private static final String SNAPSHOT_FILE_NAME = "struts-index.snapshot";
+	private static final int VERSION = 2;
+
+	// file full path -> data
+	private static final Map<String, Entry> SNAPSHOT = new HashMap<String, Entry>();
+
+	private static boolean loaded;
+
+	private StrutsXmlIndexStore() {
+	}
+
+	/**
+	 * Restores data of the file from the snapshot if the file has not
+	 * changed since the snapshot was saved.
+	 * 
+	 * @param file
+	 *            Indexed file.
+	 */
+	static void restore(final StrutsXmlFile file) {
+		final Entry entry;
+		synchronized (SNAPSHOT) {
+			load();
+			entry = SNAPSHOT.remove(file.getFile().getFullPath().toString());
+		}
+		if (entry != null
+				&& entry.stamp == file.getFile().getModificationStamp()) {
+			file.restore(entry.stamp, entry.data);
+		}
+	}
+
+	/**
+	 * Saves data of the indexed files which are not changed in the open
+	 * editors, and not used entries of the previous snapshot for the
+	 * projects which were not indexed in the current session.
+	 */
+	public static void save() {
+		File snapshotFile = getSnapshotFile();
+		if (snapshotFile == null) {
+			return;
+		}
+
+		Map<String, Entry> entries = new LinkedHashMap<String, Entry>();
+		Set<String> projects = new HashSet<String>();
+		for (Map.Entry<IProject, List<StrutsXmlFile>> e : StrutsXmlIndex
+				.getIndexedFiles().entrySet()) {
+			projects.add(e.getKey().getName());
+			for (StrutsXmlFile file : e.getValue()) {
+				Entry entry = file.getSavedData();
+				if (entry != null) {
+					entries.put(file.getFile().getFullPath().toString(), entry);
+				}
+			}
+		}
+		synchronized (SNAPSHOT) {
+			for (Map.Entry<String, Entry> e : SNAPSHOT.entrySet()) {
+				if (!projects.contains(getProjectName(e.getKey()))) {
+					entries.put(e.getKey(), e.getValue());
+				}
+			}
+		}
+
+		try {
+			write(snapshotFile, entries);
+		} catch (IOException e) {
+			e.printStackTrace();
+		}
+	}
+
+	private static void load() {
+		if (loaded) {
+			return;
+		}
+		loaded = true;
+
+		File snapshotFile = getSnapshotFile();
+		if (snapshotFile == null || !snapshotFile.isFile()) {
+			return;
+		}
+		try {
+			SNAPSHOT.putAll(read(snapshotFile));
+		} catch (IOException e) {
+			// ignore broken snapshot, it will be rewritten
+			e.printStackTrace();
+		}
+	}
+
+	private static File getSnapshotFile() {
+		Activator activator = Activator.getDefault();
+		if (activator == null) {
+			return null;
+		}
+		return activator.getStateLocation().append(SNAPSHOT_FILE_NAME)
+				.toFile();
+	}
+
+	private static String getProjectName(final String fullPath) {
+		final int slash = fullPath.indexOf('/', 1);
+		return slash == -1 ? fullPath.substring(1) : fullPath.substring(1,
+				slash);
+	}
+
+	static void write(final File file, final Map<String, Entry> entries)
+			throws IOException {
+		try (DataOutputStream out = new DataOutputStream(
+				new BufferedOutputStream(new FileOutputStream(file)))) {
+			out.writeInt(VERSION);
+			out.writeInt(entries.size());
+			for (Map.Entry<String, Entry> e : entries.entrySet()) {
+				StrutsXmlJarCache.writeString(out, e.getKey());
+				out.writeLong(e.getValue().stamp);
+				writeData(out, e.getValue().data);
+			}
+		}
+	}
+
+	static Map<String, Entry> read(final File file) throws IOException {
+		Map<String, Entry> entries = new HashMap<String, Entry>();
+		try (FileChannel channel = FileChannel.open(file.toPath(),
+				StandardOpenOption.READ)) {
+			DataInput in = new DataInputStream(new ByteBufferInputStream(
+					channel.map(FileChannel.MapMode.READ_ONLY, 0,
+							channel.size())));
+			if (in.readInt() != VERSION) {
+				return entries;
+			}
+			int count = in.readInt();
+			for (int i = 0; i < count; i++) {
+				String path = StrutsXmlJarCache.readString(in);
+				long stamp = in.readLong();
+				entries.put(path, new Entry(stamp, readData(in)));
+			}
+		}
+		return entries;
+	}
+
+	private static void writeData(final DataOutput out,
+			final StrutsXmlFileData data) throws IOException {
+		writeStrings(out, data.getPackageNames());
+		writeStrings(out, data.getPackageNamespaces());
+		writeStrings(out, data.getActionNames());
+		Map<String, Set<String>> namespacedActionNames = data
+				.getNamespacedActionNames();
+		out.writeInt(namespacedActionNames.size());
+		for (Map.Entry<String, Set<String>> e : namespacedActionNames
+				.entrySet()) {
+			StrutsXmlJarCache.writeString(out, e.getKey());
+			writeStrings(out, e.getValue());
+		}
+		writeStrings(out, data.getInterceptorNames());
+		writeStrings(out, data.getResultTypeNames());
+		out.writeInt(data.getConstants().size());
+		for (Map.Entry<String, String> e : data.getConstants().entrySet()) {
+			StrutsXmlJarCache.writeString(out, e.getKey());
+			out.writeBoolean(e.getValue() != null);
+			if (e.getValue() != null) {
+				StrutsXmlJarCache.writeString(out, e.getValue());
+			}
+		}
+		writeStrings(out, data.getIncludedFiles());
+		StrutsXmlJarCache.writePackages(out, data.getPackages());
+	}
+
+	private static StrutsXmlFileData readData(final DataInput in)
+			throws IOException {
+		Set<String> packageNames = readStrings(in);
+		Set<String> packageNamespaces = readStrings(in);
+		Set<String> actionNames = readStrings(in);
+		Map<String, Set<String>> namespacedActionNames = new HashMap<String, Set<String>>();
+		int count = in.readInt();
+		for (int i = 0; i < count; i++) {
+			String namespace = StrutsXmlJarCache.readString(in);
+			namespacedActionNames.put(namespace, readStrings(in));
+		}
+		Set<String> interceptorNames = readStrings(in);
+		Set<String> resultTypeNames = readStrings(in);
+		Map<String, String> constants = new HashMap<String, String>();
+		count = in.readInt();
+		for (int i = 0; i < count; i++) {
+			String name = StrutsXmlJarCache.readString(in);
+			constants.put(name,
+					in.readBoolean() ? StrutsXmlJarCache.readString(in) : null);
+		}
+		Set<String> includedFiles = readStrings(in);
+		return new StrutsXmlFileData(packageNames, packageNamespaces,
+				actionNames, namespacedActionNames, interceptorNames,
+				resultTypeNames, constants, includedFiles,
+				StrutsXmlJarCache.readPackages(in));
+	}
+
+	private static void writeStrings(final DataOutput out,
+			final Set<String> strings) throws IOException {
+		out.writeInt(strings.size());
+		for (String s : strings) {
+			StrutsXmlJarCache.writeString(out, s);
+		}
+	}
+
+	private static Set<String> readStrings(final DataInput in)
+			throws IOException {
+		int count = in.readInt();
+		Set<String> strings = new HashSet<String>();
+		for (int i = 0; i < count; i++) {
+			strings.add(StrutsXmlJarCache.readString(in));
+		}
+		return strings;
+	}
+
+	/**
+	 * Data of the file with the file modification stamp it was parsed at.
+	 */
+	static class Entry {
+		private final long stamp;
+		private final StrutsXmlFileData data;
+
+		Entry(long stamp, StrutsXmlFileData data) {
+			this.stamp = stamp;
+			this.data = data;
+		}
+
+		long getStamp() {
+			return stamp;
+		}
+
+		StrutsXmlFileData getData() {
+			return data;
+		}
+	}
+
+	private static class ByteBufferInputStream extends InputStream {
+		private final ByteBuffer buffer;
+
+		private ByteBufferInputStream(ByteBuffer buffer) {
+			this.buffer = buffer;
+		}
+
+		@Override
+		public int read() throws IOException {
+			return buffer.hasRemaining() ? buffer.get() & 0xff : -1;
+		}
+
+		@Override
+		public int read(byte[] b, int off, int len) throws IOException {
+			if (!buffer.hasRemaining()) {
+				return -1;
+			}
+			len = Math.min(len, buffer.remaining());
+			buffer.get(b, off, len);
+			return len;
+		}
+	}
+}
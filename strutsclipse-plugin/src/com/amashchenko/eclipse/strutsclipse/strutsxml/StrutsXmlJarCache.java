@@ -0,0 +1,303 @@
+/*
+ * Copyright 2015-2018 Aleksandr Mashchenko.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.amashchenko.eclipse.strutsclipse.strutsxml;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInput;
+import java.io.DataInputStream;
+import java.io.DataOutput;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.Set;
+
+import org.eclipse.jface.text.IDocument;
+
+import com.amashchenko.eclipse.strutsclipse.Activator;
+import com.amashchenko.eclipse.strutsclipse.JarData;
+import com.amashchenko.eclipse.strutsclipse.JarEntryStorage;
+import com.amashchenko.eclipse.strutsclipse.xmlparser.ElementRegion;
+import com.amashchenko.eclipse.strutsclipse.xmlparser.PackageData;
+import com.amashchenko.eclipse.strutsclipse.xmlparser.TagRegion;
+
+/**
+ * Cache of the packages declared in the struts xml files from the jars.
+ * Packages are kept in the {@link JarData} shared by all copies of the jar
+ * and persisted keyed by the jar checksum. Cache is loaded from the plugin
+ * state location on the first use and saved there, with the jars used in
+ * the current session only, when the plugin stops.
+ */
+public class StrutsXmlJarCache {
+	private static final String CACHE_FILE_NAME = "struts-jars.cache";
+	private static final int VERSION = 3;
+	private static final String PACKAGES_JAR_DATA_KEY = "packages:";
+
+	// jar checksum -> entry path -> packages
+	private static final Map<String, Map<String, List<PackageData>>> JARS = new HashMap<String, Map<String, List<PackageData>>>();
+	// checksums of the jars used in the current session
+	private static final Set<String> USED = new HashSet<String>();
+
+	private static final StrutsXmlParser PARSER = StrutsXmlParser.getDefault();
+
+	private static boolean loaded;
+	private static boolean dirty;
+
+	private StrutsXmlJarCache() {
+	}
+
+	/**
+	 * Gets packages declared in the struts xml file from the jar. File is
+	 * parsed only if there is no cached data for the jar contents.
+	 * 
+	 * @param jarStorage
+	 *            Jar entry.
+	 * @return Packages in the document order.
+	 */
+	public static List<PackageData> getPackages(
+			final JarEntryStorage jarStorage) {
+		final JarData jarData = jarStorage.getJarData();
+		if (jarData == null) {
+			return parse(jarStorage);
+		}
+
+		return jarData.get(PACKAGES_JAR_DATA_KEY + jarStorage.getEntryPath(),
+				new JarData.Loader<List<PackageData>>() {
+					@Override
+					public List<PackageData> load() {
+						return getPackages(jarData.getChecksum(), jarStorage);
+					}
+				});
+	}
+
+	private static List<PackageData> getPackages(final String checksum,
+			final JarEntryStorage jarStorage) {
+		final String entryPath = jarStorage.getEntryPath();
+
+		synchronized (JARS) {
+			load();
+
+			Map<String, List<PackageData>> entries = JARS.get(checksum);
+			if (entries == null) {
+				entries = new HashMap<String, List<PackageData>>();
+				JARS.put(checksum, entries);
+			}
+			if (USED.add(checksum)) {
+				dirty = true;
+			}
+
+			List<PackageData> packages = entries.get(entryPath);
+			if (packages != null) {
+				return packages;
+			}
+		}
+
+		// other jars are parsed at the same time
+		List<PackageData> packages = parse(jarStorage);
+
+		synchronized (JARS) {
+			Map<String, List<PackageData>> entries = JARS.get(checksum);
+			List<PackageData> existing = entries.get(entryPath);
+			if (existing != null) {
+				return existing;
+			}
+			entries.put(entryPath, packages);
+			dirty = true;
+			return packages;
+		}
+	}
+
+	/**
+	 * Saves cache of the jars used in the current session to the plugin
+	 * state location if it has changed.
+	 */
+	public static void save() {
+		synchronized (JARS) {
+			File cacheFile = getCacheFile();
+			if (!dirty || cacheFile == null) {
+				return;
+			}
+
+			try (DataOutputStream out = new DataOutputStream(
+					new BufferedOutputStream(new FileOutputStream(cacheFile)))) {
+				out.writeInt(VERSION);
+				out.writeInt(USED.size());
+				for (String checksum : USED) {
+					Map<String, List<PackageData>> entries = JARS
+							.get(checksum);
+					writeString(out, checksum);
+					out.writeInt(entries.size());
+					for (Entry<String, List<PackageData>> e : entries
+							.entrySet()) {
+						writeString(out, e.getKey());
+						writePackages(out, e.getValue());
+					}
+				}
+				dirty = false;
+			} catch (IOException e) {
+				e.printStackTrace();
+			}
+		}
+	}
+
+	private static void load() {
+		if (loaded) {
+			return;
+		}
+		loaded = true;
+
+		File cacheFile = getCacheFile();
+		if (cacheFile == null || !cacheFile.isFile()) {
+			return;
+		}
+
+		Map<String, Map<String, List<PackageData>>> jars = new HashMap<String, Map<String, List<PackageData>>>();
+		try (DataInputStream in = new DataInputStream(new BufferedInputStream(
+				new FileInputStream(cacheFile)))) {
+			if (in.readInt() != VERSION) {
+				return;
+			}
+			int jarsCount = in.readInt();
+			for (int i = 0; i < jarsCount; i++) {
+				String checksum = readString(in);
+				Map<String, List<PackageData>> entries = new HashMap<String, List<PackageData>>();
+				int entriesCount = in.readInt();
+				for (int j = 0; j < entriesCount; j++) {
+					String entryPath = readString(in);
+					entries.put(entryPath, readPackages(in));
+				}
+				jars.put(checksum, entries);
+			}
+		} catch (IOException e) {
+			// ignore broken cache, it will be rewritten
+			e.printStackTrace();
+			return;
+		}
+		JARS.putAll(jars);
+	}
+
+	private static File getCacheFile() {
+		Activator activator = Activator.getDefault();
+		if (activator == null) {
+			return null;
+		}
+		return activator.getStateLocation().append(CACHE_FILE_NAME).toFile();
+	}
+
+	private static List<PackageData> parse(final JarEntryStorage jarStorage) {
+		List<PackageData> packages;
+		IDocument document = jarStorage.toDocument();
+		if (document == null) {
+			packages = new ArrayList<PackageData>();
+		} else {
+			packages = PARSER.getPackagesData(document);
+		}
+		return Collections.unmodifiableList(packages);
+	}
+
+	static void writePackages(final DataOutput out,
+			final List<PackageData> packages) throws IOException {
+		out.writeInt(packages.size());
+		for (PackageData pd : packages) {
+			writeString(out, pd.getName());
+			out.writeInt(pd.getExtending().size());
+			for (String ext : pd.getExtending()) {
+				writeString(out, ext);
+			}
+			writeTags(out, pd.getInterceptorRegions());
+			writeTags(out, pd.getResultTypeRegions());
+		}
+	}
+
+	static List<PackageData> readPackages(final DataInput in)
+			throws IOException {
+		int count = in.readInt();
+		List<PackageData> packages = new ArrayList<PackageData>(count);
+		for (int i = 0; i < count; i++) {
+			String name = readString(in);
+			int extendingCount = in.readInt();
+			Set<String> extending = new HashSet<String>();
+			for (int j = 0; j < extendingCount; j++) {
+				extending.add(readString(in));
+			}
+			packages.add(new PackageData(name, extending, readTags(in),
+					readTags(in)));
+		}
+		return Collections.unmodifiableList(packages);
+	}
+
+	// length prefixed UTF-8 bytes, writeUTF is limited to 64K bytes
+	static void writeString(final DataOutput out, final String s)
+			throws IOException {
+		byte[] bytes = s.getBytes(StandardCharsets.UTF_8);
+		out.writeInt(bytes.length);
+		out.write(bytes);
+	}
+
+	static String readString(final DataInput in) throws IOException {
+		final int length = in.readInt();
+		if (length < 0) {
+			throw new IOException("Invalid string length " + length);
+		}
+		byte[] bytes = new byte[length];
+		in.readFully(bytes);
+		return new String(bytes, StandardCharsets.UTF_8);
+	}
+
+	// only name attribute of the tags is kept
+	private static void writeTags(final DataOutput out,
+			final List<TagRegion> tagRegions) throws IOException {
+		out.writeInt(tagRegions.size());
+		for (TagRegion tr : tagRegions) {
+			writeString(out, tr.getName());
+			ElementRegion nameRegion = tr.getAttrs() == null ? null : tr
+					.getAttrs().get(StrutsXmlConstants.NAME_ATTR);
+			out.writeBoolean(nameRegion != null
+					&& nameRegion.getValue() != null);
+			if (nameRegion != null && nameRegion.getValue() != null) {
+				writeString(out, nameRegion.getValue());
+				out.writeInt(nameRegion.getValueRegion().getOffset());
+			}
+		}
+	}
+
+	private static List<TagRegion> readTags(final DataInput in)
+			throws IOException {
+		int count = in.readInt();
+		List<TagRegion> tagRegions = new ArrayList<TagRegion>(count);
+		for (int i = 0; i < count; i++) {
+			String tagName = readString(in);
+			List<ElementRegion> attrs = new ArrayList<ElementRegion>();
+			if (in.readBoolean()) {
+				String value = readString(in);
+				attrs.add(new ElementRegion(StrutsXmlConstants.NAME_ATTR,
+						value, in.readInt()));
+			}
+			tagRegions.add(new TagRegion(tagName, null, null, attrs));
+		}
+		return tagRegions;
+	}
+}
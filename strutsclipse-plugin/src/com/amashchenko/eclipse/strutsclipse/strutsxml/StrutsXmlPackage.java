@@ -0,0 +1,63 @@
+/*
+ * Copyright 2015-2018 Aleksandr Mashchenko.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.amashchenko.eclipse.strutsclipse.strutsxml;
+
+import org.eclipse.core.resources.IFile;
+
+import com.amashchenko.eclipse.strutsclipse.JarEntryStorage;
+import com.amashchenko.eclipse.strutsclipse.xmlparser.PackageData;
+
+/**
+ * Package of the {@link StrutsXmlPackageGraph} with the file which declares
+ * it, either workspace file or jar entry.
+ */
+public class StrutsXmlPackage {
+	private final PackageData data;
+	private final IFile file;
+	private final JarEntryStorage jarEntryStorage;
+
+	public StrutsXmlPackage(PackageData data, IFile file) {
+		this.data = data;
+		this.file = file;
+		this.jarEntryStorage = null;
+	}
+
+	public StrutsXmlPackage(PackageData data, JarEntryStorage jarEntryStorage) {
+		this.data = data;
+		this.file = null;
+		this.jarEntryStorage = jarEntryStorage;
+	}
+
+	public String getName() {
+		return data.getName();
+	}
+
+	public PackageData getData() {
+		return data;
+	}
+
+	/**
+	 * @return Workspace file or <code>null</code> if package is declared in
+	 *         the jar.
+	 */
+	public IFile getFile() {
+		return file;
+	}
+
+	public JarEntryStorage getJarEntryStorage() {
+		return jarEntryStorage;
+	}
+}
@@ -0,0 +1,332 @@
+/*
+ * Copyright 2015-2018 Aleksandr Mashchenko.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.amashchenko.eclipse.strutsclipse.strutsxml;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicReference;
+
+import com.amashchenko.eclipse.strutsclipse.xmlparser.TagRegion;
+
+/**
+ * Inheritance graph of the struts packages of the project. Packages
+ * extended by the package, directly or not, and the interceptors and result
+ * types available in the package are computed once and reused until one of
+ * the files declaring them changes. Extends cycles are detected and walked
+ * only once. Graph is published as immutable states, update creates the
+ * next state and readers never wait for it. Graph with the packages of one
+ * file replaced, e.g. of the not saved document, shares not affected
+ * closures with the published state.
+ */
+public class StrutsXmlPackageGraph {
+	private final AtomicReference<State> state;
+
+	public StrutsXmlPackageGraph() {
+		this(new State(new LinkedHashMap<String, List<StrutsXmlPackage>>(),
+				new ConcurrentHashMap<String, Closure>()));
+	}
+
+	private StrutsXmlPackageGraph(State state) {
+		this.state = new AtomicReference<State>(state);
+	}
+
+	/**
+	 * Updates graph with the current packages of the files. File is
+	 * considered changed if its package data objects have changed. Computed
+	 * closures which visited packages with names declared in the changed
+	 * files are dropped, others are kept in the next state.
+	 * 
+	 * @param newFiles
+	 *            Packages of the files by file key in the lookup order.
+	 */
+	public synchronized void update(
+			final Map<String, List<StrutsXmlPackage>> newFiles) {
+		final State next = next(state.get(), newFiles);
+		if (next != null) {
+			state.set(next);
+		}
+	}
+
+	/**
+	 * Gets graph with the packages of the file replaced. Graph is not
+	 * updated, graph of the latest replaced packages is kept until the next
+	 * update.
+	 * 
+	 * @param fileKey
+	 *            File key.
+	 * @param packages
+	 *            Current packages of the file.
+	 * @return This graph if the file is not in the graph or its packages are
+	 *         the same, otherwise the new graph.
+	 */
+	public StrutsXmlPackageGraph withFile(final String fileKey,
+			final List<StrutsXmlPackage> packages) {
+		final State current = state.get();
+		List<StrutsXmlPackage> old = current.files.get(fileKey);
+		if (old == null || isSameData(old, packages)) {
+			return this;
+		}
+
+		Overlay overlay = current.overlay.get();
+		if (overlay != null && overlay.fileKey.equals(fileKey)
+				&& overlay.packages == packages) {
+			return overlay.graph;
+		}
+
+		// file keeps its position in the lookup order
+		Map<String, List<StrutsXmlPackage>> newFiles = new LinkedHashMap<String, List<StrutsXmlPackage>>(
+				current.files);
+		newFiles.put(fileKey, packages);
+		StrutsXmlPackageGraph graph = new StrutsXmlPackageGraph(next(current,
+				newFiles));
+		current.overlay.set(new Overlay(fileKey, packages, graph));
+		return graph;
+	}
+
+	// null if nothing has changed
+	private static State next(final State current,
+			final Map<String, List<StrutsXmlPackage>> newFiles) {
+		Set<String> changedNames = new HashSet<String>();
+		Map<String, List<StrutsXmlPackage>> updated = new LinkedHashMap<String, List<StrutsXmlPackage>>();
+		for (Entry<String, List<StrutsXmlPackage>> entr : newFiles.entrySet()) {
+			List<StrutsXmlPackage> old = current.files.get(entr.getKey());
+			if (old != null && isSameData(old, entr.getValue())) {
+				updated.put(entr.getKey(), old);
+			} else {
+				addNames(old, changedNames);
+				addNames(entr.getValue(), changedNames);
+				updated.put(entr.getKey(), entr.getValue());
+			}
+		}
+		for (Entry<String, List<StrutsXmlPackage>> entr : current.files
+				.entrySet()) {
+			if (!newFiles.containsKey(entr.getKey())) {
+				addNames(entr.getValue(), changedNames);
+			}
+		}
+
+		final boolean reordered = !new ArrayList<String>(
+				current.files.keySet()).equals(new ArrayList<String>(updated
+				.keySet()));
+
+		if (reordered || !changedNames.isEmpty()) {
+			ConcurrentMap<String, Closure> closures = new ConcurrentHashMap<String, Closure>();
+			if (!reordered) {
+				for (Entry<String, Closure> entr : current.closures.entrySet()) {
+					if (Collections.disjoint(entr.getValue().names,
+							changedNames)) {
+						closures.put(entr.getKey(), entr.getValue());
+					}
+				}
+			}
+			return new State(updated, closures);
+		}
+		return null;
+	}
+
+	/**
+	 * Gets the package and all packages it extends directly or indirectly.
+	 * Packages with the same name from the different files are all included.
+	 * 
+	 * @param packageName
+	 *            Package name.
+	 * @return Packages in the extends depth first order.
+	 */
+	public List<StrutsXmlPackage> getPackages(final String packageName) {
+		return Collections.unmodifiableList(getClosure(packageName).packages);
+	}
+
+	/**
+	 * @param packageName
+	 *            Package name.
+	 * @return Names of interceptors and interceptor stacks available in the
+	 *         package.
+	 */
+	public Set<String> getInterceptorNames(final String packageName) {
+		return Collections.unmodifiableSet(getClosure(packageName).interceptors
+				.keySet());
+	}
+
+	/**
+	 * @param packageName
+	 *            Package name.
+	 * @return Descriptions of interceptors and interceptor stacks available in
+	 *         the package by name, the nearest declaration wins.
+	 */
+	public Map<String, String> getInterceptors(final String packageName) {
+		return Collections.unmodifiableMap(getClosure(packageName).interceptors);
+	}
+
+	/**
+	 * @param packageName
+	 *            Package name.
+	 * @return Names of result types available in the package.
+	 */
+	public Set<String> getResultTypeNames(final String packageName) {
+		return Collections
+				.unmodifiableSet(getClosure(packageName).resultTypeNames);
+	}
+
+	/**
+	 * @param packageName
+	 *            Package name.
+	 * @return <code>true</code> if package extends itself directly or
+	 *         indirectly, or extends package which does.
+	 */
+	public boolean isCyclic(final String packageName) {
+		return getClosure(packageName).cyclic;
+	}
+
+	// closure is computed in the state it is cached in
+	private Closure getClosure(final String packageName) {
+		final State current = state.get();
+		Closure closure = current.closures.get(packageName);
+		if (closure == null) {
+			closure = new Closure();
+			collect(current, packageName, closure,
+					new HashSet<StrutsXmlPackage>(), new HashSet<String>());
+			for (StrutsXmlPackage p : closure.packages) {
+				for (TagRegion tr : p.getData().getInterceptorRegions()) {
+					String name = tr.getAttrValue(
+							StrutsXmlConstants.NAME_ATTR, null);
+					if (name != null && !closure.interceptors.containsKey(name)) {
+						closure.interceptors.put(name, tr.getName() + " from "
+								+ p.getName() + " package");
+					}
+				}
+				addNameAttrs(p.getData().getResultTypeRegions(),
+						closure.resultTypeNames);
+			}
+			Closure existing = current.closures.putIfAbsent(packageName,
+					closure);
+			if (existing != null) {
+				closure = existing;
+			}
+		}
+		return closure;
+	}
+
+	private void collect(final State current, final String packageName,
+			final Closure closure, final Set<StrutsXmlPackage> visited,
+			final Set<String> path) {
+		closure.names.add(packageName);
+		if (!path.add(packageName)) {
+			closure.cyclic = true;
+			return;
+		}
+		List<StrutsXmlPackage> named = current.packages.get(packageName);
+		if (named != null) {
+			for (StrutsXmlPackage p : named) {
+				if (visited.add(p)) {
+					closure.packages.add(p);
+					for (String ext : p.getData().getExtending()) {
+						collect(current, ext, closure, visited, path);
+					}
+				}
+			}
+		}
+		path.remove(packageName);
+	}
+
+	private static boolean isSameData(final List<StrutsXmlPackage> list1,
+			final List<StrutsXmlPackage> list2) {
+		if (list1.size() != list2.size()) {
+			return false;
+		}
+		for (int i = 0; i < list1.size(); i++) {
+			if (list1.get(i).getData() != list2.get(i).getData()) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	private static void addNames(final List<StrutsXmlPackage> list,
+			final Set<String> names) {
+		if (list != null) {
+			for (StrutsXmlPackage p : list) {
+				names.add(p.getName());
+			}
+		}
+	}
+
+	private static void addNameAttrs(final List<TagRegion> tagRegions,
+			final Set<String> names) {
+		for (TagRegion tr : tagRegions) {
+			String name = tr.getAttrValue(StrutsXmlConstants.NAME_ATTR, null);
+			if (name != null) {
+				names.add(name);
+			}
+		}
+	}
+
+	private static class State {
+		// file key -> packages declared in the file
+		private final Map<String, List<StrutsXmlPackage>> files;
+		// package name -> packages with this name in the files order
+		private final Map<String, List<StrutsXmlPackage>> packages = new HashMap<String, List<StrutsXmlPackage>>();
+		private final ConcurrentMap<String, Closure> closures;
+		private final AtomicReference<Overlay> overlay = new AtomicReference<Overlay>();
+
+		private State(Map<String, List<StrutsXmlPackage>> files,
+				ConcurrentMap<String, Closure> closures) {
+			this.files = files;
+			this.closures = closures;
+			for (List<StrutsXmlPackage> list : files.values()) {
+				for (StrutsXmlPackage p : list) {
+					List<StrutsXmlPackage> named = packages.get(p.getName());
+					if (named == null) {
+						named = new ArrayList<StrutsXmlPackage>();
+						packages.put(p.getName(), named);
+					}
+					named.add(p);
+				}
+			}
+		}
+	}
+
+	private static class Overlay {
+		private final String fileKey;
+		private final List<StrutsXmlPackage> packages;
+		private final StrutsXmlPackageGraph graph;
+
+		private Overlay(String fileKey, List<StrutsXmlPackage> packages,
+				StrutsXmlPackageGraph graph) {
+			this.fileKey = fileKey;
+			this.packages = packages;
+			this.graph = graph;
+		}
+	}
+
+	private static class Closure {
+		private final List<StrutsXmlPackage> packages = new ArrayList<StrutsXmlPackage>();
+		// visited names including the ones which are not declared
+		private final Set<String> names = new HashSet<String>();
+		// interceptor name -> description, in the packages order
+		private final Map<String, String> interceptors = new LinkedHashMap<String, String>();
+		private final Set<String> resultTypeNames = new HashSet<String>();
+		private boolean cyclic;
+	}
+}
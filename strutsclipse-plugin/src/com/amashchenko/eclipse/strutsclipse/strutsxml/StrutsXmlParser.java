@@ -24,21 +24,19 @@ import java.util.Map.Entry;
 import java.util.Set;
 
 import org.eclipse.jface.text.IDocument;
-import org.eclipse.jface.text.IDocumentPartitioner;
 import org.eclipse.jface.text.IRegion;
-import org.eclipse.jface.text.ITypedRegion;
 
-import com.amashchenko.eclipse.strutsclipse.JarEntryStorage;
 import com.amashchenko.eclipse.strutsclipse.ParseUtil;
-import com.amashchenko.eclipse.strutsclipse.ProjectUtil;
-import com.amashchenko.eclipse.strutsclipse.ResourceDocument;
 import com.amashchenko.eclipse.strutsclipse.xmlparser.AbstractXmlParser;
 import com.amashchenko.eclipse.strutsclipse.xmlparser.ElementRegion;
 import com.amashchenko.eclipse.strutsclipse.xmlparser.PackageData;
 import com.amashchenko.eclipse.strutsclipse.xmlparser.TagGroup;
+import com.amashchenko.eclipse.strutsclipse.xmlparser.TagPartition;
+import com.amashchenko.eclipse.strutsclipse.xmlparser.TagPartitioning;
 import com.amashchenko.eclipse.strutsclipse.xmlparser.TagRegion;
 
 public class StrutsXmlParser extends AbstractXmlParser {
+	private static final StrutsXmlParser DEFAULT = new StrutsXmlParser();
 	private static final String[] TAGS = { StrutsXmlConstants.BEAN_TAG,
 			StrutsXmlConstants.CONSTANT_TAG, StrutsXmlConstants.INCLUDE_TAG,
 			StrutsXmlConstants.PACKAGE_TAG,
@@ -54,41 +52,37 @@ public class StrutsXmlParser extends AbstractXmlParser {
 			StrutsXmlConstants.CLASS_ATTR, StrutsXmlConstants.SCOPE_ATTR,
 			StrutsXmlConstants.FILE_ATTR };
 
+	public static StrutsXmlParser getDefault() {
+		return DEFAULT;
+	}
+
 	public TagRegion getTagRegion(final IDocument document, final int offset) {
 		return getTagRegion(document, offset, TAGS, ATTRS);
 	}
 
 	public TagRegion getParentTagRegion(final IDocument document,
 			final int offset, final String parentTagName) {
-		IDocumentPartitioner partitioner = null;
-		try {
-			TagRegion result = null;
-
-			final String closeParentTag = "/" + parentTagName;
+		TagRegion result = null;
 
-			partitioner = createTagPartitioner(document, new String[] {
-					parentTagName, closeParentTag });
+		final String closeParentTag = "/" + parentTagName;
 
-			ITypedRegion tagRegion = partitioner.getPartition(offset);
+		TagPartitioning partitioning = createTagPartitioning(document,
+				new String[] { parentTagName, closeParentTag });
 
-			// get parent
-			tagRegion = partitioner.getPartition(tagRegion.getOffset() - 1);
+		TagPartition tagRegion = partitioning.getPartition(offset);
 
-			if (!IDocument.DEFAULT_CONTENT_TYPE.equals(tagRegion.getType())
-					&& !closeParentTag.equals(tagRegion.getType())) {
-				List<ElementRegion> attrRegions = parseTag(document, tagRegion,
-						ATTRS);
+		// get parent
+		tagRegion = partitioning.getPartition(tagRegion.getOffset() - 1);
 
-				result = new TagRegion(tagRegion.getType(), null, null,
-						attrRegions);
-			}
+		if (!IDocument.DEFAULT_CONTENT_TYPE.equals(tagRegion.getType())
+				&& !closeParentTag.equals(tagRegion.getType())) {
+			List<ElementRegion> attrRegions = parseTag(tagRegion, ATTRS);
 
-			return result;
-		} finally {
-			if (partitioner != null) {
-				partitioner.disconnect();
-			}
+			result = new TagRegion(tagRegion.getType(), null, null,
+					attrRegions);
 		}
+
+		return result;
 	}
 
 	public Set<String> getActionNames(final IDocument document) {
@@ -222,62 +216,55 @@ public class StrutsXmlParser extends AbstractXmlParser {
 	 */
 	public TagRegion getResultTagRegion(final IDocument document,
 			final int offset) {
-		IDocumentPartitioner partitioner = null;
-		try {
-			final String closeResultTag = "/" + StrutsXmlConstants.RESULT_TAG;
-
-			partitioner = createTagPartitioner(document, new String[] {
-					StrutsXmlConstants.RESULT_TAG, closeResultTag });
-
-			ITypedRegion tagRegion = partitioner.getPartition(offset);
-
-			int tagOffset = tagRegion.getOffset();
-			int length = tagRegion.getLength();
-
-			List<ElementRegion> paramTags = findAllTagAttr(document,
-					StrutsXmlConstants.PARAM_TAG, StrutsXmlConstants.NAME_ATTR,
-					true, tagOffset, length);
-
-			// get result type attribute value
-			String resultTypeValue = null;
-			tagRegion = partitioner.getPartition(tagOffset - 1);
-			if (StrutsXmlConstants.RESULT_TAG.equals(tagRegion.getType())) {
-				List<ElementRegion> attrRegions = parseTag(document, tagRegion,
-						new String[] { StrutsXmlConstants.TYPE_ATTR });
-				if (!attrRegions.isEmpty() && attrRegions.get(0) != null) {
-					resultTypeValue = attrRegions.get(0).getValue();
-				}
-			}
+		final String closeResultTag = "/" + StrutsXmlConstants.RESULT_TAG;
 
-			// re-map parameters because name is name attribute value and value
-			// is param tag body
-			List<ElementRegion> list = new ArrayList<ElementRegion>();
-			String paramName = null;
-			String paramValue = null;
-			int paramValueOffset = 0;
-			for (ElementRegion r : paramTags) {
-				if (StrutsXmlConstants.NAME_ATTR.equals(r.getName())) {
-					paramName = r.getValue();
-				} else if (r.getName() == null) {
-					paramValue = r.getValue();
-					paramValueOffset = r.getValueRegion().getOffset();
-				}
+		TagPartitioning partitioning = createTagPartitioning(document,
+				new String[] { StrutsXmlConstants.RESULT_TAG, closeResultTag });
 
-				if (paramName != null && paramValue != null) {
-					list.add(new ElementRegion(paramName, paramValue,
-							paramValueOffset));
+		TagPartition tagRegion = partitioning.getPartition(offset);
 
-					paramName = null;
-					paramValue = null;
-				}
+		int tagOffset = tagRegion.getOffset();
+		int length = tagRegion.getLength();
+
+		List<ElementRegion> paramTags = findAllTagAttr(document,
+				StrutsXmlConstants.PARAM_TAG, StrutsXmlConstants.NAME_ATTR,
+				true, tagOffset, length);
+
+		// get result type attribute value
+		String resultTypeValue = null;
+		tagRegion = partitioning.getPartition(tagOffset - 1);
+		if (StrutsXmlConstants.RESULT_TAG.equals(tagRegion.getType())) {
+			List<ElementRegion> attrRegions = parseTag(tagRegion,
+					new String[] { StrutsXmlConstants.TYPE_ATTR });
+			if (!attrRegions.isEmpty() && attrRegions.get(0) != null) {
+				resultTypeValue = attrRegions.get(0).getValue();
+			}
+		}
+
+		// re-map parameters because name is name attribute value and value
+		// is param tag body
+		List<ElementRegion> list = new ArrayList<ElementRegion>();
+		String paramName = null;
+		String paramValue = null;
+		int paramValueOffset = 0;
+		for (ElementRegion r : paramTags) {
+			if (StrutsXmlConstants.NAME_ATTR.equals(r.getName())) {
+				paramName = r.getValue();
+			} else if (r.getName() == null) {
+				paramValue = r.getValue();
+				paramValueOffset = r.getValueRegion().getOffset();
 			}
 
-			return new TagRegion(resultTypeValue, null, null, list);
-		} finally {
-			if (partitioner != null) {
-				partitioner.disconnect();
+			if (paramName != null && paramValue != null) {
+				list.add(new ElementRegion(paramName, paramValue,
+						paramValueOffset));
+
+				paramName = null;
+				paramValue = null;
 			}
 		}
+
+		return new TagRegion(resultTypeValue, null, null, list);
 	}
 
 	public Map<String, TagGroup> getPackageInterceptorsTagRegions(
@@ -328,93 +315,121 @@ public class StrutsXmlParser extends AbstractXmlParser {
 		return result;
 	}
 
-	public Map<String, String> getConstantsMap(final IDocument document) {
-		IDocumentPartitioner partitioner = null;
-		try {
-			Map<String, String> constants = new HashMap<String, String>();
-
-			final String[] tags = new String[] {
-					StrutsXmlConstants.CONSTANT_TAG, COMMENT_TOKEN };
-
-			// create tag partitioner
-			partitioner = createTagPartitioner(document, tags);
-			// get tags regions
-			ITypedRegion[] tagRegions = partitioner.computePartitioning(0,
-					document.getLength());
-
-			for (ITypedRegion tagRegion : tagRegions) {
-				if (!IDocument.DEFAULT_CONTENT_TYPE.equals(tagRegion.getType())
-						&& !COMMENT_TOKEN.equals(tagRegion.getType())) {
-					List<ElementRegion> attrRegions = parseTag(document,
-							tagRegion, new String[] {
-									StrutsXmlConstants.NAME_ATTR,
-									StrutsXmlConstants.VALUE_ATTR });
-					TagRegion t = new TagRegion(tagRegion.getType(), null,
-							null, attrRegions);
-					constants
-							.put(t.getAttrValue(StrutsXmlConstants.NAME_ATTR,
-									null), t.getAttrValue(
-									StrutsXmlConstants.VALUE_ATTR, null));
-				}
-			}
-			return constants;
-		} finally {
-			if (partitioner != null) {
-				partitioner.disconnect();
-			}
-		}
+	public Set<String> getIncludedFiles(final IDocument document) {
+		return getAttrsValues(document, StrutsXmlConstants.INCLUDE_TAG,
+				StrutsXmlConstants.FILE_ATTR);
 	}
 
 	/**
-	 * Gets all struts xml-s from the project including ones in the jar-s,
-	 * parses them and returns list of package data.
+	 * Gets summary of the names declared in the document.
 	 * 
 	 * @param document
-	 *            Current project document.
-	 * @param fetchResultTypes
-	 *            Whether to fetch result-type or interceptor and
-	 *            interceptor-stack tags.
-	 * @return List of package data.
+	 *            Document to parse.
+	 * @return File data.
 	 */
-	public List<PackageData> getAllStrutsPackagesData(final IDocument document,
-			boolean fetchResultTypes) {
-		List<PackageData> files = new ArrayList<PackageData>();
-		// local
-		List<ResourceDocument> documents = ProjectUtil
-				.findStrutsResources(document);
-		for (ResourceDocument rd : documents) {
-			files.add(new PackageData(rd));
+	public StrutsXmlFileData getFileData(final IDocument document) {
+		Map<String, Set<String>> namespacedActionNames = new HashMap<String, Set<String>>();
+		for (Entry<String, TagGroup> entr : getNamespacedActionTagRegions(
+				document).entrySet()) {
+			namespacedActionNames.put(entr.getKey(),
+					getNameAttrValues(entr.getValue().getTagRegions(), ""));
 		}
-		// jars
-		List<JarEntryStorage> jarStorages = ProjectUtil
-				.findJarEntryStrutsResources(document);
-		for (JarEntryStorage js : jarStorages) {
-			files.add(new PackageData(js));
+
+		List<PackageData> packages = getPackagesData(document);
+		Set<String> interceptorNames = new HashSet<String>();
+		Set<String> resultTypeNames = new HashSet<String>();
+		for (PackageData pd : packages) {
+			interceptorNames.addAll(getNameAttrValues(
+					pd.getInterceptorRegions(), null));
+			resultTypeNames.addAll(getNameAttrValues(pd.getResultTypeRegions(),
+					null));
 		}
 
-		List<PackageData> packages = new ArrayList<PackageData>();
-		for (PackageData pd : files) {
-			Map<String, TagGroup> map;
-			if (fetchResultTypes) {
-				map = getPackageResultTypesTagRegions(pd.getDocument());
-			} else {
-				map = getPackageInterceptorsTagRegions(pd.getDocument());
+		return new StrutsXmlFileData(getPackageNames(document),
+				getPackageNamespaces(document), getActionNames(document),
+				namespacedActionNames, interceptorNames, resultTypeNames,
+				getConstantsMap(document), getIncludedFiles(document), packages);
+	}
+
+	private Set<String> getNameAttrValues(final List<TagRegion> tagRegions,
+			final String defaultValue) {
+		Set<String> names = new HashSet<String>();
+		for (TagRegion tr : tagRegions) {
+			String name = tr.getAttrValue(StrutsXmlConstants.NAME_ATTR,
+					defaultValue);
+			if (name != null) {
+				names.add(name);
 			}
+		}
+		return names;
+	}
+
+	public Map<String, String> getConstantsMap(final IDocument document) {
+		Map<String, String> constants = new HashMap<String, String>();
 
-			for (Entry<String, TagGroup> entr : map.entrySet()) {
-				PackageData p = new PackageData(pd);
-				p.setName(entr.getKey());
+		final String[] tags = new String[] { StrutsXmlConstants.CONSTANT_TAG,
+				COMMENT_TOKEN };
 
-				String extendsValue = entr.getValue().getParentTagRegion()
-						.getAttrValue(StrutsXmlConstants.EXTENDS_ATTR, null);
-				Set<String> extending = ParseUtil.delimitedStringToSet(
-						extendsValue, StrutsXmlConstants.MULTI_VALUE_SEPARATOR);
-				p.setExtending(extending);
+		// create tag partitioning
+		TagPartitioning partitioning = createTagPartitioning(document, tags);
+
+		for (TagPartition tagRegion : partitioning.getTagPartitions()) {
+			if (!COMMENT_TOKEN.equals(tagRegion.getType())) {
+				List<ElementRegion> attrRegions = parseTag(tagRegion,
+						new String[] { StrutsXmlConstants.NAME_ATTR,
+								StrutsXmlConstants.VALUE_ATTR });
+				TagRegion t = new TagRegion(tagRegion.getType(), null, null,
+						attrRegions);
+				constants.put(
+						t.getAttrValue(StrutsXmlConstants.NAME_ATTR, null),
+						t.getAttrValue(StrutsXmlConstants.VALUE_ATTR, null));
+			}
+		}
+		return constants;
+	}
 
-				p.setTagRegions(entr.getValue().getTagRegions());
+	/**
+	 * Gets packages declared in the document with their interceptors,
+	 * interceptor stacks and result types.
+	 * 
+	 * @param document
+	 *            Document to parse.
+	 * @return List of package data in the document order.
+	 */
+	public List<PackageData> getPackagesData(final IDocument document) {
+		Map<String, TagGroup> interceptors = getPackageInterceptorsTagRegions(document);
+		Map<String, TagGroup> resultTypes = getPackageResultTypesTagRegions(document);
 
-				packages.add(p);
+		List<PackageData> packages = new ArrayList<PackageData>();
+		for (TagPartition tagRegion : createTagPartitioning(document,
+				new String[] { StrutsXmlConstants.PACKAGE_TAG, COMMENT_TOKEN })
+				.getTagPartitions()) {
+			if (COMMENT_TOKEN.equals(tagRegion.getType())) {
+				continue;
+			}
+			TagRegion packageRegion = new TagRegion(tagRegion.getType(), null,
+					null, parseTag(tagRegion, new String[] {
+							StrutsXmlConstants.NAME_ATTR,
+							StrutsXmlConstants.EXTENDS_ATTR }));
+			final String name = packageRegion.getAttrValue(
+					StrutsXmlConstants.NAME_ATTR, "");
+
+			TagGroup interceptorsGroup = interceptors.remove(name);
+			TagGroup resultTypesGroup = resultTypes.remove(name);
+			if (interceptorsGroup == null && resultTypesGroup == null) {
+				// not closed or merged into the previous package with this name
+				continue;
 			}
+
+			Set<String> extending = ParseUtil.delimitedStringToSet(
+					packageRegion.getAttrValue(StrutsXmlConstants.EXTENDS_ATTR,
+							null), StrutsXmlConstants.MULTI_VALUE_SEPARATOR);
+
+			packages.add(new PackageData(name, extending,
+					interceptorsGroup == null ? new ArrayList<TagRegion>()
+							: interceptorsGroup.getTagRegions(),
+					resultTypesGroup == null ? new ArrayList<TagRegion>()
+							: resultTypesGroup.getTagRegions()));
 		}
 		return packages;
 	}
@@ -50,7 +50,7 @@ public class StrutsXmlValidator extends AbstractXmlValidator {
 	private final StrutsXmlParser strutsXmlParser;
 
 	public StrutsXmlValidator() {
-		strutsXmlParser = new StrutsXmlParser();
+		strutsXmlParser = StrutsXmlParser.getDefault();
 	}
 
 	@Override
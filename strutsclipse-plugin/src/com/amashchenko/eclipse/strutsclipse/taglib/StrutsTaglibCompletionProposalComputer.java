@@ -15,18 +15,12 @@
  */
 package com.amashchenko.eclipse.strutsclipse.taglib;
 
-import java.io.IOException;
-import java.io.StringReader;
 import java.util.ArrayList;
-import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
-import java.util.PropertyResourceBundle;
-import java.util.ResourceBundle;
 import java.util.Set;
 
-import org.eclipse.core.resources.IProject;
 import org.eclipse.core.runtime.IProgressMonitor;
 import org.eclipse.jdt.ui.text.java.CompletionProposalComparator;
 import org.eclipse.jface.text.IDocument;
@@ -37,27 +31,28 @@ import org.eclipse.wst.sse.ui.contentassist.CompletionProposalInvocationContext;
 import org.eclipse.wst.sse.ui.contentassist.ICompletionProposalComputer;
 
 import com.amashchenko.eclipse.strutsclipse.CompletionProposalHelper;
+import com.amashchenko.eclipse.strutsclipse.CompletionProposalHelper.AdditionalInfoProvider;
 import com.amashchenko.eclipse.strutsclipse.JarEntryStorage;
 import com.amashchenko.eclipse.strutsclipse.ParseUtil;
 import com.amashchenko.eclipse.strutsclipse.ProjectUtil;
-import com.amashchenko.eclipse.strutsclipse.ResourceDocument;
+import com.amashchenko.eclipse.strutsclipse.PropertiesFile;
+import com.amashchenko.eclipse.strutsclipse.PropertiesIndex;
 import com.amashchenko.eclipse.strutsclipse.java.AnnotationParser;
 import com.amashchenko.eclipse.strutsclipse.strutsxml.StrutsXmlConstants;
-import com.amashchenko.eclipse.strutsclipse.strutsxml.StrutsXmlParser;
+import com.amashchenko.eclipse.strutsclipse.strutsxml.StrutsXmlFile;
+import com.amashchenko.eclipse.strutsclipse.strutsxml.StrutsXmlIndex;
 import com.amashchenko.eclipse.strutsclipse.xmlparser.TagRegion;
 
 public class StrutsTaglibCompletionProposalComputer implements
 		ICompletionProposalComputer, StrutsTaglibLocations {
 	private final StrutsTaglibParser strutsTaglibParser;
-	private final StrutsXmlParser strutsXmlParser;
 	private final AnnotationParser annotationParser;
 
 	private final CompletionProposalComparator proposalComparator;
 
 	public StrutsTaglibCompletionProposalComputer() {
-		strutsTaglibParser = new StrutsTaglibParser();
-		strutsXmlParser = new StrutsXmlParser();
-		annotationParser = new AnnotationParser();
+		strutsTaglibParser = StrutsTaglibParser.getDefault();
+		annotationParser = AnnotationParser.getDefault();
 		proposalComparator = new CompletionProposalComparator();
 		proposalComparator.setOrderAlphabetically(true);
 	}
@@ -72,6 +67,7 @@ public class StrutsTaglibCompletionProposalComputer implements
 
 		List<ICompletionProposal> proposals = null;
 		String[][] proposalsData = null;
+		PropertiesKeys propertiesKeys = null;
 
 		IRegion proposalRegion = null;
 		String elementValuePrefix = null;
@@ -124,7 +120,8 @@ public class StrutsTaglibCompletionProposalComputer implements
 								.findJspHtmlFilesPaths(context.getDocument()));
 				break;
 			case TEXT_NAME:
-				proposalsData = computeTextNameProposals(context.getDocument());
+				propertiesKeys = findPropertiesKeys(context.getDocument());
+				proposalsData = propertiesKeys.toProposalsData();
 				break;
 			case StrutsTaglibConstants.THEME_ATTR:
 				List<String[]> list = new ArrayList<String[]>();
@@ -153,13 +150,14 @@ public class StrutsTaglibCompletionProposalComputer implements
 			elementValuePrefix = getTextRegion.getCurrentElementValuePrefix();
 			elementValue = getTextRegion.getCurrentElement().getValue();
 
-			proposalsData = computeTextNameProposals(context.getDocument());
+			propertiesKeys = findPropertiesKeys(context.getDocument());
+			proposalsData = propertiesKeys.toProposalsData();
 		}
 
 		if (proposals == null && proposalsData != null) {
 			proposals = CompletionProposalHelper.createAttrCompletionProposals(
 					proposalsData, elementValuePrefix, proposalRegion, null,
-					elementValue, proposalComparator);
+					elementValue, proposalComparator, propertiesKeys);
 		}
 		if (proposals == null) {
 			proposals = new ArrayList<ICompletionProposal>();
@@ -177,22 +175,11 @@ public class StrutsTaglibCompletionProposalComputer implements
 			namespaces.add(namespaceParamValue);
 		}
 
-		IProject project = ProjectUtil.getCurrentProject(currentDocument);
-		if (project != null && project.exists()) {
-			// find struts resources
-			List<ResourceDocument> resources = ProjectUtil
-					.findStrutsResources(currentDocument);
-
+		for (StrutsXmlFile file : StrutsXmlIndex.getFiles(currentDocument)) {
 			if (namespaceParamValue == null) {
-				for (ResourceDocument rd : resources) {
-					names.addAll(strutsXmlParser.getActionNames(rd
-							.getDocument()));
-				}
+				names.addAll(file.getData().getActionNames());
 			} else {
-				for (ResourceDocument rd : resources) {
-					names.addAll(strutsXmlParser.getActionNames(
-							rd.getDocument(), namespaces));
-				}
+				names.addAll(file.getData().getActionNames(namespaces));
 			}
 		}
 
@@ -203,80 +190,72 @@ public class StrutsTaglibCompletionProposalComputer implements
 			final IDocument currentDocument) {
 		Set<String> namespaces = new HashSet<String>();
 
-		IProject project = ProjectUtil.getCurrentProject(currentDocument);
-		if (project != null && project.exists()) {
-			// find struts resources
-			List<ResourceDocument> resources = ProjectUtil
-					.findStrutsResources(currentDocument);
-			for (ResourceDocument rd : resources) {
-				namespaces.addAll(strutsXmlParser.getPackageNamespaces(rd
-						.getDocument()));
-			}
+		for (StrutsXmlFile file : StrutsXmlIndex.getFiles(currentDocument)) {
+			namespaces.addAll(file.getData().getPackageNamespaces());
 		}
 
 		return namespaces;
 	}
 
-	private String[][] computeTextNameProposals(final IDocument document) {
+	private PropertiesKeys findPropertiesKeys(final IDocument document) {
 		Set<String> bundleNames = new HashSet<String>();
-		List<ResourceDocument> strutsResources = ProjectUtil
-				.findStrutsResources(document);
-		for (ResourceDocument rd : strutsResources) {
-			Map<String, String> constants = strutsXmlParser.getConstantsMap(rd
-					.getDocument());
+		for (StrutsXmlFile file : StrutsXmlIndex.getFiles(document)) {
+			Map<String, String> constants = file.getData().getConstants();
 			bundleNames
 					.addAll(ParseUtil.delimitedStringToSet(constants
 							.get(StrutsXmlConstants.CONSTANT_CUSTOM_RESOURCES),
 							StrutsXmlConstants.MULTI_VALUE_SEPARATOR));
 		}
-		return CompletionProposalHelper.proposalDataFromMap(findPropertiesKeys(
-				document, bundleNames));
-	}
 
-	private Map<String, String> findPropertiesKeys(IDocument currentDocument,
-			Set<String> bundleNames) {
-		Map<String, String> map = new HashMap<String, String>();
+		PropertiesKeys keys = new PropertiesKeys();
 
 		// local
-		List<ResourceDocument> resources = ProjectUtil.findPropertiesResources(
-				currentDocument, bundleNames);
-		for (ResourceDocument rd : resources) {
-			try {
-				ResourceBundle bundle = new PropertyResourceBundle(
-						new StringReader(rd.getDocument().get()));
-				fillMap(map, rd.getRelativePath(), bundle);
-			} catch (IOException e) {
-				e.printStackTrace();
-			}
+		for (PropertiesFile file : PropertiesIndex.getFiles(
+				ProjectUtil.getCurrentProject(document), bundleNames)) {
+			keys.add(file.getRelativePath(), file.getProperties());
 		}
 
 		// jars
 		List<JarEntryStorage> jarStorages = ProjectUtil
-				.findJarEntryPropertyResources(currentDocument, bundleNames);
+				.findJarEntryPropertyResources(document, bundleNames);
 		for (JarEntryStorage jarStorage : jarStorages) {
-			try {
-				ResourceBundle bundle = new PropertyResourceBundle(
-						jarStorage.getContents());
-				fillMap(map, jarStorage.getFullPath().toString(), bundle);
-			} catch (Exception e) {
-				e.printStackTrace();
-			}
+			keys.add(jarStorage.getFullPath().toString(),
+					ProjectUtil.getJarEntryProperties(jarStorage));
 		}
 
-		return map;
+		return keys;
 	}
 
-	private void fillMap(Map<String, String> map, String path,
-			ResourceBundle bundle) {
-		if (bundle != null) {
-			Set<String> keys = bundle.keySet();
-			for (String k : keys) {
-				if (!map.containsKey(k)) {
-					map.put(k, "");
+	/**
+	 * Keys of the properties files. Additional info of the key is rendered
+	 * only for the displayed proposal.
+	 */
+	private static class PropertiesKeys implements AdditionalInfoProvider {
+		private final List<String> paths = new ArrayList<String>();
+		private final List<Map<String, String>> properties = new ArrayList<Map<String, String>>();
+		private final Set<String> keys = new HashSet<String>();
+
+		private void add(String path, Map<String, String> props) {
+			paths.add(path);
+			properties.add(props);
+			keys.addAll(props.keySet());
+		}
+
+		private String[][] toProposalsData() {
+			return CompletionProposalHelper.proposalDataFromSet(keys);
+		}
+
+		@Override
+		public String getAdditionalInfo(String key) {
+			StringBuilder sb = new StringBuilder();
+			for (int i = 0; i < paths.size(); i++) {
+				String value = properties.get(i).get(key);
+				if (value != null) {
+					sb.append(paths.get(i)).append(":<br/>").append(value)
+							.append("<br/><br/>");
 				}
-				map.put(k, map.get(k) + path + ":<br/>" + bundle.getString(k)
-						+ "<br/><br/>");
 			}
+			return sb.toString();
 		}
 	}
 
@@ -21,8 +21,6 @@ import java.util.List;
 import java.util.Map;
 import java.util.Set;
 
-import org.eclipse.core.resources.IFile;
-import org.eclipse.core.resources.IResource;
 import org.eclipse.jdt.core.IJavaElement;
 import org.eclipse.jface.text.IDocument;
 import org.eclipse.jface.text.IRegion;
@@ -33,10 +31,13 @@ import com.amashchenko.eclipse.strutsclipse.AbstractStrutsHyperlinkDetector;
 import com.amashchenko.eclipse.strutsclipse.JarEntryStorage;
 import com.amashchenko.eclipse.strutsclipse.ParseUtil;
 import com.amashchenko.eclipse.strutsclipse.ProjectUtil;
+import com.amashchenko.eclipse.strutsclipse.PropertiesFile;
+import com.amashchenko.eclipse.strutsclipse.PropertiesIndex;
 import com.amashchenko.eclipse.strutsclipse.PropertiesParser;
-import com.amashchenko.eclipse.strutsclipse.ResourceDocument;
 import com.amashchenko.eclipse.strutsclipse.java.AnnotationParser;
 import com.amashchenko.eclipse.strutsclipse.strutsxml.StrutsXmlConstants;
+import com.amashchenko.eclipse.strutsclipse.strutsxml.StrutsXmlFile;
+import com.amashchenko.eclipse.strutsclipse.strutsxml.StrutsXmlIndex;
 import com.amashchenko.eclipse.strutsclipse.strutsxml.StrutsXmlParser;
 import com.amashchenko.eclipse.strutsclipse.xmlparser.TagRegion;
 
@@ -48,10 +49,10 @@ public class StrutsTaglibHyperlinkDetector extends
 	private final AnnotationParser annotationParser;
 
 	public StrutsTaglibHyperlinkDetector() {
-		strutsTaglibParser = new StrutsTaglibParser();
-		strutsXmlParser = new StrutsXmlParser();
-		propertiesParser = new PropertiesParser();
-		annotationParser = new AnnotationParser();
+		strutsTaglibParser = StrutsTaglibParser.getDefault();
+		strutsXmlParser = StrutsXmlParser.getDefault();
+		propertiesParser = PropertiesParser.getDefault();
+		annotationParser = AnnotationParser.getDefault();
 	}
 
 	@Override
@@ -116,33 +117,36 @@ public class StrutsTaglibHyperlinkDetector extends
 		}
 
 		// find struts resources
-		List<ResourceDocument> resources = ProjectUtil
-				.findStrutsResources(document);
+		List<StrutsXmlFile> files = StrutsXmlIndex.getFiles(document);
 
 		if (namespaceParamValue == null) {
-			for (ResourceDocument rd : resources) {
+			for (StrutsXmlFile file : files) {
+				// parse only files declaring such action
+				if (!file.getData().getActionNames().contains(elementValue)) {
+					continue;
+				}
 				List<IRegion> regions = strutsXmlParser.getActionRegions(
-						rd.getDocument(), elementValue);
+						file.getDocument(), elementValue);
 				if (regions != null) {
 					for (IRegion region : regions) {
-						if (rd.getResource().getType() == IResource.FILE
-								&& rd.getResource().exists()) {
-							links.add(new FileHyperlink(elementRegion,
-									(IFile) rd.getResource(), region));
+						if (file.getFile().exists()) {
+							links.add(new FileHyperlink(elementRegion, file
+									.getFile(), region));
 						}
 					}
 				}
 			}
 		} else {
-			for (ResourceDocument rd : resources) {
+			for (StrutsXmlFile file : files) {
+				if (!file.getData().getActionNames(namespaces)
+						.contains(elementValue)) {
+					continue;
+				}
 				IRegion region = strutsXmlParser.getActionRegion(
-						rd.getDocument(), namespaces, elementValue);
-				if (region != null) {
-					if (rd.getResource().getType() == IResource.FILE
-							&& rd.getResource().exists()) {
-						links.add(new FileHyperlink(elementRegion, (IFile) rd
-								.getResource(), region));
-					}
+						file.getDocument(), namespaces, elementValue);
+				if (region != null && file.getFile().exists()) {
+					links.add(new FileHyperlink(elementRegion, file.getFile(),
+							region));
 				}
 			}
 		}
@@ -171,11 +175,8 @@ public class StrutsTaglibHyperlinkDetector extends
 
 		// get bundle names
 		Set<String> bundleNames = new HashSet<String>();
-		List<ResourceDocument> strutsResources = ProjectUtil
-				.findStrutsResources(document);
-		for (ResourceDocument rd : strutsResources) {
-			Map<String, String> constants = strutsXmlParser.getConstantsMap(rd
-					.getDocument());
+		for (StrutsXmlFile file : StrutsXmlIndex.getFiles(document)) {
+			Map<String, String> constants = file.getData().getConstants();
 			bundleNames
 					.addAll(ParseUtil.delimitedStringToSet(constants
 							.get(StrutsXmlConstants.CONSTANT_CUSTOM_RESOURCES),
@@ -183,17 +184,21 @@ public class StrutsTaglibHyperlinkDetector extends
 		}
 
 		// local
-		List<ResourceDocument> resources = ProjectUtil.findPropertiesResources(
-				document, bundleNames);
-		for (ResourceDocument rd : resources) {
-			IRegion keyRegion = propertiesParser.getKeyRegion(rd.getDocument(),
+		for (PropertiesFile file : PropertiesIndex.getFiles(
+				ProjectUtil.getCurrentProject(document), bundleNames)) {
+			// read document only if the file has the key
+			if (!file.getProperties().containsKey(elementValue)) {
+				continue;
+			}
+			IDocument fileDocument = ProjectUtil.loadDocument(file.getFile());
+			if (fileDocument == null) {
+				continue;
+			}
+			IRegion keyRegion = propertiesParser.getKeyRegion(fileDocument,
 					elementValue);
-			if (keyRegion != null) {
-				if (rd.getResource().getType() == IResource.FILE
-						&& rd.getResource().exists()) {
-					links.add(new FileHyperlink(elementRegion, (IFile) rd
-							.getResource(), keyRegion));
-				}
+			if (keyRegion != null && file.getFile().exists()) {
+				links.add(new FileHyperlink(elementRegion, file.getFile(),
+						keyRegion));
 			}
 		}
 
@@ -201,6 +206,11 @@ public class StrutsTaglibHyperlinkDetector extends
 		List<JarEntryStorage> jarStorages = ProjectUtil
 				.findJarEntryPropertyResources(document, bundleNames);
 		for (JarEntryStorage jarStorage : jarStorages) {
+			// read document only if the jar has the key
+			if (!ProjectUtil.getJarEntryProperties(jarStorage).containsKey(
+					elementValue)) {
+				continue;
+			}
 			IRegion keyRegion = propertiesParser.getKeyRegion(
 					jarStorage.toDocument(), elementValue);
 			if (keyRegion != null) {
@@ -17,19 +17,16 @@ package com.amashchenko.eclipse.strutsclipse.taglib;
 
 import org.eclipse.jface.text.BadLocationException;
 import org.eclipse.jface.text.IDocument;
-import org.eclipse.jface.text.IDocumentPartitioner;
+import org.eclipse.jface.text.IRegion;
 import org.eclipse.jface.text.ITypedRegion;
-import org.eclipse.jface.text.rules.FastPartitioner;
-import org.eclipse.jface.text.rules.IPredicateRule;
-import org.eclipse.jface.text.rules.RuleBasedPartitionScanner;
-import org.eclipse.jface.text.rules.SingleLineRule;
-import org.eclipse.jface.text.rules.Token;
+import org.eclipse.jface.text.TypedRegion;
 
 import com.amashchenko.eclipse.strutsclipse.xmlparser.AbstractXmlParser;
 import com.amashchenko.eclipse.strutsclipse.xmlparser.ElementRegion;
 import com.amashchenko.eclipse.strutsclipse.xmlparser.TagRegion;
 
 public class StrutsTaglibParser extends AbstractXmlParser {
+	private static final StrutsTaglibParser DEFAULT = new StrutsTaglibParser();
 	// action tag must be before link (a) tag
 	private static final String[] TAGS = { StrutsTaglibConstants.URL_TAG,
 			StrutsTaglibConstants.FORM_TAG, StrutsTaglibConstants.ACTION_TAG,
@@ -45,49 +42,45 @@ public class StrutsTaglibParser extends AbstractXmlParser {
 	private static final String GET_TEXT_TOKEN = "getText_token";
 	private static final String GET_TEXT_ESCAPED_TOKEN = "getText_escaped_token";
 
+	// start sequence, end sequence and type, in the matching order
+	private static final String[][] GET_TEXT_SEQUENCES = {
+			{ "getText('", "')", GET_TEXT_TOKEN },
+			{ "getText(\"", "\")", GET_TEXT_TOKEN },
+			{ "getText(\\\"", "\\\")", GET_TEXT_ESCAPED_TOKEN } };
+
+	public static StrutsTaglibParser getDefault() {
+		return DEFAULT;
+	}
+
 	public TagRegion getTagRegion(final IDocument document, final int offset) {
 		return getTagRegion(document, offset, TAGS, ATTRS);
 	}
 
 	public TagRegion getGetTextRegion(final IDocument document, final int offset) {
-		IDocumentPartitioner partitioner = null;
+		TagRegion result = null;
 		try {
-			TagRegion result = null;
-
-			IPredicateRule[] rules = new IPredicateRule[3];
-			rules[0] = new SingleLineRule("getText('", "')", new Token(
-					GET_TEXT_TOKEN));
-			rules[1] = new SingleLineRule("getText(\"", "\")", new Token(
-					GET_TEXT_TOKEN));
-			rules[2] = new SingleLineRule("getText(\\\"", "\\\")", new Token(
-					GET_TEXT_ESCAPED_TOKEN));
+			// getText calls do not span lines
+			IRegion line = document.getLineInformationOfOffset(offset);
+			ITypedRegion tagRegion = findGetTextRegion(
+					document.get(line.getOffset(), line.getLength()),
+					line.getOffset(), offset);
 
-			RuleBasedPartitionScanner scanner = new RuleBasedPartitionScanner();
-			scanner.setPredicateRules(rules);
-			partitioner = new FastPartitioner(scanner, new String[] {
-					GET_TEXT_TOKEN, GET_TEXT_ESCAPED_TOKEN });
-			partitioner.connect(document);
-
-			ITypedRegion tagRegion = partitioner.getPartition(offset);
-
-			final int textOffset;
-			final int textLength;
-			if (GET_TEXT_ESCAPED_TOKEN.equals(tagRegion.getType())) {
-				textOffset = tagRegion.getOffset() + 10;
-				textLength = tagRegion.getLength() - 13;
-			} else {
-				textOffset = tagRegion.getOffset() + 9;
-				textLength = tagRegion.getLength() - 11;
-			}
+			if (tagRegion != null) {
+				final int textOffset;
+				final int textLength;
+				if (GET_TEXT_ESCAPED_TOKEN.equals(tagRegion.getType())) {
+					textOffset = tagRegion.getOffset() + 10;
+					textLength = tagRegion.getLength() - 13;
+				} else {
+					textOffset = tagRegion.getOffset() + 9;
+					textLength = tagRegion.getLength() - 11;
+				}
 
-			// getText and inside quotes
-			if ((GET_TEXT_TOKEN.equals(tagRegion.getType()) || GET_TEXT_ESCAPED_TOKEN
-					.equals(tagRegion.getType()))
-					&& offset >= textOffset
-					&& offset < tagRegion.getOffset() + tagRegion.getLength()
-							- 1) {
-				final int prefixOffset = offset - textOffset;
-				try {
+				// inside quotes
+				if (offset >= textOffset
+						&& offset < tagRegion.getOffset()
+								+ tagRegion.getLength() - 1) {
+					final int prefixOffset = offset - textOffset;
 					String value = document.get(textOffset, textLength);
 					String prefix = "";
 					if (!value.isEmpty() && prefixOffset > 0
@@ -97,15 +90,54 @@ public class StrutsTaglibParser extends AbstractXmlParser {
 
 					result = new TagRegion("", new ElementRegion("", value,
 							textOffset), prefix, null);
-				} catch (BadLocationException e) {
-					e.printStackTrace();
 				}
 			}
-			return result;
-		} finally {
-			if (partitioner != null) {
-				partitioner.disconnect();
+		} catch (BadLocationException e) {
+			e.printStackTrace();
+		}
+		return result;
+	}
+
+	/**
+	 * Scans the line from its start the same way as the rule based scanner
+	 * does: at each position start sequences are tried in order and matched
+	 * call is skipped as a whole.
+	 * 
+	 * @param line
+	 *            Line text.
+	 * @param lineOffset
+	 *            Document offset of the line.
+	 * @param offset
+	 *            Document offset to find the call at.
+	 * @return Region of the whole getText call containing offset or
+	 *         <code>null</code>.
+	 */
+	private ITypedRegion findGetTextRegion(final String line,
+			final int lineOffset, final int offset) {
+		final int target = offset - lineOffset;
+		int i = 0;
+		while (i <= target && i < line.length()) {
+			int end = -1;
+			String type = null;
+			for (int r = 0; r < GET_TEXT_SEQUENCES.length && end == -1; r++) {
+				final String startSeq = GET_TEXT_SEQUENCES[r][0];
+				if (line.startsWith(startSeq, i)) {
+					final String endSeq = GET_TEXT_SEQUENCES[r][1];
+					end = line.indexOf(endSeq, i + startSeq.length());
+					if (end != -1) {
+						end += endSeq.length();
+						type = GET_TEXT_SEQUENCES[r][2];
+					}
+				}
+			}
+			if (end == -1) {
+				i++;
+			} else if (end > target) {
+				return new TypedRegion(lineOffset + i, end - i, type);
+			} else {
+				i = end;
 			}
 		}
+		return null;
 	}
 }
@@ -26,6 +26,7 @@ import com.amashchenko.eclipse.strutsclipse.xmlparser.ElementRegion;
 import com.amashchenko.eclipse.strutsclipse.xmlparser.TagRegion;
 
 public class TilesXmlParser extends AbstractXmlParser {
+	private static final TilesXmlParser DEFAULT = new TilesXmlParser();
 	private static final String[] TAGS = { TilesXmlConstants.DEFINITION_TAG,
 			TilesXmlConstants.PUT_ATTRIBUTE_TAG, CLOSE_TAG_TOKEN };
 
@@ -33,6 +34,10 @@ public class TilesXmlParser extends AbstractXmlParser {
 			TilesXmlConstants.TEMPLATE_ATTR, TilesXmlConstants.NAME_ATTR,
 			TilesXmlConstants.VALUE_ATTR };
 
+	public static TilesXmlParser getDefault() {
+		return DEFAULT;
+	}
+
 	public Set<String> getDefinitionNames(final IDocument document) {
 		return getAttrsValues(document, TilesXmlConstants.DEFINITION_TAG,
 				TilesXmlConstants.NAME_ATTR);
@@ -16,11 +16,14 @@
 package com.amashchenko.eclipse.strutsclipse.validators;
 
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Set;
 
 import org.eclipse.core.runtime.IProgressMonitor;
 import org.eclipse.jdt.ui.text.java.CompletionProposalComparator;
+import org.eclipse.jface.text.IDocument;
 import org.eclipse.jface.text.IRegion;
 import org.eclipse.jface.text.contentassist.ICompletionProposal;
 import org.eclipse.jface.text.contentassist.IContextInformation;
@@ -28,6 +31,7 @@ import org.eclipse.wst.sse.ui.contentassist.CompletionProposalInvocationContext;
 import org.eclipse.wst.sse.ui.contentassist.ICompletionProposalComputer;
 
 import com.amashchenko.eclipse.strutsclipse.CompletionProposalHelper;
+import com.amashchenko.eclipse.strutsclipse.JarData;
 import com.amashchenko.eclipse.strutsclipse.JarEntryStorage;
 import com.amashchenko.eclipse.strutsclipse.ProjectUtil;
 import com.amashchenko.eclipse.strutsclipse.ResourceDocument;
@@ -35,12 +39,14 @@ import com.amashchenko.eclipse.strutsclipse.xmlparser.TagRegion;
 
 public class StrutsValidatorsXmlCompletionProposalComputer implements
 		ICompletionProposalComputer, StrutsValidatorsXmlLocations {
+	private static final String VALIDATORS_JAR_DATA_KEY = "validators:";
+
 	private final StrutsValidatorsXmlParser strutsValidatorsXmlParser;
 
 	private final CompletionProposalComparator proposalComparator;
 
 	public StrutsValidatorsXmlCompletionProposalComputer() {
-		strutsValidatorsXmlParser = new StrutsValidatorsXmlParser();
+		strutsValidatorsXmlParser = StrutsValidatorsXmlParser.getDefault();
 		proposalComparator = new CompletionProposalComparator();
 		proposalComparator.setOrderAlphabetically(true);
 	}
@@ -77,8 +83,7 @@ public class StrutsValidatorsXmlCompletionProposalComputer implements
 						.findJarEntryStrutsDefaultValidatorResource(context
 								.getDocument());
 				if (defaultValidors != null) {
-					Set<String> names = strutsValidatorsXmlParser
-							.getValidatorsNames(defaultValidors.toDocument());
+					Set<String> names = getDefaultValidatorsNames(defaultValidors);
 					for (String s : names) {
 						list.add(new String[] {
 								s,
@@ -122,6 +127,30 @@ public class StrutsValidatorsXmlCompletionProposalComputer implements
 		return proposals;
 	}
 
+	// default validators are parsed once for all copies of the jar
+	private Set<String> getDefaultValidatorsNames(
+			final JarEntryStorage defaultValidators) {
+		JarData.Loader<Set<String>> loader = new JarData.Loader<Set<String>>() {
+			@Override
+			public Set<String> load() {
+				Set<String> names = new HashSet<String>();
+				IDocument document = defaultValidators.toDocument();
+				if (document != null) {
+					names.addAll(strutsValidatorsXmlParser
+							.getValidatorsNames(document));
+				}
+				return Collections.unmodifiableSet(names);
+			}
+		};
+
+		if (defaultValidators.getJarData() == null) {
+			return loader.load();
+		}
+		return defaultValidators.getJarData().get(
+				VALIDATORS_JAR_DATA_KEY + defaultValidators.getEntryPath(),
+				loader);
+	}
+
 	@Override
 	public List<IContextInformation> computeContextInformation(
 			CompletionProposalInvocationContext context,
@@ -23,12 +23,17 @@ import com.amashchenko.eclipse.strutsclipse.xmlparser.AbstractXmlParser;
 import com.amashchenko.eclipse.strutsclipse.xmlparser.TagRegion;
 
 public class StrutsValidatorsXmlParser extends AbstractXmlParser {
+	private static final StrutsValidatorsXmlParser DEFAULT = new StrutsValidatorsXmlParser();
 	private static final String[] TAGS = {
 			StrutsValidatorsXmlConstants.FIELD_VALIDATOR_TAG,
 			StrutsValidatorsXmlConstants.VALIDATOR_TAG, CLOSE_TAG_TOKEN };
 
 	private static final String[] ATTRS = { StrutsValidatorsXmlConstants.TYPE_ATTR };
 
+	public static StrutsValidatorsXmlParser getDefault() {
+		return DEFAULT;
+	}
+
 	public TagRegion getTagRegion(final IDocument document, final int offset) {
 		return getTagRegion(document, offset, TAGS, ATTRS);
 	}
@@ -25,122 +25,73 @@ import java.util.Set;
 
 import org.eclipse.jface.text.BadLocationException;
 import org.eclipse.jface.text.IDocument;
-import org.eclipse.jface.text.IDocumentPartitioner;
-import org.eclipse.jface.text.ITypedRegion;
-import org.eclipse.jface.text.rules.FastPartitioner;
-import org.eclipse.jface.text.rules.IPredicateRule;
-import org.eclipse.jface.text.rules.IWordDetector;
-import org.eclipse.jface.text.rules.MultiLineRule;
-import org.eclipse.jface.text.rules.RuleBasedPartitionScanner;
-import org.eclipse.jface.text.rules.SingleLineRule;
-import org.eclipse.jface.text.rules.Token;
-import org.eclipse.jface.text.rules.WordPatternRule;
+import org.eclipse.jface.text.IRegion;
 
+/**
+ * Base of the XML parsers. Parsers keep no state between the calls, documents
+ * are read through the shared {@link XmlModelCache}, so single parser instance
+ * can be used by many threads at once.
+ */
 public abstract class AbstractXmlParser {
 	public static final String CLOSE_TAG_TOKEN = "close_tag_token";
 	public static final String COMMENT_TOKEN = "comment_token";
 
-	private static final String DOUBLE_QUOTES_TOKEN = "double_quotes_token";
-	private static final String SINGLE_QUOTES_TOKEN = "single_quotes_token";
-
 	private static final String DOCTYPE = "!DOCTYPE";
 	private static final String DOCTYPE_LOWER_CASE = "!doctype";
 
 	protected TagRegion getTagRegion(final IDocument document,
 			final int offset, final String[] tags, final String[] attrs) {
-		IDocumentPartitioner partitioner = null;
-		try {
-			TagRegion result = null;
-
-			// create tag partitioner
-			partitioner = createTagPartitioner(document, tags);
-
-			ITypedRegion tagRegion = partitioner.getPartition(offset);
-
-			ElementRegion currentElement = null;
-			String elementValuePrefix = null;
-
-			// check if offset is between start and end tags
-			int bodyOffset = -1;
-			int bodyLength = -1;
-			if (IDocument.DEFAULT_CONTENT_TYPE.equals(tagRegion.getType())) {
-				ITypedRegion nextRegion = partitioner.getPartition(tagRegion
-						.getOffset() + tagRegion.getLength());
-				if (CLOSE_TAG_TOKEN.equals(nextRegion.getType())) {
-					bodyOffset = tagRegion.getOffset();
-					bodyLength = tagRegion.getLength();
-				}
-			} else if (CLOSE_TAG_TOKEN.equals(tagRegion.getType())
-					&& tagRegion.getOffset() == offset) {
-				ITypedRegion prevRegion = partitioner.getPartition(tagRegion
-						.getOffset() - 1);
-				if (IDocument.DEFAULT_CONTENT_TYPE.equals(prevRegion.getType())) {
-					bodyOffset = prevRegion.getOffset();
-					bodyLength = prevRegion.getLength();
-				} else {
-					bodyOffset = tagRegion.getOffset();
-				}
+		TagRegion result = null;
+
+		// create tag partitioning
+		TagPartitioning partitioning = createTagPartitioning(document, tags);
+
+		TagLocation location = partitioning.getLocation(offset);
+		TagPartition tagRegion = location.getTag();
+
+		ElementRegion currentElement = null;
+		String elementValuePrefix = null;
+
+		// check if offset is between start and end tags
+		IRegion body = location.getBody();
+		if (body != null) {
+			try {
+				currentElement = new ElementRegion(null, document.get(
+						body.getOffset(), body.getLength()), body.getOffset());
+				elementValuePrefix = document.get(body.getOffset(), offset
+						- body.getOffset());
+			} catch (BadLocationException e) {
+				e.printStackTrace();
 			}
-			if (bodyOffset != -1) {
-				if (bodyLength == -1) {
-					currentElement = new ElementRegion(null, "",
-							tagRegion.getOffset());
-					elementValuePrefix = "";
-				} else {
-					try {
-						currentElement = new ElementRegion(null, document.get(
-								bodyOffset, bodyLength), bodyOffset);
-						elementValuePrefix = document.get(bodyOffset, offset
-								- bodyOffset);
-					} catch (BadLocationException e) {
-						e.printStackTrace();
-					}
-				}
+		}
 
-				// get start tag of current tag body
-				tagRegion = partitioner.getPartition(bodyOffset - 1);
-			}
+		if (tagRegion != null
+				&& !IDocument.DEFAULT_CONTENT_TYPE.equals(tagRegion.getType())
+				&& !CLOSE_TAG_TOKEN.equals(tagRegion.getType())) {
+			List<ElementRegion> attrRegions = parseTag(tagRegion, attrs);
 
-			if (!IDocument.DEFAULT_CONTENT_TYPE.equals(tagRegion.getType())
-					&& !CLOSE_TAG_TOKEN.equals(tagRegion.getType())) {
-				List<ElementRegion> attrRegions = parseTag(document, tagRegion,
-						attrs);
+			// if not in tag body, current attribute
+			if (currentElement == null && tagRegion.getToken() != null) {
+				ElementRegion r = tagRegion.getToken().getAttrAt(offset);
+				if (r != null && attrRegions.contains(r)) {
+					try {
+						final int valDocOffset = r.getValueRegion().getOffset();
+						currentElement = r;
 
-				// all attributes
-				if (attrRegions != null) {
-					for (ElementRegion r : attrRegions) {
-						try {
-							final int valDocOffset = r.getValueRegion()
-									.getOffset();
-
-							// if not in tag body and current attribute
-							if (currentElement == null
-									&& valDocOffset - 1 <= offset
-									&& valDocOffset
-											+ r.getValueRegion().getLength()
-											+ 1 > offset) {
-								currentElement = r;
-
-								// attribute value to invocation offset
-								elementValuePrefix = document.get(valDocOffset,
-										offset - valDocOffset);
-							}
-						} catch (BadLocationException e) {
-							e.printStackTrace();
-						}
+						// attribute value to invocation offset
+						elementValuePrefix = document.get(valDocOffset, offset
+								- valDocOffset);
+					} catch (BadLocationException e) {
+						e.printStackTrace();
 					}
 				}
-
-				result = new TagRegion(tagRegion.getType(), currentElement,
-						elementValuePrefix, attrRegions);
 			}
 
-			return result;
-		} finally {
-			if (partitioner != null) {
-				partitioner.disconnect();
-			}
+			result = new TagRegion(tagRegion.getType(), currentElement,
+					elementValuePrefix, attrRegions);
 		}
+
+		return result;
 	}
 
 	/**
@@ -168,209 +119,100 @@ public abstract class AbstractXmlParser {
 
 	protected List<ElementRegion> findAllTagAttr(IDocument document,
 			String tag, String attr, boolean fetchBody, int offset, int length) {
-		IDocumentPartitioner partitioner = null;
-		try {
-			List<ElementRegion> attrRegions = new ArrayList<ElementRegion>();
+		List<ElementRegion> attrRegions = new ArrayList<ElementRegion>();
 
-			final String closeTag = "/" + tag;
+		final String closeTag = "/" + tag;
 
-			final String[] tags;
-			if (fetchBody) {
-				tags = new String[] { tag, COMMENT_TOKEN, closeTag };
-			} else {
-				tags = new String[] { tag, COMMENT_TOKEN };
-			}
+		final String[] tags;
+		if (fetchBody) {
+			tags = new String[] { tag, COMMENT_TOKEN, closeTag };
+		} else {
+			tags = new String[] { tag, COMMENT_TOKEN };
+		}
+
+		// create tag partitioning
+		TagPartitioning partitioning = createTagPartitioning(document, tags);
+		// get tags regions
+		List<TagPartition> tagRegions = partitioning.getTagPartitions(offset,
+				length);
+
+		final String[] attrs = new String[] { attr };
 
-			// create tag partitioner
-			partitioner = createTagPartitioner(document, tags);
-			// get tags regions
-			ITypedRegion[] tagRegions = partitioner.computePartitioning(offset,
-					length);
-
-			// create attribute partitioner
-			partitioner = createAttrPartitioner(document, new String[] { attr });
-
-			int bodyOffset = -1;
-			for (ITypedRegion tagRegion : tagRegions) {
-				if (!IDocument.DEFAULT_CONTENT_TYPE.equals(tagRegion.getType())
-						&& !COMMENT_TOKEN.equals(tagRegion.getType())) {
-					if (closeTag.equals(tagRegion.getType())) {
-						if (bodyOffset != -1) {
-							try {
-								ElementRegion region = new ElementRegion(null,
-										document.get(bodyOffset,
-												tagRegion.getOffset()
-														- bodyOffset),
-										bodyOffset);
-								attrRegions.add(region);
-							} catch (BadLocationException e) {
-								e.printStackTrace();
-							}
-							bodyOffset = -1;
+		int bodyOffset = -1;
+		for (TagPartition tagRegion : tagRegions) {
+			if (!COMMENT_TOKEN.equals(tagRegion.getType())) {
+				if (closeTag.equals(tagRegion.getType())) {
+					if (bodyOffset != -1) {
+						try {
+							ElementRegion region = new ElementRegion(null,
+									document.get(bodyOffset,
+											tagRegion.getOffset() - bodyOffset),
+									bodyOffset);
+							attrRegions.add(region);
+						} catch (BadLocationException e) {
+							e.printStackTrace();
 						}
-					} else {
-						ITypedRegion[] regions = partitioner
-								.computePartitioning(tagRegion.getOffset(),
-										tagRegion.getLength());
-						attrRegions
-								.addAll(fetchAttrsRegions(document, regions));
-						bodyOffset = tagRegion.getOffset()
-								+ tagRegion.getLength();
+						bodyOffset = -1;
 					}
+				} else {
+					attrRegions.addAll(parseTag(tagRegion, attrs));
+					bodyOffset = tagRegion.getOffset() + tagRegion.getLength();
 				}
 			}
-			return attrRegions;
-		} finally {
-			if (partitioner != null) {
-				partitioner.disconnect();
-			}
 		}
+		return attrRegions;
 	}
 
 	protected ElementRegion findTagAttrByValue(IDocument document, String tag,
 			String attr, String attrValue) {
-		return findTagAttrByValue(document, tag, attr, attrValue, 0,
-				document.getLength());
-	}
-
-	private ElementRegion findTagAttrByValue(IDocument document, String tag,
-			String attr, String attrValue, int offset, int length) {
-		IDocumentPartitioner partitioner = null;
-		try {
-			ElementRegion attrRegion = null;
-
-			// create tag partitioner
-			partitioner = createTagPartitioner(document, new String[] { tag });
-			// get tags regions
-			ITypedRegion[] tagRegions = partitioner.computePartitioning(offset,
-					length);
-
-			// create attribute partitioner
-			partitioner = createAttrPartitioner(document, new String[] { attr });
-
-			for (ITypedRegion tagRegion : tagRegions) {
-				if (!IDocument.DEFAULT_CONTENT_TYPE.equals(tagRegion.getType())) {
-					ITypedRegion[] regions = partitioner.computePartitioning(
-							tagRegion.getOffset(), tagRegion.getLength());
-					List<ElementRegion> attrregs = fetchAttrsRegions(document,
-							regions);
-					if (attrregs != null && !attrregs.isEmpty()
-							&& attrValue.equals(attrregs.get(0).getValue())) {
-						attrRegion = attrregs.get(0);
-						break;
-					}
-				}
-			}
-
-			return attrRegion;
-		} finally {
-			if (partitioner != null) {
-				partitioner.disconnect();
-			}
-		}
-	}
+		ElementRegion attrRegion = null;
 
-	protected List<ElementRegion> parseTag(IDocument document,
-			ITypedRegion tagRegion, String[] attrs) {
-		IDocumentPartitioner partitioner = null;
-		try {
-			// create attribute partitioner
-			partitioner = createAttrPartitioner(document, attrs);
+		// create tag partitioning
+		TagPartitioning partitioning = createTagPartitioning(document,
+				new String[] { tag });
 
-			ITypedRegion[] regions = partitioner.computePartitioning(
-					tagRegion.getOffset(), tagRegion.getLength());
+		final String[] attrs = new String[] { attr };
 
-			return fetchAttrsRegions(document, regions);
-		} finally {
-			if (partitioner != null) {
-				partitioner.disconnect();
+		for (TagPartition tagRegion : partitioning.getTagPartitions()) {
+			List<ElementRegion> attrregs = parseTag(tagRegion, attrs);
+			if (!attrregs.isEmpty()
+					&& attrValue.equals(attrregs.get(0).getValue())) {
+				attrRegion = attrregs.get(0);
+				break;
 			}
 		}
-	}
 
-	private IDocumentPartitioner createConnectPartitioner(IDocument document,
-			IPredicateRule[] rules, String[] types) {
-		RuleBasedPartitionScanner scanner = new RuleBasedPartitionScanner();
-		scanner.setPredicateRules(rules);
-		IDocumentPartitioner partitioner = new FastPartitioner(scanner, types);
-		partitioner.connect(document);
-		return partitioner;
+		return attrRegion;
 	}
 
-	protected IDocumentPartitioner createTagPartitioner(IDocument document,
-			String[] tags) {
-		IPredicateRule[] tagRules = new IPredicateRule[tags.length];
-		for (int i = 0; i < tags.length; i++) {
-			if (CLOSE_TAG_TOKEN.equals(tags[i])) {
-				tagRules[i] = new MultiLineRule("</", ">", new Token(tags[i]));
-			} else if (COMMENT_TOKEN.equals(tags[i])) {
-				tagRules[i] = new MultiLineRule("<!--", "-->", new Token(
-						tags[i]));
-			} else {
-				tagRules[i] = new MultiLineRule("<" + tags[i], ">", new Token(
-						tags[i]));
-			}
-		}
-		return createConnectPartitioner(document, tagRules, tags);
-	}
-
-	private IDocumentPartitioner createAttrPartitioner(IDocument document,
+	/**
+	 * Gets attributes of the matched tag.
+	 * 
+	 * @param tagRegion
+	 *            Matched tag partition.
+	 * @param attrs
+	 *            Attributes names to get.
+	 * @return Found attributes in the order of appearance.
+	 */
+	protected List<ElementRegion> parseTag(TagPartition tagRegion,
 			String[] attrs) {
-		IPredicateRule[] attrRules = new IPredicateRule[attrs.length + 2];
-		attrRules[0] = new SingleLineRule("\"", "\"", new Token(
-				DOUBLE_QUOTES_TOKEN));
-		attrRules[1] = new SingleLineRule("'", "'", new Token(
-				SINGLE_QUOTES_TOKEN));
-
-		String[] types = new String[attrs.length + 2];
-		types[0] = DOUBLE_QUOTES_TOKEN;
-		types[1] = SINGLE_QUOTES_TOKEN;
-
-		for (int i = 0; i < attrs.length; i++) {
-			attrRules[i + 2] = new WordPatternRule(new AttributeDetector(),
-					attrs[i], "=", new Token(attrs[i]));
-
-			types[i + 2] = attrs[i];
-		}
-
-		return createConnectPartitioner(document, attrRules, types);
-	}
-
-	private List<ElementRegion> fetchAttrsRegions(IDocument document,
-			ITypedRegion[] regions) {
 		List<ElementRegion> attrRegions = new ArrayList<ElementRegion>();
-		if (regions != null) {
-			String attrName = null;
-			for (ITypedRegion r : regions) {
-				// only legal types
-				if (!IDocument.DEFAULT_CONTENT_TYPE.equals(r.getType())) {
-					boolean quotesToken = DOUBLE_QUOTES_TOKEN.equals(r
-							.getType())
-							|| SINGLE_QUOTES_TOKEN.equals(r.getType());
-
-					if (attrName != null && quotesToken) {
-						try {
-							// get value w/o quotes
-							String val = document.get(r.getOffset() + 1,
-									r.getLength() - 2);
-
-							attrRegions.add(new ElementRegion(attrName, val, r
-									.getOffset() + 1));
-						} catch (BadLocationException e) {
-							e.printStackTrace();
-						}
-
-						// set name to null
-						attrName = null;
-					} else if (!quotesToken) {
-						attrName = r.getType();
-					}
+		if (tagRegion.getToken() != null) {
+			List<String> names = Arrays.asList(attrs);
+			for (ElementRegion r : tagRegion.getToken().getAttrs()) {
+				if (names.contains(r.getName())) {
+					attrRegions.add(r);
 				}
 			}
 		}
 		return attrRegions;
 	}
 
+	protected TagPartitioning createTagPartitioning(IDocument document,
+			String[] tags) {
+		return XmlModelCache.getModel(document).getTagPartitioning(tags);
+	}
+
 	protected Set<String> getAttrsValues(final IDocument document,
 			final String tag, final String attr) {
 		List<ElementRegion> attrRegions = findAllTagAttr(document, tag, attr);
@@ -411,146 +253,92 @@ public abstract class AbstractXmlParser {
 			final IDocument document, final String parentTagName,
 			final String[] parentTagAttrNames, final String[] tagNames,
 			final String[] attrNames, final String groupByParentTagAttrName) {
-		IDocumentPartitioner tagPartitioner = null;
-		IDocumentPartitioner attrPartitioner = null;
-		try {
-			Map<String, TagGroup> results = new HashMap<String, TagGroup>();
-
-			final String closeTagName = "/" + parentTagName;
-
-			// create parent tag partitioner
-			tagPartitioner = createTagPartitioner(document, new String[] {
-					parentTagName, closeTagName, COMMENT_TOKEN });
-
-			ITypedRegion[] parentTagRegions = tagPartitioner
-					.computePartitioning(0, document.getLength());
-
-			// create tag partitioner
-			String[] tags = Arrays.copyOf(tagNames, tagNames.length + 1);
-			tags[tagNames.length] = COMMENT_TOKEN;
-			tagPartitioner = createTagPartitioner(document, tags);
-
-			// create attribute partitioner
-			attrPartitioner = createAttrPartitioner(document, attrNames);
-
-			String key = null;
-			int parentBodyOffset = 0;
-			List<ElementRegion> parentTagAttrRegions = null;
-			for (ITypedRegion parentTagRegion : parentTagRegions) {
-				if (!IDocument.DEFAULT_CONTENT_TYPE.equals(parentTagRegion
-						.getType())
-						&& !COMMENT_TOKEN.equals(parentTagRegion.getType())) {
-					if (closeTagName.equals(parentTagRegion.getType())) {
-						// get tags regions
-						ITypedRegion[] tagRegions = tagPartitioner
-								.computePartitioning(parentBodyOffset,
-										parentTagRegion.getOffset()
-												- parentBodyOffset);
-
-						List<TagRegion> tagRegionsList = new ArrayList<TagRegion>();
-						// all attributes
-						for (ITypedRegion tagRegion : tagRegions) {
-							if (!IDocument.DEFAULT_CONTENT_TYPE
-									.equals(tagRegion.getType())
-									&& !COMMENT_TOKEN.equals(tagRegion
-											.getType())) {
-								ITypedRegion[] regions = attrPartitioner
-										.computePartitioning(
-												tagRegion.getOffset(),
-												tagRegion.getLength());
-
-								tagRegionsList.add(new TagRegion(tagRegion
-										.getType(), null, null,
-										fetchAttrsRegions(document, regions)));
-							}
+		Map<String, TagGroup> results = new HashMap<String, TagGroup>();
+
+		final String closeTagName = "/" + parentTagName;
+
+		// create parent tag partitioning
+		TagPartitioning parentPartitioning = createTagPartitioning(document,
+				new String[] { parentTagName, closeTagName, COMMENT_TOKEN });
+
+		// create tag partitioning
+		String[] tags = Arrays.copyOf(tagNames, tagNames.length + 1);
+		tags[tagNames.length] = COMMENT_TOKEN;
+		TagPartitioning tagPartitioning = createTagPartitioning(document, tags);
+
+		String key = null;
+		int parentBodyOffset = 0;
+		List<ElementRegion> parentTagAttrRegions = null;
+		for (TagPartition parentTagRegion : parentPartitioning
+				.getTagPartitions()) {
+			if (!COMMENT_TOKEN.equals(parentTagRegion.getType())) {
+				if (closeTagName.equals(parentTagRegion.getType())) {
+					// get tags regions
+					List<TagPartition> tagRegions = tagPartitioning
+							.getTagPartitions(parentBodyOffset,
+									parentTagRegion.getOffset()
+											- parentBodyOffset);
+
+					List<TagRegion> tagRegionsList = new ArrayList<TagRegion>();
+					// all attributes
+					for (TagPartition tagRegion : tagRegions) {
+						if (!COMMENT_TOKEN.equals(tagRegion.getType())) {
+							tagRegionsList.add(new TagRegion(tagRegion
+									.getType(), null, null, parseTag(
+									tagRegion, attrNames)));
 						}
+					}
 
-						if (results.containsKey(key)) {
-							results.get(key).getTagRegions()
-									.addAll(tagRegionsList);
-						} else {
-							results.put(key, new TagGroup(new TagRegion(
-									parentTagName, null, null,
-									parentTagAttrRegions), tagRegionsList));
-						}
+					if (results.containsKey(key)) {
+						results.get(key).getTagRegions()
+								.addAll(tagRegionsList);
 					} else {
-						// parse parent start tag
-						parentTagAttrRegions = parseTag(document,
-								parentTagRegion, parentTagAttrNames);
-
-						key = "";
-						for (ElementRegion ptr : parentTagAttrRegions) {
-							if (ptr.getName().equals(groupByParentTagAttrName)) {
-								key = ptr.getValue();
-							}
+						results.put(key, new TagGroup(new TagRegion(
+								parentTagName, null, null,
+								parentTagAttrRegions), tagRegionsList));
+					}
+				} else {
+					// parse parent start tag
+					parentTagAttrRegions = parseTag(parentTagRegion,
+							parentTagAttrNames);
+
+					key = "";
+					for (ElementRegion ptr : parentTagAttrRegions) {
+						if (ptr.getName().equals(groupByParentTagAttrName)) {
+							key = ptr.getValue();
 						}
-
-						parentBodyOffset = parentTagRegion.getOffset()
-								+ parentTagRegion.getLength();
 					}
-				}
-			}
 
-			return results;
-		} finally {
-			if (tagPartitioner != null) {
-				tagPartitioner.disconnect();
-			}
-			if (attrPartitioner != null) {
-				attrPartitioner.disconnect();
+					parentBodyOffset = parentTagRegion.getOffset()
+							+ parentTagRegion.getLength();
+				}
 			}
 		}
+
+		return results;
 	}
 
 	protected ElementRegion getDoctype(final IDocument document) {
-		IDocumentPartitioner partitioner = null;
-		try {
-			ElementRegion elementRegion = null;
-
-			final String[] tags = new String[] { DOCTYPE, DOCTYPE_LOWER_CASE,
-					COMMENT_TOKEN };
-
-			// create tag partitioner
-			partitioner = createTagPartitioner(document, tags);
-			// get tags regions
-			ITypedRegion[] tagRegions = partitioner.computePartitioning(0,
-					document.getLength());
-
-			for (ITypedRegion tagRegion : tagRegions) {
-				if (!IDocument.DEFAULT_CONTENT_TYPE.equals(tagRegion.getType())
-						&& !COMMENT_TOKEN.equals(tagRegion.getType())) {
-					try {
-						elementRegion = new ElementRegion(null, document.get(
-								tagRegion.getOffset(), tagRegion.getLength()),
-								tagRegion.getOffset());
-						break;
-					} catch (BadLocationException e) {
-						e.printStackTrace();
-					}
-				}
-			}
-			return elementRegion;
-		} finally {
-			if (partitioner != null) {
-				partitioner.disconnect();
-			}
-		}
-	}
+		ElementRegion elementRegion = null;
 
-	private static class AttributeDetector implements IWordDetector {
-		private char prevChar;
+		final String[] tags = new String[] { DOCTYPE, DOCTYPE_LOWER_CASE,
+				COMMENT_TOKEN };
 
-		@Override
-		public boolean isWordStart(char c) {
-			return Character.isLetter(c);
-		}
+		// create tag partitioning
+		TagPartitioning partitioning = createTagPartitioning(document, tags);
 
-		@Override
-		public boolean isWordPart(char c) {
-			boolean isPart = prevChar != '='
-					&& (c == '=' || Character.isWhitespace(c));
-			prevChar = c;
-			return isPart;
+		for (TagPartition tagRegion : partitioning.getTagPartitions()) {
+			if (!COMMENT_TOKEN.equals(tagRegion.getType())) {
+				try {
+					elementRegion = new ElementRegion(null, document.get(
+							tagRegion.getOffset(), tagRegion.getLength()),
+							tagRegion.getOffset());
+					break;
+				} catch (BadLocationException e) {
+					e.printStackTrace();
+				}
+			}
 		}
+		return elementRegion;
 	}
 }
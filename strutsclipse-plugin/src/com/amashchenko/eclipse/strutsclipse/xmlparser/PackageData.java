@@ -15,81 +15,50 @@
  */
 package com.amashchenko.eclipse.strutsclipse.xmlparser;
 
+import java.util.Collections;
 import java.util.List;
 import java.util.Set;
 
-import org.eclipse.jface.text.IDocument;
-
-import com.amashchenko.eclipse.strutsclipse.JarEntryStorage;
-import com.amashchenko.eclipse.strutsclipse.ResourceDocument;
-
+/**
+ * Package declared in the struts xml file: name, extended packages and tags
+ * the package declares for the inheriting packages.
+ */
 public class PackageData {
-	private final ResourceDocument resourceDocument;
-	private final JarEntryStorage jarEntryStorage;
-
-	private String name;
-	private Set<String> extending;
-	private List<TagRegion> tagRegions;
-
-	private ElementRegion region;
-
-	public PackageData(ResourceDocument resourceDocument) {
-		this.resourceDocument = resourceDocument;
-		this.jarEntryStorage = null;
-	}
-
-	public PackageData(JarEntryStorage jarEntryStorage) {
-		this.resourceDocument = null;
-		this.jarEntryStorage = jarEntryStorage;
-	}
-
-	public PackageData(PackageData packageData) {
-		this.resourceDocument = packageData.resourceDocument;
-		this.jarEntryStorage = packageData.jarEntryStorage;
-	}
-
-	public IDocument getDocument() {
-		return resourceDocument == null ? jarEntryStorage.toDocument()
-				: resourceDocument.getDocument();
-	}
-
-	public ResourceDocument getResourceDocument() {
-		return resourceDocument;
-	}
-
-	public JarEntryStorage getJarEntryStorage() {
-		return jarEntryStorage;
+	private final String name;
+	private final Set<String> extending;
+	private final List<TagRegion> interceptorRegions;
+	private final List<TagRegion> resultTypeRegions;
+
+	public PackageData(String name, Set<String> extending,
+			List<TagRegion> interceptorRegions,
+			List<TagRegion> resultTypeRegions) {
+		this.name = name;
+		this.extending = Collections.unmodifiableSet(extending);
+		this.interceptorRegions = Collections
+				.unmodifiableList(interceptorRegions);
+		this.resultTypeRegions = Collections
+				.unmodifiableList(resultTypeRegions);
 	}
 
 	public String getName() {
 		return name;
 	}
 
-	public void setName(String name) {
-		this.name = name;
-	}
-
 	public Set<String> getExtending() {
 		return extending;
 	}
 
-	public void setExtending(Set<String> extending) {
-		this.extending = extending;
-	}
-
-	public List<TagRegion> getTagRegions() {
-		return tagRegions;
-	}
-
-	public void setTagRegions(List<TagRegion> tagRegions) {
-		this.tagRegions = tagRegions;
-	}
-
-	public ElementRegion getRegion() {
-		return region;
+	/**
+	 * @return Interceptor and interceptor-stack tags of the package.
+	 */
+	public List<TagRegion> getInterceptorRegions() {
+		return interceptorRegions;
 	}
 
-	public void setRegion(ElementRegion region) {
-		this.region = region;
+	/**
+	 * @return Result-type tags of the package.
+	 */
+	public List<TagRegion> getResultTypeRegions() {
+		return resultTypeRegions;
 	}
 }
@@ -0,0 +1,57 @@
+/*
+ * Copyright 2015-2018 Aleksandr Mashchenko.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.amashchenko.eclipse.strutsclipse.xmlparser;
+
+import org.eclipse.jface.text.IRegion;
+
+/**
+ * Result of the {@link TagPartitioning#getLocation(int)} lookup.
+ */
+public class TagLocation {
+	private final TagPartition partition;
+	private final TagPartition tag;
+	private final IRegion body;
+
+	public TagLocation(TagPartition partition, TagPartition tag, IRegion body) {
+		this.partition = partition;
+		this.tag = tag;
+		this.body = body;
+	}
+
+	/**
+	 * @return Partition containing the offset.
+	 */
+	public TagPartition getPartition() {
+		return partition;
+	}
+
+	/**
+	 * @return Partition containing the offset or the partition preceding the
+	 *         body if offset is inside of the tag body, <code>null</code> if
+	 *         there is no such partition.
+	 */
+	public TagPartition getTag() {
+		return tag;
+	}
+
+	/**
+	 * @return Tag body region (possibly empty) if offset is inside of the tag
+	 *         body or <code>null</code>.
+	 */
+	public IRegion getBody() {
+		return body;
+	}
+}
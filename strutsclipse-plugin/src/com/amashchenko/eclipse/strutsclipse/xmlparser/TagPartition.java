@@ -0,0 +1,65 @@
+/*
+ * Copyright 2015-2018 Aleksandr Mashchenko.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.amashchenko.eclipse.strutsclipse.xmlparser;
+
+import org.eclipse.jface.text.ITypedRegion;
+
+/**
+ * Region of the {@link TagPartitioning}. Type is the matched tag name or
+ * {@link org.eclipse.jface.text.IDocument#DEFAULT_CONTENT_TYPE} for the text
+ * between matched tags.
+ */
+public class TagPartition implements ITypedRegion {
+	private final String type;
+	private final int offset;
+	private final int length;
+	private final XmlToken token;
+
+	public TagPartition(String type, int offset, int length, XmlToken token) {
+		this.type = type;
+		this.offset = offset;
+		this.length = length;
+		this.token = token;
+	}
+
+	@Override
+	public String getType() {
+		return type;
+	}
+
+	@Override
+	public int getOffset() {
+		return offset;
+	}
+
+	@Override
+	public int getLength() {
+		return length;
+	}
+
+	/**
+	 * @return Matched token or <code>null</code> for default partitions.
+	 */
+	public XmlToken getToken() {
+		return token;
+	}
+
+	@Override
+	public String toString() {
+		return "TagPartition [type=" + type + ", offset=" + offset
+				+ ", length=" + length + "]";
+	}
+}
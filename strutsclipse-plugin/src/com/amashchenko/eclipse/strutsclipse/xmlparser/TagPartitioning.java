@@ -0,0 +1,231 @@
+/*
+ * Copyright 2015-2018 Aleksandr Mashchenko.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.amashchenko.eclipse.strutsclipse.xmlparser;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.eclipse.jface.text.IDocument;
+import org.eclipse.jface.text.Region;
+
+/**
+ * Partitioning of the tokenized document by the given tags. Works as the
+ * partitioner with <code>&lt;tag ... &gt;</code> rules: tag matches if its
+ * text starts with <code>&lt;</code> followed by the tag name, the first
+ * matching tag name wins. {@link AbstractXmlParser#CLOSE_TAG_TOKEN} matches
+ * any end tag and {@link AbstractXmlParser#COMMENT_TOKEN} matches comments.
+ * Everything between the matched tags is the default content.
+ * <p>
+ * Partitions are kept sorted by offset, so lookups are binary searches and
+ * neighbouring partitions (e.g. start tag and end tag around the tag body)
+ * are accessed by index.
+ * </p>
+ */
+public class TagPartitioning {
+	private final int documentLength;
+	private final List<TagPartition> partitions;
+	private final int[] offsets;
+
+	public TagPartitioning(final String text, final List<XmlToken> tokens,
+			final String[] tags) {
+		this.documentLength = text.length();
+		this.partitions = new ArrayList<TagPartition>();
+		for (XmlToken token : tokens) {
+			String type = matchTag(text, token, tags);
+			if (type != null) {
+				partitions.add(new TagPartition(type, token.getOffset(), token
+						.getLength(), token));
+			}
+		}
+		this.offsets = new int[partitions.size()];
+		for (int i = 0; i < offsets.length; i++) {
+			offsets[i] = partitions.get(i).getOffset();
+		}
+	}
+
+	private static String matchTag(final String text, final XmlToken token,
+			final String[] tags) {
+		for (String tag : tags) {
+			boolean closeTag = tag.startsWith("/");
+			if (AbstractXmlParser.COMMENT_TOKEN.equals(tag)) {
+				if (XmlToken.COMMENT.equals(token.getType())) {
+					return tag;
+				}
+			} else if (AbstractXmlParser.CLOSE_TAG_TOKEN.equals(tag)) {
+				if (XmlToken.END_TAG.equals(token.getType())) {
+					return tag;
+				}
+			} else if (closeTag == XmlToken.END_TAG.equals(token.getType())
+					&& !XmlToken.COMMENT.equals(token.getType())
+					&& text.startsWith("<" + tag, token.getOffset())) {
+				return tag;
+			}
+		}
+		return null;
+	}
+
+	/**
+	 * Gets partition containing given offset.
+	 *
+	 * @param offset
+	 *            Document offset.
+	 * @return Matched tag partition or default partition between matched
+	 *         tags.
+	 */
+	public TagPartition getPartition(final int offset) {
+		if (offset < 0) {
+			return new TagPartition(IDocument.DEFAULT_CONTENT_TYPE, 0, 0, null);
+		}
+		final int indx = findIndex(offset);
+		if (contains(indx, offset)) {
+			return partitions.get(indx);
+		}
+		return getDefaultPartition(indx);
+	}
+
+	/**
+	 * Locates given offset. Text between the matched tag and the following
+	 * {@link AbstractXmlParser#CLOSE_TAG_TOKEN} end tag is the tag body, the
+	 * offset of the end tag itself also belongs to the body.
+	 *
+	 * @param offset
+	 *            Document offset.
+	 * @return Partition containing the offset, the tag partition and the tag
+	 *         body.
+	 */
+	public TagLocation getLocation(final int offset) {
+		if (offset < 0) {
+			return new TagLocation(getPartition(offset), null, null);
+		}
+
+		final int indx = findIndex(offset);
+
+		// index of the partition preceding the body or -1 if not in body
+		int tagIndx = -1;
+		TagPartition partition;
+		Region body = null;
+		if (contains(indx, offset)) {
+			partition = partitions.get(indx);
+			tagIndx = indx;
+			if (AbstractXmlParser.CLOSE_TAG_TOKEN.equals(partition.getType())
+					&& partition.getOffset() == offset) {
+				tagIndx = indx - 1;
+				if (tagIndx >= 0
+						&& getEndOffset(tagIndx) == partition.getOffset()) {
+					body = new Region(partition.getOffset(), 0);
+				} else {
+					TagPartition prev = getDefaultPartition(tagIndx);
+					body = new Region(prev.getOffset(), prev.getLength());
+				}
+			}
+		} else {
+			partition = getDefaultPartition(indx);
+			if (indx + 1 < partitions.size()
+					&& AbstractXmlParser.CLOSE_TAG_TOKEN.equals(partitions.get(
+							indx + 1).getType())) {
+				tagIndx = indx;
+				body = new Region(partition.getOffset(), partition.getLength());
+			}
+		}
+
+		TagPartition tag = null;
+		if (tagIndx >= 0 && (body == null || body.getOffset() > 0)) {
+			tag = partitions.get(tagIndx);
+		}
+		return new TagLocation(partition, tag, body);
+	}
+
+	private boolean contains(final int indx, final int offset) {
+		if (indx < 0) {
+			return false;
+		}
+		final int partitionEnd = getEndOffset(indx);
+		// last partition also holds the end of the document
+		return offset < partitionEnd
+				|| (offset == documentLength && partitionEnd == documentLength);
+	}
+
+	private int getEndOffset(final int indx) {
+		TagPartition partition = partitions.get(indx);
+		return partition.getOffset() + partition.getLength();
+	}
+
+	// default content after the partition with the given index
+	private TagPartition getDefaultPartition(final int indx) {
+		int start = 0;
+		if (indx >= 0) {
+			start = getEndOffset(indx);
+		}
+		int end = documentLength;
+		if (indx + 1 < partitions.size()) {
+			end = offsets[indx + 1];
+		}
+		return new TagPartition(IDocument.DEFAULT_CONTENT_TYPE, start, end
+				- start, null);
+	}
+
+	/**
+	 * Gets matched tags partitions overlapping given region.
+	 *
+	 * @param offset
+	 *            Region offset.
+	 * @param length
+	 *            Region length.
+	 * @return Matched tags partitions in document order.
+	 */
+	public List<TagPartition> getTagPartitions(final int offset,
+			final int length) {
+		List<TagPartition> result = new ArrayList<TagPartition>();
+		final int end = offset + length;
+		int indx = Math.max(findIndex(offset), 0);
+		for (; indx < partitions.size(); indx++) {
+			TagPartition partition = partitions.get(indx);
+			if (partition.getOffset() >= end) {
+				break;
+			}
+			if (partition.getOffset() + partition.getLength() > offset) {
+				result.add(partition);
+			}
+		}
+		return result;
+	}
+
+	/**
+	 * Gets all matched tags partitions.
+	 *
+	 * @return Matched tags partitions in document order.
+	 */
+	public List<TagPartition> getTagPartitions() {
+		return partitions;
+	}
+
+	// index of the last partition starting at or before offset
+	private int findIndex(final int offset) {
+		int low = 0;
+		int high = offsets.length - 1;
+		int result = -1;
+		while (low <= high) {
+			int mid = (low + high) >>> 1;
+			if (offsets[mid] <= offset) {
+				result = mid;
+				low = mid + 1;
+			} else {
+				high = mid - 1;
+			}
+		}
+		return result;
+	}
+}
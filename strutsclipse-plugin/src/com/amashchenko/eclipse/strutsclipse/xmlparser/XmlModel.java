@@ -0,0 +1,150 @@
+/*
+ * Copyright 2015-2018 Aleksandr Mashchenko.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.amashchenko.eclipse.strutsclipse.xmlparser;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Parsed document. Holds the document text and its tokens at the given
+ * modification stamp, tag partitionings are created on demand and reused.
+ * Model of the edited text can be derived from the previous one by
+ * {@link #reparse(String, long, int, int, int)}.
+ */
+public class XmlModel {
+	private final String text;
+	private final List<XmlToken> tokens;
+	private final long modificationStamp;
+	private final int unterminatedOffset;
+
+	private final ConcurrentMap<List<String>, TagPartitioning> partitionings = new ConcurrentHashMap<List<String>, TagPartitioning>();
+
+	public XmlModel(String text, long modificationStamp) {
+		this(new XmlTokenizer(text), text, modificationStamp);
+	}
+
+	private XmlModel(XmlTokenizer tokenizer, String text,
+			long modificationStamp) {
+		this(text, scan(tokenizer), modificationStamp, tokenizer
+				.getUnterminatedOffset());
+	}
+
+	private XmlModel(String text, List<XmlToken> tokens,
+			long modificationStamp, int unterminatedOffset) {
+		this.text = text;
+		this.tokens = Collections.unmodifiableList(tokens);
+		this.modificationStamp = modificationStamp;
+		this.unterminatedOffset = unterminatedOffset;
+	}
+
+	private static List<XmlToken> scan(XmlTokenizer tokenizer) {
+		tokenizer.scan(0, null, 0, 0, 0);
+		return tokenizer.getTokens();
+	}
+
+	/**
+	 * Creates model of the edited text. Tokens before the edit are reused,
+	 * text is tokenized again from the end of the last of them up to the
+	 * first previous token which starts the same way after the edit, the
+	 * rest of the tokens is reused moved by the length delta.
+	 *
+	 * @param newText
+	 *            Edited text.
+	 * @param newModificationStamp
+	 *            Modification stamp of the edited text.
+	 * @param offset
+	 *            Offset of the edit.
+	 * @param removedLength
+	 *            Length of the replaced text.
+	 * @param insertedLength
+	 *            Length of the inserted text.
+	 * @return Model of the edited text.
+	 */
+	public XmlModel reparse(final String newText,
+			final long newModificationStamp, final int offset,
+			final int removedLength, final int insertedLength) {
+		if (unterminatedOffset != -1 && unterminatedOffset < offset) {
+			// the edit could terminate markup before it
+			return new XmlModel(newText, newModificationStamp);
+		}
+
+		// tokens ending before the edit are not affected
+		int headSize = 0;
+		int low = 0;
+		int high = tokens.size() - 1;
+		while (low <= high) {
+			int mid = (low + high) >>> 1;
+			if (tokens.get(mid).getEndOffset() <= offset) {
+				headSize = mid + 1;
+				low = mid + 1;
+			} else {
+				high = mid - 1;
+			}
+		}
+		// script body is skipped only when scanned from its start tag
+		if (headSize > 0
+				&& XmlTokenizer.isScriptTag(tokens.get(headSize - 1))) {
+			headSize--;
+		}
+		final int start = headSize == 0 ? 0 : tokens.get(headSize - 1)
+				.getEndOffset();
+		final int delta = insertedLength - removedLength;
+
+		XmlTokenizer tokenizer = new XmlTokenizer(newText,
+				new ArrayList<XmlToken>(tokens.subList(0, headSize)));
+		int reusedIndex = tokenizer.scan(start, tokens, headSize, offset
+				+ insertedLength, delta);
+
+		int unterminated = tokenizer.getUnterminatedOffset();
+		if (unterminated == -1 && reusedIndex != -1
+				&& unterminatedOffset != -1
+				&& unterminatedOffset >= tokens.get(reusedIndex).getOffset()) {
+			unterminated = unterminatedOffset + delta;
+		}
+		return new XmlModel(newText, tokenizer.getTokens(),
+				newModificationStamp, unterminated);
+	}
+
+	public String getText() {
+		return text;
+	}
+
+	public List<XmlToken> getTokens() {
+		return tokens;
+	}
+
+	public long getModificationStamp() {
+		return modificationStamp;
+	}
+
+	public TagPartitioning getTagPartitioning(final String[] tags) {
+		List<String> key = Arrays.asList(tags.clone());
+		TagPartitioning partitioning = partitionings.get(key);
+		if (partitioning == null) {
+			partitioning = new TagPartitioning(text, tokens, tags);
+			TagPartitioning existing = partitionings.putIfAbsent(key,
+					partitioning);
+			if (existing != null) {
+				partitioning = existing;
+			}
+		}
+		return partitioning;
+	}
+}
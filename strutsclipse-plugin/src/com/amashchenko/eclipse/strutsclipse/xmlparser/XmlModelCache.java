@@ -0,0 +1,252 @@
+/*
+ * Copyright 2015-2018 Aleksandr Mashchenko.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.amashchenko.eclipse.strutsclipse.xmlparser;
+
+import java.util.Collections;
+import java.util.Map;
+import java.util.WeakHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.eclipse.core.filebuffers.IFileBuffer;
+import org.eclipse.core.filebuffers.IFileBufferListener;
+import org.eclipse.core.filebuffers.ITextFileBuffer;
+import org.eclipse.core.runtime.IPath;
+import org.eclipse.jface.text.DocumentEvent;
+import org.eclipse.jface.text.IDocument;
+import org.eclipse.jface.text.IDocumentExtension4;
+import org.eclipse.jface.text.IDocumentListener;
+
+/**
+ * Cache of the parsed documents shared by all parsers. Model is reused while
+ * the document modification stamp stays the same. Cached documents are
+ * listened to and edited documents are parsed again incrementally, only
+ * around the changed text. Documents are weakly referenced and also evicted
+ * when their file buffer is disposed.
+ */
+public class XmlModelCache {
+	private static final Map<IDocument, Entry> MODELS = Collections
+			.synchronizedMap(new WeakHashMap<IDocument, Entry>());
+
+	private static final AtomicLong HITS = new AtomicLong();
+	private static final AtomicLong MISSES = new AtomicLong();
+	private static final AtomicLong REPARSES = new AtomicLong();
+
+	private static final IFileBufferListener BUFFER_LISTENER = new BufferDisposalListener();
+
+	private XmlModelCache() {
+	}
+
+	public static XmlModel getModel(final IDocument document) {
+		Entry entry;
+		synchronized (MODELS) {
+			entry = MODELS.get(document);
+			if (entry == null) {
+				entry = new Entry();
+				MODELS.put(document, entry);
+				document.addDocumentListener(entry);
+			}
+		}
+		return entry.getModel(document);
+	}
+
+	public static void evict(final IDocument document) {
+		if (document != null) {
+			Entry entry = MODELS.remove(document);
+			if (entry != null) {
+				document.removeDocumentListener(entry);
+			}
+		}
+	}
+
+	public static void clear() {
+		synchronized (MODELS) {
+			for (Map.Entry<IDocument, Entry> e : MODELS.entrySet()) {
+				e.getKey().removeDocumentListener(e.getValue());
+			}
+			MODELS.clear();
+		}
+		HITS.set(0);
+		MISSES.set(0);
+		REPARSES.set(0);
+	}
+
+	public static long getHitCount() {
+		return HITS.get();
+	}
+
+	public static long getMissCount() {
+		return MISSES.get();
+	}
+
+	/**
+	 * @return Number of misses served by the incremental parsing.
+	 */
+	public static long getReparseCount() {
+		return REPARSES.get();
+	}
+
+	public static int size() {
+		return MODELS.size();
+	}
+
+	public static IFileBufferListener getBufferListener() {
+		return BUFFER_LISTENER;
+	}
+
+	private static long getModificationStamp(final IDocument document) {
+		long stamp = IDocumentExtension4.UNKNOWN_MODIFICATION_STAMP;
+		if (document instanceof IDocumentExtension4) {
+			stamp = ((IDocumentExtension4) document).getModificationStamp();
+		}
+		return stamp;
+	}
+
+	/**
+	 * Cached model of the document and the edits made to the document since
+	 * the model was parsed. Edits are merged into the single changed region:
+	 * text before <code>changeOffset</code> and text after
+	 * <code>changeOldEnd</code> (<code>changeNewEnd</code> in the current
+	 * text) are not changed.
+	 */
+	private static class Entry implements IDocumentListener {
+		private XmlModel model;
+
+		private int changeOffset = -1;
+		private int changeOldEnd;
+		private int changeNewEnd;
+		private long changeStamp = IDocumentExtension4.UNKNOWN_MODIFICATION_STAMP;
+		private boolean changing;
+
+		// stamp is read under the lock, so it matches the recorded edits
+		synchronized XmlModel getModel(final IDocument document) {
+			final long stamp = getModificationStamp(document);
+			if (changing) {
+				// text and stamp can be from the different sides of the edit,
+				// the model is not kept and the next request parses it again
+				MISSES.incrementAndGet();
+				model = null;
+				changeOffset = -1;
+				return new XmlModel(document.get(), stamp);
+			}
+
+			if (model != null) {
+				boolean valid;
+				if (stamp == IDocumentExtension4.UNKNOWN_MODIFICATION_STAMP) {
+					// document w/o stamps, compare the content
+					valid = model.getText().equals(document.get());
+				} else {
+					valid = model.getModificationStamp() == stamp;
+				}
+				if (valid) {
+					HITS.incrementAndGet();
+					return model;
+				}
+			}
+
+			MISSES.incrementAndGet();
+			if (model != null && changeOffset != -1
+					&& stamp != IDocumentExtension4.UNKNOWN_MODIFICATION_STAMP
+					&& stamp == changeStamp) {
+				REPARSES.incrementAndGet();
+				model = model.reparse(document.get(), stamp, changeOffset,
+						changeOldEnd - changeOffset, changeNewEnd
+								- changeOffset);
+			} else {
+				model = new XmlModel(document.get(), stamp);
+			}
+			changeOffset = -1;
+			return model;
+		}
+
+		@Override
+		public synchronized void documentAboutToBeChanged(DocumentEvent event) {
+			changing = true;
+		}
+
+		@Override
+		public synchronized void documentChanged(DocumentEvent event) {
+			changing = false;
+
+			final int offset = event.getOffset();
+			final int end = offset + event.getLength();
+			final int newEnd = offset
+					+ (event.getText() == null ? 0 : event.getText().length());
+			if (changeOffset == -1) {
+				changeOffset = offset;
+				changeOldEnd = end;
+				changeNewEnd = newEnd;
+			} else {
+				// not changed suffix starts after both edits
+				final int suffix = Math.max(changeNewEnd, end);
+				changeOldEnd += suffix - changeNewEnd;
+				changeNewEnd = suffix + newEnd - end;
+				changeOffset = Math.min(changeOffset, offset);
+			}
+			changeStamp = event.getModificationStamp();
+		}
+	}
+
+	private static class BufferDisposalListener implements IFileBufferListener {
+		private void evictBuffer(IFileBuffer buffer) {
+			if (buffer instanceof ITextFileBuffer) {
+				evict(((ITextFileBuffer) buffer).getDocument());
+			}
+		}
+
+		@Override
+		public void bufferDisposed(IFileBuffer buffer) {
+			evictBuffer(buffer);
+		}
+
+		@Override
+		public void underlyingFileDeleted(IFileBuffer buffer) {
+			evictBuffer(buffer);
+		}
+
+		@Override
+		public void bufferCreated(IFileBuffer buffer) {
+		}
+
+		@Override
+		public void bufferContentAboutToBeReplaced(IFileBuffer buffer) {
+		}
+
+		@Override
+		public void bufferContentReplaced(IFileBuffer buffer) {
+		}
+
+		@Override
+		public void stateChanging(IFileBuffer buffer) {
+		}
+
+		@Override
+		public void dirtyStateChanged(IFileBuffer buffer, boolean isDirty) {
+		}
+
+		@Override
+		public void stateValidationChanged(IFileBuffer buffer,
+				boolean isStateValidated) {
+		}
+
+		@Override
+		public void underlyingFileMoved(IFileBuffer buffer, IPath path) {
+		}
+
+		@Override
+		public void stateChangeFailed(IFileBuffer buffer) {
+		}
+	}
+}
@@ -0,0 +1,132 @@
+/*
+ * Copyright 2015-2018 Aleksandr Mashchenko.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.amashchenko.eclipse.strutsclipse.xmlparser;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Markup token produced by {@link XmlTokenizer}. Text between tokens is not
+ * represented.
+ */
+public class XmlToken {
+	public static final String START_TAG = "start_tag";
+	public static final String END_TAG = "end_tag";
+	public static final String COMMENT = "comment";
+	// <!DOCTYPE>, <![CDATA[]]>, <?xml?> and JSP <% %> blocks
+	public static final String DECLARATION = "declaration";
+
+	private final String type;
+	private final String name;
+	private final int offset;
+	private final int length;
+	private final List<ElementRegion> attrs;
+
+	public XmlToken(String type, String name, int offset, int length,
+			List<ElementRegion> attrs) {
+		this.type = type;
+		this.name = name;
+		this.offset = offset;
+		this.length = length;
+		this.attrs = attrs == null ? Collections.<ElementRegion> emptyList()
+				: Collections.unmodifiableList(attrs);
+	}
+
+	public String getType() {
+		return type;
+	}
+
+	public String getName() {
+		return name;
+	}
+
+	public int getOffset() {
+		return offset;
+	}
+
+	public int getLength() {
+		return length;
+	}
+
+	public int getEndOffset() {
+		return offset + length;
+	}
+
+	/**
+	 * Gets all quoted attributes of the start tag in document order.
+	 *
+	 * @return Attributes regions, empty list for non start tags.
+	 */
+	public List<ElementRegion> getAttrs() {
+		return attrs;
+	}
+
+	/**
+	 * Finds the attribute which value, including quotes, contains given
+	 * offset.
+	 *
+	 * @param offset
+	 *            Document offset.
+	 * @return Attribute region or <code>null</code>.
+	 */
+	public ElementRegion getAttrAt(final int offset) {
+		// attributes are in the document order and do not overlap
+		int low = 0;
+		int high = attrs.size() - 1;
+		while (low <= high) {
+			int mid = (low + high) >>> 1;
+			ElementRegion r = attrs.get(mid);
+			final int valOffset = r.getValueRegion().getOffset();
+			if (valOffset - 1 > offset) {
+				high = mid - 1;
+			} else if (valOffset + r.getValueRegion().getLength() + 1 <= offset) {
+				low = mid + 1;
+			} else {
+				return r;
+			}
+		}
+		return null;
+	}
+
+	/**
+	 * Creates copy of this token moved by the given delta.
+	 *
+	 * @param delta
+	 *            Offset delta.
+	 * @return Moved token or this token if delta is 0.
+	 */
+	public XmlToken shift(int delta) {
+		if (delta == 0) {
+			return this;
+		}
+		List<ElementRegion> shiftedAttrs = null;
+		if (!attrs.isEmpty()) {
+			shiftedAttrs = new ArrayList<ElementRegion>(attrs.size());
+			for (ElementRegion r : attrs) {
+				shiftedAttrs.add(new ElementRegion(r.getName(), r.getValue(), r
+						.getValueRegion().getOffset() + delta));
+			}
+		}
+		return new XmlToken(type, name, offset + delta, length, shiftedAttrs);
+	}
+
+	@Override
+	public String toString() {
+		return "XmlToken [type=" + type + ", name=" + name + ", offset="
+				+ offset + ", length=" + length + "]";
+	}
+}
@@ -0,0 +1,346 @@
+/*
+ * Copyright 2015-2018 Aleksandr Mashchenko.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.amashchenko.eclipse.strutsclipse.xmlparser;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Single pass tokenizer of XML (and JSP) markup. Emits start tags with their
+ * attributes, end tags, comments and declarations in document order. Bodies
+ * of the JSP scriptlets and of the script elements are not tokenized, a
+ * <code>&lt;</code> starts a tag only if it is followed by the tag name and
+ * whitespace, <code>/</code> or <code>&gt;</code>. Unterminated markup is
+ * treated as text, same as with the rule based scanners used before. Edited
+ * text can be scanned again only partially, see
+ * {@link XmlModel#reparse(String, long, int, int, int)}.
+ */
+public class XmlTokenizer {
+	private static final String COMMENT_START = "<!--";
+	private static final String COMMENT_END = "-->";
+	private static final String CDATA_START = "<![CDATA[";
+	private static final String CDATA_END = "]]>";
+	private static final String JSP_COMMENT_START = "<%--";
+	private static final String JSP_COMMENT_END = "--%>";
+	private static final String JSP_START = "<%";
+	private static final String JSP_END = "%>";
+	private static final String SCRIPT_TAG = "script";
+	private static final String SCRIPT_END = "</" + SCRIPT_TAG;
+
+	private final String text;
+	private final List<XmlToken> tokens;
+	private int unterminatedOffset = -1;
+
+	XmlTokenizer(final String text) {
+		this(text, new ArrayList<XmlToken>());
+	}
+
+	/**
+	 * @param text
+	 *            Text to tokenize.
+	 * @param head
+	 *            Already known tokens of the text preceding the scan start.
+	 */
+	XmlTokenizer(final String text, final List<XmlToken> head) {
+		this.text = text;
+		this.tokens = head;
+	}
+
+	public static List<XmlToken> tokenize(final String text) {
+		XmlTokenizer tokenizer = new XmlTokenizer(text);
+		tokenizer.scan(0, null, 0, 0, 0);
+		return tokenizer.getTokens();
+	}
+
+	/**
+	 * Scans text from the given offset. If previous tokens are given, scan
+	 * stops on the first of them which starts (after applying the delta) at
+	 * or after <code>syncOffset</code> exactly where the next markup begins,
+	 * the rest of the previous tokens is then moved by the delta and reused.
+	 *
+	 * @param start
+	 *            Offset to start the scan from, must not be inside of a
+	 *            token.
+	 * @param previous
+	 *            Tokens of the previous version of the text or
+	 *            <code>null</code>.
+	 * @param previousIndex
+	 *            Index of the first previous token which can be reused.
+	 * @param syncOffset
+	 *            Offset after which text is the same as the previous text
+	 *            moved by the delta.
+	 * @param delta
+	 *            Difference between current and previous offsets after
+	 *            <code>syncOffset</code>.
+	 * @return Index of the first reused previous token or -1 if nothing was
+	 *         reused.
+	 */
+	int scan(final int start, final List<XmlToken> previous,
+			int previousIndex, final int syncOffset, final int delta) {
+		final int length = text.length();
+		int pos = text.indexOf('<', start);
+		while (pos != -1 && pos < length) {
+			if (previous != null && pos >= syncOffset) {
+				while (previousIndex < previous.size()
+						&& previous.get(previousIndex).getOffset() + delta < pos) {
+					previousIndex++;
+				}
+				if (previousIndex < previous.size()
+						&& previous.get(previousIndex).getOffset() + delta == pos) {
+					// the rest of the text is the same, so are the tokens
+					for (int i = previousIndex; i < previous.size(); i++) {
+						tokens.add(previous.get(i).shift(delta));
+					}
+					return previousIndex;
+				}
+			}
+
+			XmlToken token = readToken(pos);
+			if (token == null) {
+				// not a markup, skip `<`
+				pos = text.indexOf('<', pos + 1);
+			} else if (isScriptTag(token)
+					&& text.charAt(token.getEndOffset() - 2) != '/') {
+				tokens.add(token);
+				// script body is not a markup
+				pos = indexOfIgnoreCase(SCRIPT_END, token.getEndOffset());
+				if (pos == -1) {
+					unterminated(token.getOffset());
+				}
+			} else {
+				tokens.add(token);
+				pos = text.indexOf('<', token.getEndOffset());
+			}
+		}
+		return -1;
+	}
+
+	List<XmlToken> getTokens() {
+		return tokens;
+	}
+
+	/**
+	 * @return Offset of the first markup skipped because of the missing end
+	 *         or -1.
+	 */
+	int getUnterminatedOffset() {
+		return unterminatedOffset;
+	}
+
+	/**
+	 * @param token
+	 *            Token.
+	 * @return <code>true</code> if token is a start tag of the script
+	 *         element, which body is not tokenized.
+	 */
+	static boolean isScriptTag(final XmlToken token) {
+		return XmlToken.START_TAG.equals(token.getType())
+				&& SCRIPT_TAG.equalsIgnoreCase(token.getName());
+	}
+
+	private int indexOfIgnoreCase(final String str, final int from) {
+		for (int i = text.indexOf('<', from); i != -1; i = text.indexOf('<',
+				i + 1)) {
+			if (text.regionMatches(true, i, str, 0, str.length())) {
+				return i;
+			}
+		}
+		return -1;
+	}
+
+	private void unterminated(final int offset) {
+		if (unterminatedOffset == -1) {
+			unterminatedOffset = offset;
+		}
+	}
+
+	private XmlToken readToken(final int offset) {
+		if (offset + 1 >= text.length()) {
+			unterminated(offset);
+			return null;
+		}
+
+		final char next = text.charAt(offset + 1);
+
+		XmlToken token = null;
+		if (text.startsWith(COMMENT_START, offset)) {
+			token = readBlock(offset, XmlToken.COMMENT, null, COMMENT_START,
+					COMMENT_END);
+		} else if (text.startsWith(CDATA_START, offset)) {
+			token = readBlock(offset, XmlToken.DECLARATION,
+					CDATA_START.substring(1), CDATA_START, CDATA_END);
+		} else if (text.startsWith(JSP_COMMENT_START, offset)) {
+			token = readBlock(offset, XmlToken.DECLARATION, "%",
+					JSP_COMMENT_START, JSP_COMMENT_END);
+		} else if (text.startsWith(JSP_START, offset)) {
+			token = readBlock(offset, XmlToken.DECLARATION, "%", JSP_START,
+					JSP_END);
+		} else if (next == '/') {
+			token = readTag(offset, offset + 2, XmlToken.END_TAG);
+		} else if (next == '!' || next == '?') {
+			token = readTag(offset, offset + 1, XmlToken.DECLARATION);
+		} else if (isNameStart(next)) {
+			token = readTag(offset, offset + 1, XmlToken.START_TAG);
+		}
+		return token;
+	}
+
+	private XmlToken readBlock(final int offset, final String type,
+			final String name, final String start, final String end) {
+		XmlToken token = null;
+		int endIndx = text.indexOf(end, offset + start.length());
+		if (endIndx != -1) {
+			token = new XmlToken(type, name, offset, endIndx + end.length()
+					- offset, null);
+		} else {
+			unterminated(offset);
+		}
+		return token;
+	}
+
+	private XmlToken readTag(final int offset, final int nameOffset,
+			final String type) {
+		int nameEnd = nameOffset;
+		if (XmlToken.DECLARATION.equals(type)) {
+			while (nameEnd < text.length()
+					&& isNamePart(text.charAt(nameEnd))) {
+				nameEnd++;
+			}
+		} else {
+			while (nameEnd < text.length() && isNameChar(text.charAt(nameEnd))) {
+				nameEnd++;
+			}
+			// e.g. `a<b&&c` or `<d=1` in text
+			if (nameEnd == nameOffset || nameEnd == text.length()
+					|| !isTagNameEnd(text.charAt(nameEnd))) {
+				if (nameEnd == text.length()) {
+					unterminated(offset);
+				}
+				return null;
+			}
+		}
+
+		// tag ends on the first `>` which is not in a JSP expression
+		int closeIndx = findTagEnd(nameEnd);
+		if (closeIndx == -1) {
+			unterminated(offset);
+			return null;
+		}
+		final String name = text.substring(nameOffset, nameEnd);
+
+		List<ElementRegion> attrs = null;
+		if (XmlToken.START_TAG.equals(type)) {
+			attrs = readAttrs(text, nameEnd, closeIndx);
+		}
+		return new XmlToken(type, name, offset, closeIndx + 1 - offset, attrs);
+	}
+
+	private int findTagEnd(final int from) {
+		int pos = from;
+		while (true) {
+			final int closeIndx = text.indexOf('>', pos);
+			if (closeIndx == -1) {
+				return -1;
+			}
+			final int jspStart = text.indexOf(JSP_START, pos);
+			if (jspStart == -1 || jspStart > closeIndx) {
+				return closeIndx;
+			}
+			final int jspEnd = text.indexOf(JSP_END,
+					jspStart + JSP_START.length());
+			if (jspEnd == -1) {
+				return -1;
+			}
+			pos = jspEnd + JSP_END.length();
+		}
+	}
+
+	private static List<ElementRegion> readAttrs(final String text,
+			final int start, final int end) {
+		List<ElementRegion> attrs = new ArrayList<ElementRegion>();
+
+		int pos = start;
+		while (pos < end) {
+			pos = skipWhitespaces(text, pos, end);
+
+			// attribute name
+			int nameStart = pos;
+			while (pos < end && isNamePart(text.charAt(pos))) {
+				pos++;
+			}
+			if (pos == nameStart) {
+				// garbage like `/` or stray quotes
+				pos++;
+				continue;
+			}
+			final String attrName = text.substring(nameStart, pos);
+
+			pos = skipWhitespaces(text, pos, end);
+			if (pos >= end || text.charAt(pos) != '=') {
+				// attribute w/o value
+				continue;
+			}
+			pos = skipWhitespaces(text, pos + 1, end);
+			if (pos >= end) {
+				break;
+			}
+
+			final char quote = text.charAt(pos);
+			if (quote == '"' || quote == '\'') {
+				int valueEnd = text.indexOf(quote, pos + 1);
+				if (valueEnd == -1 || valueEnd > end) {
+					// unterminated value
+					break;
+				}
+				attrs.add(new ElementRegion(attrName, text.substring(pos + 1,
+						valueEnd), pos + 1));
+				pos = valueEnd + 1;
+			} else {
+				// not quoted values are ignored
+				while (pos < end && !Character.isWhitespace(text.charAt(pos))) {
+					pos++;
+				}
+			}
+		}
+		return attrs;
+	}
+
+	private static int skipWhitespaces(final String text, int pos,
+			final int end) {
+		while (pos < end && Character.isWhitespace(text.charAt(pos))) {
+			pos++;
+		}
+		return pos;
+	}
+
+	private static boolean isNameStart(char c) {
+		return Character.isLetter(c) || c == '_' || c == ':';
+	}
+
+	private static boolean isNameChar(char c) {
+		return Character.isLetterOrDigit(c) || c == '_' || c == ':'
+				|| c == '-' || c == '.';
+	}
+
+	private static boolean isTagNameEnd(char c) {
+		return Character.isWhitespace(c) || c == '/' || c == '>';
+	}
+
+	private static boolean isNamePart(char c) {
+		return !Character.isWhitespace(c) && c != '=' && c != '/' && c != '>'
+				&& c != '"' && c != '\'' && c != '<';
+	}
+}
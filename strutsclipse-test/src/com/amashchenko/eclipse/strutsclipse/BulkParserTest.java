@@ -0,0 +1,107 @@
+/*
+ * Copyright 2015-2018 Aleksandr Mashchenko.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.amashchenko.eclipse.strutsclipse;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import org.eclipse.core.runtime.NullProgressMonitor;
+import org.eclipse.core.runtime.OperationCanceledException;
+import org.junit.Assert;
+import org.junit.Test;
+
+public class BulkParserTest {
+	@Test
+	public void testParseKeepsOrder() throws Exception {
+		List<Integer> items = new ArrayList<Integer>();
+		for (int i = 0; i < 100; i++) {
+			items.add(i);
+		}
+
+		List<String> results = BulkParser.parse(items,
+				new BulkParser.Task<Integer, String>() {
+					@Override
+					public String parse(Integer item) {
+						return "item" + item;
+					}
+				}, null);
+
+		Assert.assertEquals(items.size(), results.size());
+		for (int i = 0; i < items.size(); i++) {
+			Assert.assertEquals("item" + i, results.get(i));
+		}
+	}
+
+	@Test
+	public void testParseEmpty() throws Exception {
+		List<String> results = BulkParser.parse(
+				Collections.<String> emptyList(),
+				new BulkParser.Task<String, String>() {
+					@Override
+					public String parse(String item) {
+						return item;
+					}
+				}, new NullProgressMonitor());
+
+		Assert.assertNotNull(results);
+		Assert.assertTrue(results.isEmpty());
+	}
+
+	@Test
+	public void testParseUsesPoolThreads() throws Exception {
+		List<Integer> items = new ArrayList<Integer>();
+		for (int i = 0; i < 8; i++) {
+			items.add(i);
+		}
+		final Set<Thread> threads = Collections
+				.synchronizedSet(new HashSet<Thread>());
+
+		BulkParser.parse(items, new BulkParser.Task<Integer, Integer>() {
+			@Override
+			public Integer parse(Integer item) {
+				threads.add(Thread.currentThread());
+				return item;
+			}
+		}, null);
+
+		Assert.assertFalse(threads.isEmpty());
+		if (Runtime.getRuntime().availableProcessors() > 2) {
+			Assert.assertFalse(threads.contains(Thread.currentThread()));
+		}
+	}
+
+	@Test(expected = OperationCanceledException.class)
+	public void testParseCanceled() throws Exception {
+		List<Integer> items = new ArrayList<Integer>();
+		for (int i = 0; i < 100; i++) {
+			items.add(i);
+		}
+		final NullProgressMonitor monitor = new NullProgressMonitor();
+
+		BulkParser.parse(items, new BulkParser.Task<Integer, Integer>() {
+			@Override
+			public Integer parse(Integer item) {
+				if (item == 10) {
+					monitor.setCanceled(true);
+				}
+				return item;
+			}
+		}, monitor);
+	}
+}
@@ -0,0 +1,107 @@
+/*
+ * Copyright 2015-2018 Aleksandr Mashchenko.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.amashchenko.eclipse.strutsclipse;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.Collections;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+public class JarDataStoreTest {
+	@Test
+	public void testGetJarDataShared() throws Exception {
+		File jar = File.createTempFile("strutsclipse", ".jar");
+		File copy = File.createTempFile("strutsclipse", ".jar");
+		try {
+			try (ZipOutputStream out = new ZipOutputStream(
+					new FileOutputStream(jar))) {
+				out.putNextEntry(new ZipEntry("struts-default.xml"));
+				out.write("<struts />".getBytes(StandardCharsets.UTF_8));
+				out.closeEntry();
+			}
+			Files.copy(jar.toPath(), copy.toPath(),
+					StandardCopyOption.REPLACE_EXISTING);
+
+			JarData jarData = JarDataStore.getJarData("project1", jar);
+			JarData copyData = JarDataStore.getJarData("project2", copy);
+
+			Assert.assertNotNull(jarData);
+			Assert.assertSame(jarData, copyData);
+			Assert.assertSame(jarData, JarDataStore.getJarData("project1", jar));
+			Assert.assertEquals(1, JarDataStore.size());
+
+			final AtomicInteger loads = new AtomicInteger();
+			JarData.Loader<String> loader = new JarData.Loader<String>() {
+				@Override
+				public String load() {
+					loads.incrementAndGet();
+					return "value";
+				}
+			};
+			Assert.assertEquals("value", jarData.get("key", loader));
+			Assert.assertEquals("value", copyData.get("key", loader));
+			Assert.assertEquals(1, loads.get());
+		} finally {
+			jar.delete();
+			copy.delete();
+			JarDataStore.clear();
+			JarScanner.clear();
+		}
+	}
+
+	@Test
+	public void testRetain() throws Exception {
+		File jar = createJar("<struts />");
+		File removed = createJar("<struts></struts>");
+		try {
+			JarDataStore.getJarData("project1", jar);
+			JarDataStore.getJarData("project1", removed);
+			Assert.assertEquals(2, JarDataStore.size());
+
+			JarDataStore.retain("project1",
+					Collections.singleton(jar.getAbsolutePath()));
+			for (int i = 0; i < 10 && JarDataStore.size() > 1; i++) {
+				System.gc();
+				Thread.sleep(10);
+			}
+			Assert.assertEquals(1, JarDataStore.size());
+		} finally {
+			jar.delete();
+			removed.delete();
+			JarDataStore.clear();
+			JarScanner.clear();
+		}
+	}
+
+	private File createJar(String content) throws Exception {
+		File jar = File.createTempFile("strutsclipse", ".jar");
+		try (ZipOutputStream out = new ZipOutputStream(
+				new FileOutputStream(jar))) {
+			out.putNextEntry(new ZipEntry("struts-default.xml"));
+			out.write(content.getBytes(StandardCharsets.UTF_8));
+			out.closeEntry();
+		}
+		return jar;
+	}
+}
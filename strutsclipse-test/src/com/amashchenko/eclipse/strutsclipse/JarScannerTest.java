@@ -0,0 +1,178 @@
+/*
+ * Copyright 2015-2018 Aleksandr Mashchenko.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.amashchenko.eclipse.strutsclipse;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.zip.CRC32;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+public class JarScannerTest {
+	private static final String DEFAULT_CONTENT = "<struts><package name=\"struts-default\"></package></struts>";
+	private static final String PLUGIN_CONTENT = "<struts><package name=\"plugin-default\"></package></struts>";
+
+	@Test
+	public void testFindEntries() throws Exception {
+		File jar = createJar();
+		try {
+			Set<String> names = new HashSet<String>(Arrays.asList(
+					"struts-default.xml", "struts-plugin.xml"));
+
+			List<JarEntryLocation> entries = JarScanner.findEntries(jar, names);
+
+			Assert.assertNotNull(entries);
+			Assert.assertEquals(2, entries.size());
+			Assert.assertEquals("struts-default.xml", entries.get(0).getName());
+			Assert.assertEquals(DEFAULT_CONTENT, read(entries.get(0)));
+			Assert.assertEquals("struts-plugin.xml", entries.get(1).getName());
+			Assert.assertEquals(PLUGIN_CONTENT, read(entries.get(1)));
+
+			// cached
+			Assert.assertSame(entries, JarScanner.findEntries(jar, names));
+		} finally {
+			jar.delete();
+			JarScanner.clear();
+		}
+	}
+
+	@Test
+	public void testFindEntriesNoMatch() throws Exception {
+		File jar = createJar();
+		try {
+			List<JarEntryLocation> entries = JarScanner.findEntries(jar,
+					new HashSet<String>(Arrays.asList("struts.xml")));
+
+			Assert.assertNotNull(entries);
+			Assert.assertTrue(entries.isEmpty());
+		} finally {
+			jar.delete();
+			JarScanner.clear();
+		}
+	}
+
+	@Test
+	public void testFindEntriesNoMatchCopy() throws Exception {
+		File jar = createJar();
+		File copy = File.createTempFile("strutsclipse", ".jar");
+		try {
+			Files.copy(jar.toPath(), copy.toPath(),
+					StandardCopyOption.REPLACE_EXISTING);
+			Set<String> names = new HashSet<String>(Arrays.asList("struts.xml"));
+
+			Assert.assertTrue(JarScanner.findEntries(jar, names).isEmpty());
+			JarScanner.getChecksum(copy);
+			final long scans = JarScanner.getScanCount();
+
+			// known by checksum
+			Assert.assertTrue(JarScanner.findEntries(copy, names).isEmpty());
+			Assert.assertEquals(scans, JarScanner.getScanCount());
+
+			// other entries are still scanned
+			Assert.assertEquals(1,
+					JarScanner.findEntries(copy,
+							new HashSet<String>(Arrays.asList("struts-plugin.xml")))
+							.size());
+			Assert.assertEquals(scans + 1, JarScanner.getScanCount());
+		} finally {
+			jar.delete();
+			copy.delete();
+			JarScanner.clear();
+		}
+	}
+
+	@Test
+	public void testGetChecksum() throws Exception {
+		File jar = createJar();
+		File copy = File.createTempFile("strutsclipse", ".jar");
+		File other = File.createTempFile("strutsclipse", ".jar");
+		try {
+			Files.copy(jar.toPath(), copy.toPath(),
+					StandardCopyOption.REPLACE_EXISTING);
+			try (ZipOutputStream out = new ZipOutputStream(
+					new FileOutputStream(other))) {
+				out.putNextEntry(new ZipEntry("struts-default.xml"));
+				out.write(PLUGIN_CONTENT.getBytes(StandardCharsets.UTF_8));
+				out.closeEntry();
+			}
+
+			String checksum = JarScanner.getChecksum(jar);
+
+			Assert.assertNotNull(checksum);
+			Assert.assertEquals(checksum, JarScanner.getChecksum(copy));
+			Assert.assertFalse(checksum.equals(JarScanner.getChecksum(other)));
+		} finally {
+			jar.delete();
+			copy.delete();
+			other.delete();
+			JarScanner.clear();
+		}
+	}
+
+	private File createJar() throws Exception {
+		File jar = File.createTempFile("strutsclipse", ".jar");
+		try (ZipOutputStream out = new ZipOutputStream(new FileOutputStream(
+				jar))) {
+			out.putNextEntry(new ZipEntry("org/"));
+			out.closeEntry();
+			out.putNextEntry(new ZipEntry("org/struts-default.xml"));
+			out.write("<nested />".getBytes(StandardCharsets.UTF_8));
+			out.closeEntry();
+			out.putNextEntry(new ZipEntry("struts-default.xml"));
+			out.write(DEFAULT_CONTENT.getBytes(StandardCharsets.UTF_8));
+			out.closeEntry();
+
+			// stored entry
+			byte[] bytes = PLUGIN_CONTENT.getBytes(StandardCharsets.UTF_8);
+			CRC32 crc = new CRC32();
+			crc.update(bytes);
+			ZipEntry stored = new ZipEntry("struts-plugin.xml");
+			stored.setMethod(ZipEntry.STORED);
+			stored.setSize(bytes.length);
+			stored.setCrc(crc.getValue());
+			out.putNextEntry(stored);
+			out.write(bytes);
+			out.closeEntry();
+
+			out.setComment("some comment");
+		}
+		return jar;
+	}
+
+	private String read(JarEntryLocation location) throws Exception {
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		try (InputStream in = JarScanner.openEntry(location)) {
+			byte[] buffer = new byte[1024];
+			int n;
+			while ((n = in.read(buffer)) != -1) {
+				bytes.write(buffer, 0, n);
+			}
+		}
+		return new String(bytes.toByteArray(), StandardCharsets.UTF_8);
+	}
+}
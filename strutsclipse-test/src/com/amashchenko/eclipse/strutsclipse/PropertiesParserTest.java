@@ -109,4 +109,61 @@ public class PropertiesParserTest {
 		IRegion region = propertiesParser.getKeyRegion(document, null);
 		Assert.assertNull(region);
 	}
+
+	@Test
+	public void testGetKeyRegionWhitespaceSeparator() throws Exception {
+		final String key = "key_key.key";
+		final String content = "some=value\n" + key + "\tvalue";
+		IDocument document = new Document(content);
+		IRegion region = propertiesParser.getKeyRegion(document, key);
+		Assert.assertNotNull(region);
+		Assert.assertEquals(content.indexOf(key), region.getOffset());
+		Assert.assertEquals(key.length(), region.getLength());
+	}
+
+	@Test
+	public void testGetKeyRegionEscapedSeparator() throws Exception {
+		final String key = "key\\=key\\:key";
+		final String content = " " + key + " = value";
+		IDocument document = new Document(content);
+		IRegion region = propertiesParser.getKeyRegion(document,
+				"key=key:key");
+		Assert.assertNotNull(region);
+		Assert.assertEquals(1, region.getOffset());
+		Assert.assertEquals(key.length(), region.getLength());
+	}
+
+	@Test
+	public void testGetKeyRegionUnicodeEscape() throws Exception {
+		final String content = "key\\u0041 = value";
+		IDocument document = new Document(content);
+		IRegion region = propertiesParser.getKeyRegion(document, "keyA");
+		Assert.assertNotNull(region);
+		Assert.assertEquals(0, region.getOffset());
+	}
+
+	@Test
+	public void testGetKeyRegionContinuationLine() throws Exception {
+		final String content = "some = value \\\r\n  key = continued\r\n"
+				+ "# comment = not a key\nkey = value";
+		IDocument document = new Document(content);
+		IRegion region = propertiesParser.getKeyRegion(document, "key");
+		Assert.assertNotNull(region);
+		Assert.assertEquals(content.lastIndexOf("key"), region.getOffset());
+		Assert.assertNull(propertiesParser.getKeyRegion(document, "#"));
+		Assert.assertNull(propertiesParser.getKeyRegion(document, "comment"));
+	}
+
+	@Test
+	public void testGetKeyRegionDocumentChanged() throws Exception {
+		final String key = "key_key.key";
+		IDocument document = new Document("other = value");
+		Assert.assertNull(propertiesParser.getKeyRegion(document, key));
+
+		document.replace(0, 0, key + " = value\n");
+		IRegion region = propertiesParser.getKeyRegion(document, key);
+		Assert.assertNotNull(region);
+		Assert.assertEquals(0, region.getOffset());
+		Assert.assertNotNull(propertiesParser.getKeyRegion(document, "other"));
+	}
 }
@@ -0,0 +1,117 @@
+/*
+ * Copyright 2015-2018 Aleksandr Mashchenko.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.amashchenko.eclipse.strutsclipse.strutsxml;
+
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import org.eclipse.jface.text.Document;
+import org.eclipse.jface.text.IDocument;
+import org.junit.Assert;
+import org.junit.Test;
+
+public class StrutsXmlIndexStoreTest {
+	@Test
+	public void testWriteRead() throws Exception {
+		final String content = "<struts><constant name=\"struts.custom.i18n.resources\" value=\"messages\" />"
+				+ "<include file=\"other.xml\" />"
+				+ "<package name=\"pack\" namespace=\"/ns\" extends=\"base\"><result-types><result-type name=\"someresult\" /></result-types>"
+				+ "<interceptors><interceptor name=\"someinterceptor\" /></interceptors>"
+				+ "<action name=\"someaction\"></action></package>"
+				+ "<package name=\"base\"><action name=\"baseaction\"></action></package></struts>";
+		IDocument document = new Document(content);
+		StrutsXmlFileData data = new StrutsXmlParser().getFileData(document);
+
+		Map<String, StrutsXmlIndexStore.Entry> entries = new LinkedHashMap<String, StrutsXmlIndexStore.Entry>();
+		entries.put("/project/src/struts.xml", new StrutsXmlIndexStore.Entry(
+				42, data));
+
+		File file = File.createTempFile("struts-index", ".snapshot");
+		file.deleteOnExit();
+		StrutsXmlIndexStore.write(file, entries);
+		Map<String, StrutsXmlIndexStore.Entry> result = StrutsXmlIndexStore
+				.read(file);
+
+		Assert.assertEquals(1, result.size());
+		StrutsXmlIndexStore.Entry entry = result.get("/project/src/struts.xml");
+		Assert.assertNotNull(entry);
+		Assert.assertEquals(42, entry.getStamp());
+
+		StrutsXmlFileData actual = entry.getData();
+		Assert.assertEquals(data.getPackageNames(), actual.getPackageNames());
+		Assert.assertEquals(data.getPackageNamespaces(),
+				actual.getPackageNamespaces());
+		Assert.assertEquals(data.getActionNames(), actual.getActionNames());
+		Assert.assertEquals(
+				data.getActionNames(new HashSet<String>(data
+						.getPackageNamespaces())),
+				actual.getActionNames(new HashSet<String>(actual
+						.getPackageNamespaces())));
+		Assert.assertEquals(data.getInterceptorNames(),
+				actual.getInterceptorNames());
+		Assert.assertEquals(data.getResultTypeNames(),
+				actual.getResultTypeNames());
+		Assert.assertEquals(data.getConstants(), actual.getConstants());
+		Assert.assertEquals(data.getIncludedFiles(), actual.getIncludedFiles());
+		Assert.assertEquals(data.getPackages().size(), actual.getPackages()
+				.size());
+	}
+
+	@Test
+	public void testWriteReadLongValue() throws Exception {
+		// more than 64K bytes in UTF-8
+		StringBuilder value = new StringBuilder();
+		for (int i = 0; i < 30000; i++) {
+			value.append("\u00e9\u00e8");
+		}
+		final String content = "<struts><constant name=\"some.constant\" value=\""
+				+ value + "\" /></struts>";
+		StrutsXmlFileData data = new StrutsXmlParser()
+				.getFileData(new Document(content));
+
+		Map<String, StrutsXmlIndexStore.Entry> entries = new LinkedHashMap<String, StrutsXmlIndexStore.Entry>();
+		entries.put("/project/src/struts.xml", new StrutsXmlIndexStore.Entry(
+				42, data));
+
+		File file = File.createTempFile("struts-index", ".snapshot");
+		file.deleteOnExit();
+		StrutsXmlIndexStore.write(file, entries);
+		Map<String, StrutsXmlIndexStore.Entry> result = StrutsXmlIndexStore
+				.read(file);
+
+		Assert.assertEquals(1, result.size());
+		Assert.assertEquals(value.toString(),
+				result.get("/project/src/struts.xml").getData().getConstants()
+						.get("some.constant"));
+	}
+
+	@Test
+	public void testReadOtherVersion() throws Exception {
+		File file = File.createTempFile("struts-index", ".snapshot");
+		file.deleteOnExit();
+		try (DataOutputStream out = new DataOutputStream(new FileOutputStream(
+				file))) {
+			out.writeInt(-1);
+			out.writeInt(1);
+		}
+
+		Assert.assertTrue(StrutsXmlIndexStore.read(file).isEmpty());
+	}
+}
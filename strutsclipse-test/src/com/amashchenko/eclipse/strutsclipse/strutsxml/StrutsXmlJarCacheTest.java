@@ -0,0 +1,81 @@
+/*
+ * Copyright 2015-2018 Aleksandr Mashchenko.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.amashchenko.eclipse.strutsclipse.strutsxml;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.util.List;
+
+import org.eclipse.jface.text.Document;
+import org.eclipse.jface.text.IDocument;
+import org.junit.Assert;
+import org.junit.Test;
+
+import com.amashchenko.eclipse.strutsclipse.xmlparser.ElementRegion;
+import com.amashchenko.eclipse.strutsclipse.xmlparser.PackageData;
+import com.amashchenko.eclipse.strutsclipse.xmlparser.TagRegion;
+
+public class StrutsXmlJarCacheTest {
+	@Test
+	public void testWriteReadPackages() throws Exception {
+		final String content = "<struts><package name=\"pack\" extends=\"base\"><result-types><result-type name=\"someresult\" /></result-types>"
+				+ "<interceptors><interceptor name=\"someinterceptor\" /><interceptor-stack name=\"somestack\"></interceptor-stack></interceptors></package>"
+				+ "<package name=\"base\"></package></struts>";
+		IDocument document = new Document(content);
+		List<PackageData> packages = new StrutsXmlParser()
+				.getPackagesData(document);
+
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		StrutsXmlJarCache.writePackages(new DataOutputStream(bytes), packages);
+		List<PackageData> result = StrutsXmlJarCache
+				.readPackages(new DataInputStream(new ByteArrayInputStream(
+						bytes.toByteArray())));
+
+		Assert.assertEquals(packages.size(), result.size());
+		for (int i = 0; i < packages.size(); i++) {
+			PackageData expected = packages.get(i);
+			PackageData actual = result.get(i);
+			Assert.assertEquals(expected.getName(), actual.getName());
+			Assert.assertEquals(expected.getExtending(), actual.getExtending());
+			assertTags(expected.getInterceptorRegions(),
+					actual.getInterceptorRegions());
+			assertTags(expected.getResultTypeRegions(),
+					actual.getResultTypeRegions());
+		}
+	}
+
+	private void assertTags(List<TagRegion> expected, List<TagRegion> actual) {
+		Assert.assertEquals(expected.size(), actual.size());
+		for (int i = 0; i < expected.size(); i++) {
+			Assert.assertEquals(expected.get(i).getName(), actual.get(i)
+					.getName());
+			ElementRegion expectedName = expected.get(i).getAttrs()
+					.get(StrutsXmlConstants.NAME_ATTR);
+			ElementRegion actualName = actual.get(i).getAttrs()
+					.get(StrutsXmlConstants.NAME_ATTR);
+			if (expectedName == null) {
+				Assert.assertNull(actualName);
+			} else {
+				Assert.assertEquals(expectedName.getValue(),
+						actualName.getValue());
+				Assert.assertEquals(expectedName.getValueRegion(),
+						actualName.getValueRegion());
+			}
+		}
+	}
+}
@@ -0,0 +1,222 @@
+/*
+ * Copyright 2015-2018 Aleksandr Mashchenko.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.amashchenko.eclipse.strutsclipse.strutsxml;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.eclipse.core.resources.IFile;
+import org.junit.Assert;
+import org.junit.Test;
+
+import com.amashchenko.eclipse.strutsclipse.xmlparser.ElementRegion;
+import com.amashchenko.eclipse.strutsclipse.xmlparser.PackageData;
+import com.amashchenko.eclipse.strutsclipse.xmlparser.TagRegion;
+
+public class StrutsXmlPackageGraphTest {
+	@Test
+	public void testGetPackages() throws Exception {
+		Map<String, List<StrutsXmlPackage>> files = new LinkedHashMap<String, List<StrutsXmlPackage>>();
+		files.put("file1", createPackages(
+				createPackage("pack1", "interceptor1", "pack2", "pack3"),
+				createPackage("pack2", "interceptor2", "pack4")));
+		files.put("file2", createPackages(
+				createPackage("pack3", "interceptor3", "pack4"),
+				createPackage("pack4", "interceptor4")));
+
+		StrutsXmlPackageGraph graph = new StrutsXmlPackageGraph();
+		graph.update(files);
+
+		List<StrutsXmlPackage> packages = graph.getPackages("pack1");
+		Assert.assertEquals(4, packages.size());
+		Assert.assertEquals("pack1", packages.get(0).getName());
+		Assert.assertEquals(
+				new HashSet<String>(Arrays.asList("interceptor1",
+						"interceptor2", "interceptor3", "interceptor4")),
+				graph.getInterceptorNames("pack1"));
+		Assert.assertFalse(graph.isCyclic("pack1"));
+
+		Assert.assertEquals(
+				new HashSet<String>(Arrays.asList("interceptor3",
+						"interceptor4")), graph.getInterceptorNames("pack3"));
+
+		Assert.assertTrue(graph.getPackages("unknown").isEmpty());
+	}
+
+	@Test
+	public void testGetPackagesCycle() throws Exception {
+		Map<String, List<StrutsXmlPackage>> files = new LinkedHashMap<String, List<StrutsXmlPackage>>();
+		files.put("file1", createPackages(
+				createPackage("pack1", "interceptor1", "pack2"),
+				createPackage("pack2", "interceptor2", "pack3"),
+				createPackage("pack3", "interceptor3", "pack1"),
+				createPackage("pack4", "interceptor4", "pack4")));
+
+		StrutsXmlPackageGraph graph = new StrutsXmlPackageGraph();
+		graph.update(files);
+
+		Assert.assertEquals(3, graph.getPackages("pack2").size());
+		Assert.assertTrue(graph.isCyclic("pack2"));
+		Assert.assertEquals(
+				new HashSet<String>(Arrays.asList("interceptor1",
+						"interceptor2", "interceptor3")),
+				graph.getInterceptorNames("pack2"));
+
+		Assert.assertEquals(1, graph.getPackages("pack4").size());
+		Assert.assertTrue(graph.isCyclic("pack4"));
+	}
+
+	@Test
+	public void testUpdate() throws Exception {
+		List<StrutsXmlPackage> file1 = createPackages(createPackage("pack1",
+				"interceptor1", "pack2"));
+		List<StrutsXmlPackage> file3 = createPackages(createPackage("pack3",
+				"interceptor3"));
+
+		Map<String, List<StrutsXmlPackage>> files = new LinkedHashMap<String, List<StrutsXmlPackage>>();
+		files.put("file1", file1);
+		files.put("file2", createPackages(createPackage("pack2",
+				"interceptor2")));
+		files.put("file3", file3);
+
+		StrutsXmlPackageGraph graph = new StrutsXmlPackageGraph();
+		graph.update(files);
+
+		Assert.assertTrue(graph.getInterceptorNames("pack1").contains(
+				"interceptor2"));
+		Assert.assertEquals(1, graph.getPackages("pack3").size());
+
+		// change file2
+		files.put("file2", createPackages(createPackage("pack2",
+				"interceptor22")));
+		graph.update(files);
+
+		Assert.assertTrue(graph.getInterceptorNames("pack1").contains(
+				"interceptor22"));
+		Assert.assertFalse(graph.getInterceptorNames("pack1").contains(
+				"interceptor2"));
+		Assert.assertEquals(1, graph.getPackages("pack3").size());
+
+		// remove file2
+		files.remove("file2");
+		graph.update(files);
+
+		Assert.assertEquals(1, graph.getPackages("pack1").size());
+		Assert.assertEquals(
+				new HashSet<String>(Arrays.asList("interceptor1")),
+				graph.getInterceptorNames("pack1"));
+	}
+
+	@Test
+	public void testWithFile() throws Exception {
+		Map<String, List<StrutsXmlPackage>> files = new LinkedHashMap<String, List<StrutsXmlPackage>>();
+		files.put("file1", createPackages(createPackage("pack1",
+				"interceptor1", "pack2")));
+		files.put("file2", createPackages(createPackage("pack2",
+				"interceptor2")));
+		files.put("file3", createPackages(createPackage("pack3",
+				"interceptor3")));
+
+		StrutsXmlPackageGraph graph = new StrutsXmlPackageGraph();
+		graph.update(files);
+		List<StrutsXmlPackage> pack3 = graph.getPackages("pack3");
+
+		Assert.assertSame(graph, graph.withFile("file2", files.get("file2")));
+		Assert.assertSame(graph, graph.withFile("unknown",
+				createPackages(createPackage("pack2", "interceptor22"))));
+
+		// not saved document
+		List<StrutsXmlPackage> file2 = createPackages(createPackage("pack2",
+				"interceptor22"));
+		StrutsXmlPackageGraph overlay = graph.withFile("file2", file2);
+
+		Assert.assertNotSame(graph, overlay);
+		Assert.assertSame(overlay, graph.withFile("file2", file2));
+		Assert.assertEquals(
+				new HashSet<String>(Arrays.asList("interceptor1",
+						"interceptor22")), overlay.getInterceptorNames("pack1"));
+		Assert.assertEquals(pack3, overlay.getPackages("pack3"));
+
+		// graph is not changed
+		Assert.assertEquals(
+				new HashSet<String>(Arrays.asList("interceptor1",
+						"interceptor2")), graph.getInterceptorNames("pack1"));
+	}
+
+	@Test
+	public void testGetResultTypeNames() throws Exception {
+		List<TagRegion> resultTypes = new ArrayList<TagRegion>();
+		resultTypes.add(createTag(StrutsXmlConstants.RESULT_TYPE_TAG,
+				"someresult"));
+
+		Map<String, List<StrutsXmlPackage>> files = new LinkedHashMap<String, List<StrutsXmlPackage>>();
+		files.put("file1", createPackages(
+				createPackage("pack1", "interceptor1", "pack2"),
+				new PackageData("pack2", new HashSet<String>(),
+						new ArrayList<TagRegion>(), resultTypes)));
+
+		StrutsXmlPackageGraph graph = new StrutsXmlPackageGraph();
+		graph.update(files);
+
+		Assert.assertEquals(new HashSet<String>(Arrays.asList("someresult")),
+				graph.getResultTypeNames("pack1"));
+		Assert.assertTrue(graph.getResultTypeNames("unknown").isEmpty());
+	}
+
+	@Test
+	public void testGetInterceptors() throws Exception {
+		Map<String, List<StrutsXmlPackage>> files = new LinkedHashMap<String, List<StrutsXmlPackage>>();
+		files.put("file1", createPackages(
+				createPackage("pack1", "interceptor1", "pack2"),
+				createPackage("pack2", "interceptor1")));
+
+		StrutsXmlPackageGraph graph = new StrutsXmlPackageGraph();
+		graph.update(files);
+
+		Map<String, String> interceptors = graph.getInterceptors("pack1");
+		Assert.assertEquals(1, interceptors.size());
+		Assert.assertEquals(StrutsXmlConstants.INTERCEPTOR_TAG
+				+ " from pack1 package", interceptors.get("interceptor1"));
+	}
+
+	private List<StrutsXmlPackage> createPackages(PackageData... packages) {
+		List<StrutsXmlPackage> list = new ArrayList<StrutsXmlPackage>();
+		for (PackageData pd : packages) {
+			list.add(new StrutsXmlPackage(pd, (IFile) null));
+		}
+		return list;
+	}
+
+	private PackageData createPackage(String name, String interceptor,
+			String... extending) {
+		List<TagRegion> interceptors = new ArrayList<TagRegion>();
+		interceptors.add(createTag(StrutsXmlConstants.INTERCEPTOR_TAG,
+				interceptor));
+		return new PackageData(name, new HashSet<String>(
+				Arrays.asList(extending)), interceptors,
+				new ArrayList<TagRegion>());
+	}
+
+	private TagRegion createTag(String tagName, String name) {
+		List<ElementRegion> attrs = new ArrayList<ElementRegion>();
+		attrs.add(new ElementRegion(StrutsXmlConstants.NAME_ATTR, name, 0));
+		return new TagRegion(tagName, null, null, attrs);
+	}
+}
@@ -27,6 +27,7 @@ import org.junit.Assert;
 import org.junit.Test;
 
 import com.amashchenko.eclipse.strutsclipse.xmlparser.ElementRegion;
+import com.amashchenko.eclipse.strutsclipse.xmlparser.PackageData;
 import com.amashchenko.eclipse.strutsclipse.xmlparser.TagGroup;
 import com.amashchenko.eclipse.strutsclipse.xmlparser.TagRegion;
 
@@ -883,6 +884,35 @@ public class StrutsXmlParserTest {
 		Assert.assertEquals(one, constantNameRegions.get(0).getValue());
 	}
 
+	@Test
+	public void testGetPackagesData() throws Exception {
+		final String content = "<struts><package name=\"pack\" extends=\"base, other\"><result-types><result-type name=\"someresult\" /></result-types>"
+				+ "<interceptors><interceptor name=\"someinterceptor\" /><interceptor-stack name=\"somestack\"></interceptor-stack></interceptors></package>"
+				+ "<!-- <package name=\"commented\"></package> --><package name=\"base\"></package></struts>";
+		IDocument document = new Document(content);
+
+		List<PackageData> packages = strutsXmlParser.getPackagesData(document);
+
+		Assert.assertNotNull(packages);
+		Assert.assertEquals(2, packages.size());
+
+		Assert.assertEquals("pack", packages.get(0).getName());
+		Set<String> extending = new HashSet<String>();
+		extending.add("base");
+		extending.add("other");
+		Assert.assertEquals(extending, packages.get(0).getExtending());
+		Assert.assertEquals(2, packages.get(0).getInterceptorRegions().size());
+		Set<String> resultTypes = new HashSet<String>();
+		for (TagRegion tr : packages.get(0).getResultTypeRegions()) {
+			resultTypes.add(tr.getAttrValue(StrutsXmlConstants.NAME_ATTR, null));
+		}
+		Assert.assertTrue(resultTypes.contains("someresult"));
+
+		Assert.assertEquals("base", packages.get(1).getName());
+		Assert.assertTrue(packages.get(1).getExtending().isEmpty());
+		Assert.assertTrue(packages.get(1).getInterceptorRegions().isEmpty());
+	}
+
 	// atLeast2_5
 	@Test
 	public void testAtLeast2_5NoDoctype() throws Exception {
@@ -928,4 +958,45 @@ public class StrutsXmlParserTest {
 		boolean result = strutsXmlParser.atLeast2_5(document);
 		Assert.assertFalse(result);
 	}
+
+	@Test
+	public void testGetFileData() throws Exception {
+		final String content = "<struts><constant name=\"struts.custom.i18n.resources\" value=\"global\" /><include file=\"other.xml\" />"
+				+ "<package name=\"pack\" namespace=\"/ns\"><result-types><result-type name=\"someresult\" /></result-types>"
+				+ "<interceptors><interceptor name=\"someinterceptor\" /><interceptor-stack name=\"somestack\"></interceptor-stack></interceptors>"
+				+ "<action name=\"someaction\"></action><action></action></package>"
+				+ "<package name=\"otherpack\"><action name=\"otheraction\"></action></package><!-- <package name=\"commented\"></package> --></struts>";
+		IDocument document = new Document(content);
+
+		StrutsXmlFileData data = strutsXmlParser.getFileData(document);
+
+		Assert.assertNotNull(data);
+
+		Set<String> names = new HashSet<String>();
+		names.add("pack");
+		names.add("otherpack");
+		Assert.assertEquals(names, data.getPackageNames());
+
+		Assert.assertTrue(data.getPackageNamespaces().contains("/ns"));
+
+		Assert.assertTrue(data.getActionNames().contains("someaction"));
+		Assert.assertTrue(data.getActionNames().contains("otheraction"));
+
+		Set<String> namespaces = new HashSet<String>();
+		namespaces.add("/ns");
+		Set<String> actionNames = data.getActionNames(namespaces);
+		Assert.assertTrue(actionNames.contains("someaction"));
+		Assert.assertFalse(actionNames.contains("otheraction"));
+
+		Assert.assertTrue(data.getInterceptorNames().contains(
+				"someinterceptor"));
+		Assert.assertTrue(data.getInterceptorNames().contains("somestack"));
+		Assert.assertEquals(1, data.getResultTypeNames().size());
+		Assert.assertTrue(data.getResultTypeNames().contains("someresult"));
+
+		Assert.assertEquals("global",
+				data.getConstants().get("struts.custom.i18n.resources"));
+		Assert.assertEquals(1, data.getIncludedFiles().size());
+		Assert.assertTrue(data.getIncludedFiles().contains("other.xml"));
+	}
 }
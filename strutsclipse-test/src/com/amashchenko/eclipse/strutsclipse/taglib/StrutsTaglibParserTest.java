@@ -15,6 +15,10 @@
  */
 package com.amashchenko.eclipse.strutsclipse.taglib;
 
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
 import org.eclipse.jface.text.Document;
 import org.eclipse.jface.text.IDocument;
 import org.junit.Assert;
@@ -140,4 +144,68 @@ public class StrutsTaglibParserTest {
 
 		Assert.assertNull(tagRegion);
 	}
+
+	@Test
+	public void testGetGetTextRegionSecondCallInLine() throws Exception {
+		final String content = "<s:property value=\"getText('a') + "
+				+ "getText('bc')\"/>";
+		IDocument document = new Document(content);
+		TagRegion tagRegion = strutsTaglibParser.getGetTextRegion(document,
+				content.indexOf("c')"));
+
+		Assert.assertNotNull(tagRegion);
+		Assert.assertNotNull(tagRegion.getCurrentElement());
+		Assert.assertEquals("bc", tagRegion.getCurrentElement().getValue());
+		Assert.assertEquals("b", tagRegion.getCurrentElementValuePrefix());
+	}
+
+	@Test
+	public void testGetGetTextRegionMultiLine() throws Exception {
+		final String content = "<s:property value=\"getText('a\n')\"/>\n"
+				+ "<s:property value=\"getText('b')\"/>";
+		IDocument document = new Document(content);
+
+		// not closed on the same line
+		Assert.assertNull(strutsTaglibParser.getGetTextRegion(document,
+				content.indexOf("a")));
+
+		TagRegion tagRegion = strutsTaglibParser.getGetTextRegion(document,
+				content.indexOf("b"));
+		Assert.assertNotNull(tagRegion);
+		Assert.assertEquals("b", tagRegion.getCurrentElement().getValue());
+		Assert.assertEquals(content.indexOf("b"), tagRegion
+				.getCurrentElement().getValueRegion().getOffset());
+	}
+
+	@Test
+	public void testGetGetTextRegionConcurrent() throws Exception {
+		final String content = "<s:property value=\"getText('test')\"/>";
+		final IDocument document = new Document(content);
+		final StrutsTaglibParser parser = StrutsTaglibParser.getDefault();
+		final List<TagRegion> results = Collections
+				.synchronizedList(new ArrayList<TagRegion>());
+
+		Thread[] threads = new Thread[4];
+		for (int i = 0; i < threads.length; i++) {
+			threads[i] = new Thread() {
+				@Override
+				public void run() {
+					for (int j = 0; j < 100; j++) {
+						results.add(parser.getGetTextRegion(document,
+								content.indexOf("st')")));
+					}
+				}
+			};
+			threads[i].start();
+		}
+		for (Thread t : threads) {
+			t.join();
+		}
+
+		Assert.assertEquals(400, results.size());
+		for (TagRegion tagRegion : results) {
+			Assert.assertNotNull(tagRegion);
+			Assert.assertEquals("te", tagRegion.getCurrentElementValuePrefix());
+		}
+	}
 }
@@ -0,0 +1,102 @@
+/*
+ * Copyright 2015-2018 Aleksandr Mashchenko.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.amashchenko.eclipse.strutsclipse.xmlparser;
+
+import org.eclipse.jface.text.IDocument;
+import org.junit.Assert;
+import org.junit.Test;
+
+public class TagPartitioningTest {
+	private static final String[] TAGS = { "action", "result",
+			AbstractXmlParser.COMMENT_TOKEN, AbstractXmlParser.CLOSE_TAG_TOKEN };
+
+	private static TagPartitioning createPartitioning(final String content) {
+		return new TagPartitioning(content, XmlTokenizer.tokenize(content),
+				TAGS);
+	}
+
+	@Test
+	public void testGetPartition() throws Exception {
+		final String content = "<package><action name=\"a\">text</action></package>";
+		TagPartitioning partitioning = createPartitioning(content);
+
+		Assert.assertEquals(3, partitioning.getTagPartitions().size());
+		Assert.assertEquals(IDocument.DEFAULT_CONTENT_TYPE, partitioning
+				.getPartition(1).getType());
+		Assert.assertEquals("action",
+				partitioning.getPartition(content.indexOf("name")).getType());
+		Assert.assertEquals(AbstractXmlParser.CLOSE_TAG_TOKEN, partitioning
+				.getPartition(content.length()).getType());
+	}
+
+	@Test
+	public void testGetLocationTag() throws Exception {
+		final String content = "<package><action name=\"a\">text</action></package>";
+		TagLocation location = createPartitioning(content).getLocation(
+				content.indexOf("name"));
+
+		Assert.assertEquals("action", location.getPartition().getType());
+		Assert.assertSame(location.getPartition(), location.getTag());
+		Assert.assertNull(location.getBody());
+	}
+
+	@Test
+	public void testGetLocationBody() throws Exception {
+		final String content = "<package><action name=\"a\">text</action></package>";
+		TagPartitioning partitioning = createPartitioning(content);
+
+		TagLocation location = partitioning.getLocation(content
+				.indexOf("text") + 2);
+		Assert.assertEquals(IDocument.DEFAULT_CONTENT_TYPE, location
+				.getPartition().getType());
+		Assert.assertEquals("action", location.getTag().getType());
+		Assert.assertEquals(content.indexOf("text"), location.getBody()
+				.getOffset());
+		Assert.assertEquals(4, location.getBody().getLength());
+
+		// start of the end tag
+		location = partitioning.getLocation(content.indexOf("</action>"));
+		Assert.assertEquals(AbstractXmlParser.CLOSE_TAG_TOKEN, location
+				.getPartition().getType());
+		Assert.assertEquals("action", location.getTag().getType());
+		Assert.assertEquals(content.indexOf("text"), location.getBody()
+				.getOffset());
+	}
+
+	@Test
+	public void testGetLocationEmptyBody() throws Exception {
+		final String content = "<result></result>";
+		TagLocation location = createPartitioning(content).getLocation(
+				content.indexOf("</result>"));
+
+		Assert.assertEquals("result", location.getTag().getType());
+		Assert.assertEquals(content.indexOf("</result>"), location.getBody()
+				.getOffset());
+		Assert.assertEquals(0, location.getBody().getLength());
+	}
+
+	@Test
+	public void testGetLocationText() throws Exception {
+		final String content = "<package><action name=\"a\"/> text <result>";
+		TagLocation location = createPartitioning(content).getLocation(
+				content.indexOf("text"));
+
+		Assert.assertEquals(IDocument.DEFAULT_CONTENT_TYPE, location
+				.getPartition().getType());
+		Assert.assertNull(location.getTag());
+		Assert.assertNull(location.getBody());
+	}
+}
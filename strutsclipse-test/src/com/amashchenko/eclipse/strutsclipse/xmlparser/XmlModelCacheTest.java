@@ -0,0 +1,120 @@
+/*
+ * Copyright 2015-2018 Aleksandr Mashchenko.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.amashchenko.eclipse.strutsclipse.xmlparser;
+
+import org.eclipse.jface.text.Document;
+import org.eclipse.jface.text.DocumentEvent;
+import org.eclipse.jface.text.IDocument;
+import org.eclipse.jface.text.IDocumentListener;
+import org.junit.Assert;
+import org.junit.Test;
+
+public class XmlModelCacheTest {
+	@Test
+	public void testGetModel() throws Exception {
+		final String content = "<package name=\"somename\"></package>";
+		IDocument document = new Document(content);
+
+		XmlModel model = XmlModelCache.getModel(document);
+		Assert.assertNotNull(model);
+		Assert.assertEquals(content, model.getText());
+		Assert.assertEquals(2, model.getTokens().size());
+
+		final long hits = XmlModelCache.getHitCount();
+		Assert.assertSame(model, XmlModelCache.getModel(document));
+		Assert.assertEquals(hits + 1, XmlModelCache.getHitCount());
+	}
+
+	@Test
+	public void testGetModelModified() throws Exception {
+		IDocument document = new Document("<package name=\"somename\">");
+
+		XmlModel model = XmlModelCache.getModel(document);
+		document.replace(document.getLength(), 0, "</package>");
+
+		final long misses = XmlModelCache.getMissCount();
+		XmlModel modified = XmlModelCache.getModel(document);
+		Assert.assertNotSame(model, modified);
+		Assert.assertEquals(misses + 1, XmlModelCache.getMissCount());
+		Assert.assertEquals(2, modified.getTokens().size());
+	}
+
+	@Test
+	public void testGetModelIncremental() throws Exception {
+		IDocument document = new Document(
+				"<package name=\"somename\"><action name=\"a\"></action></package>");
+
+		XmlModelCache.getModel(document);
+		document.replace(document.get().indexOf("<action"), 0,
+				"<action name=\"b\"/>");
+		document.replace(document.get().indexOf("\"a\""), 3, "\"c\"");
+		document.replace(0, 0, "<!-- c -->");
+
+		final long reparses = XmlModelCache.getReparseCount();
+		XmlModel model = XmlModelCache.getModel(document);
+		Assert.assertEquals(reparses + 1, XmlModelCache.getReparseCount());
+		Assert.assertEquals(document.get(), model.getText());
+		Assert.assertEquals(XmlTokenizer.tokenize(document.get()).toString(),
+				model.getTokens().toString());
+		Assert.assertEquals(6, model.getTokens().size());
+	}
+
+	@Test
+	public void testGetModelWhileChanging() throws Exception {
+		final IDocument document = new Document("<package name=\"somename\">");
+
+		XmlModelCache.getModel(document);
+		document.addDocumentListener(new IDocumentListener() {
+			@Override
+			public void documentAboutToBeChanged(DocumentEvent event) {
+				XmlModelCache.getModel(document);
+			}
+
+			@Override
+			public void documentChanged(DocumentEvent event) {
+			}
+		});
+		document.replace(document.getLength(), 0, "</package>");
+
+		final long reparses = XmlModelCache.getReparseCount();
+		XmlModel model = XmlModelCache.getModel(document);
+		Assert.assertEquals(reparses, XmlModelCache.getReparseCount());
+		Assert.assertEquals(document.get(), model.getText());
+		Assert.assertEquals(2, model.getTokens().size());
+	}
+
+	@Test
+	public void testEvict() throws Exception {
+		IDocument document = new Document("<package name=\"somename\">");
+
+		XmlModel model = XmlModelCache.getModel(document);
+		XmlModelCache.evict(document);
+
+		Assert.assertNotSame(model, XmlModelCache.getModel(document));
+	}
+
+	@Test
+	public void testGetTagPartitioning() throws Exception {
+		XmlModel model = XmlModelCache.getModel(new Document(
+				"<package name=\"somename\"></package>"));
+
+		TagPartitioning partitioning = model
+				.getTagPartitioning(new String[] { "package" });
+		Assert.assertEquals(1, partitioning.getTagPartitions().size());
+		Assert.assertSame(partitioning,
+				model.getTagPartitioning(new String[] { "package" }));
+	}
+}
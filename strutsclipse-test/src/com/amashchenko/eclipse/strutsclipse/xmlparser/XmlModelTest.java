@@ -0,0 +1,138 @@
+/*
+ * Copyright 2015-2018 Aleksandr Mashchenko.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.amashchenko.eclipse.strutsclipse.xmlparser;
+
+import java.util.List;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+public class XmlModelTest {
+	private static final String CONTENT = "<?xml version=\"1.0\"?><struts><package name=\"somename\" extends=\"struts-default\">"
+			+ "<!-- comment --><action name=\"someaction\" class=\"SomeClass\"><result>/page.jsp</result></action>"
+			+ "</package></struts>";
+
+	@Test
+	public void testReparseAttrValue() throws Exception {
+		final int offset = CONTENT.indexOf("someaction");
+		assertReparse(CONTENT, offset, 4, "other");
+	}
+
+	@Test
+	public void testReparseInsertTag() throws Exception {
+		final int offset = CONTENT.indexOf("<result>");
+		assertReparse(CONTENT, offset, 0, "<param name=\"p\">v</param>");
+	}
+
+	@Test
+	public void testReparseRemoveTagEnd() throws Exception {
+		final int offset = CONTENT.indexOf("\"someaction\"") + 12;
+		assertReparse(CONTENT, offset, 0, " ");
+		assertReparse(CONTENT, CONTENT.indexOf("<result>") + 7, 1, "");
+	}
+
+	@Test
+	public void testReparseCommentStart() throws Exception {
+		assertReparse(CONTENT, CONTENT.indexOf("<action"), 0, "<!--");
+	}
+
+	@Test
+	public void testReparseTerminateComment() throws Exception {
+		final String content = "<package><!-- <action name=\"a\"></action></package>";
+		XmlModel model = new XmlModel(content, 1);
+		final int offset = content.indexOf("</package>");
+		final String newContent = content.substring(0, offset) + "-->"
+				+ content.substring(offset);
+
+		XmlModel reparsed = model.reparse(newContent, 2, offset, 0, 3);
+		assertTokens(XmlTokenizer.tokenize(newContent), reparsed.getTokens());
+		Assert.assertEquals(3, reparsed.getTokens().size());
+	}
+
+	@Test
+	public void testReparseAllOffsets() throws Exception {
+		final String[] inserts = { "", "<", ">", "\"", "<a>", "-->", "<!--" };
+		for (int offset = 0; offset <= CONTENT.length(); offset++) {
+			for (String insert : inserts) {
+				for (int removed = 0; removed <= 2
+						&& offset + removed <= CONTENT.length(); removed++) {
+					assertReparse(CONTENT, offset, removed, insert);
+				}
+			}
+		}
+	}
+
+	@Test
+	public void testReparseScriptAllOffsets() throws Exception {
+		final String content = "<div><script>if (a<b) { x = '<p>'; }</script><s:url value=\"<%= c %>\"/></div>";
+		final String[] inserts = { "", "<", ">", "</script>", "<script>",
+				"<%" };
+		for (int offset = 0; offset <= content.length(); offset++) {
+			for (String insert : inserts) {
+				for (int removed = 0; removed <= 2
+						&& offset + removed <= content.length(); removed++) {
+					assertReparse(content, offset, removed, insert);
+				}
+			}
+		}
+	}
+
+	@Test
+	public void testReparseReusesTokens() throws Exception {
+		XmlModel model = new XmlModel(CONTENT, 1);
+		final int offset = CONTENT.indexOf("someaction");
+		final String newContent = CONTENT.substring(0, offset) + "x"
+				+ CONTENT.substring(offset);
+
+		XmlModel reparsed = model.reparse(newContent, 2, offset, 0, 1);
+		Assert.assertEquals(2, reparsed.getModificationStamp());
+		// tokens before the edit are the same
+		Assert.assertSame(model.getTokens().get(0), reparsed.getTokens()
+				.get(0));
+		Assert.assertSame(model.getTokens().get(3), reparsed.getTokens()
+				.get(3));
+	}
+
+	private static void assertReparse(final String content, final int offset,
+			final int removedLength, final String insert) {
+		XmlModel model = new XmlModel(content, 1);
+		final String newContent = content.substring(0, offset) + insert
+				+ content.substring(offset + removedLength);
+		XmlModel reparsed = model.reparse(newContent, 2, offset,
+				removedLength, insert.length());
+		assertTokens(XmlTokenizer.tokenize(newContent), reparsed.getTokens());
+	}
+
+	private static void assertTokens(final List<XmlToken> expected,
+			final List<XmlToken> actual) {
+		Assert.assertEquals(expected.size(), actual.size());
+		for (int i = 0; i < expected.size(); i++) {
+			XmlToken e = expected.get(i);
+			XmlToken a = actual.get(i);
+			Assert.assertEquals(e.toString(), a.toString());
+			Assert.assertEquals(e.getAttrs().size(), a.getAttrs().size());
+			for (int j = 0; j < e.getAttrs().size(); j++) {
+				Assert.assertEquals(e.getAttrs().get(j).getName(), a
+						.getAttrs().get(j).getName());
+				Assert.assertEquals(e.getAttrs().get(j).getValue(), a
+						.getAttrs().get(j).getValue());
+				Assert.assertEquals(e.getAttrs().get(j).getValueRegion()
+						.getOffset(), a.getAttrs().get(j).getValueRegion()
+						.getOffset());
+			}
+		}
+	}
+}
@@ -0,0 +1,146 @@
+/*
+ * Copyright 2015-2018 Aleksandr Mashchenko.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.amashchenko.eclipse.strutsclipse.xmlparser;
+
+import java.util.List;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+public class XmlTokenizerTest {
+	@Test
+	public void testTokenize() throws Exception {
+		final String content = "<?xml version=\"1.0\"?><!-- <package name=\"commented\"> --><package name=\"somename\" extends='some'>text</package>";
+		List<XmlToken> tokens = XmlTokenizer.tokenize(content);
+
+		Assert.assertNotNull(tokens);
+		Assert.assertEquals(4, tokens.size());
+
+		Assert.assertEquals(XmlToken.DECLARATION, tokens.get(0).getType());
+		Assert.assertEquals(XmlToken.COMMENT, tokens.get(1).getType());
+
+		XmlToken startTag = tokens.get(2);
+		Assert.assertEquals(XmlToken.START_TAG, startTag.getType());
+		Assert.assertEquals("package", startTag.getName());
+		Assert.assertEquals(content.indexOf("<package name=\"somename\""),
+				startTag.getOffset());
+		Assert.assertEquals(content.indexOf("text"), startTag.getEndOffset());
+
+		Assert.assertEquals(2, startTag.getAttrs().size());
+		Assert.assertEquals("name", startTag.getAttrs().get(0).getName());
+		Assert.assertEquals("somename", startTag.getAttrs().get(0).getValue());
+		Assert.assertEquals(content.indexOf("somename"), startTag.getAttrs()
+				.get(0).getValueRegion().getOffset());
+		Assert.assertEquals("extends", startTag.getAttrs().get(1).getName());
+		Assert.assertEquals("some", startTag.getAttrs().get(1).getValue());
+
+		Assert.assertEquals(XmlToken.END_TAG, tokens.get(3).getType());
+		Assert.assertEquals("package", tokens.get(3).getName());
+	}
+
+	@Test
+	public void testTokenizeLineBrakes() throws Exception {
+		final String content = "<action name\n=\n\"someaction\" method=\n'somemethod' unquoted=value></action>";
+		List<XmlToken> tokens = XmlTokenizer.tokenize(content);
+
+		Assert.assertEquals(2, tokens.size());
+		Assert.assertEquals(2, tokens.get(0).getAttrs().size());
+		Assert.assertEquals("someaction", tokens.get(0).getAttrs().get(0)
+				.getValue());
+		Assert.assertEquals("somemethod", tokens.get(0).getAttrs().get(1)
+				.getValue());
+	}
+
+	@Test
+	public void testTokenizeUnterminated() throws Exception {
+		final String content = "<!-- <action name=\"in\"></action>";
+		List<XmlToken> tokens = XmlTokenizer.tokenize(content);
+
+		Assert.assertEquals(2, tokens.size());
+		Assert.assertEquals(XmlToken.START_TAG, tokens.get(0).getType());
+		Assert.assertEquals("action", tokens.get(0).getName());
+	}
+
+	@Test
+	public void testTokenizeJsp() throws Exception {
+		final String content = "<% if (a<b) { %><s:url value=\"<%= x %>\"/>";
+		List<XmlToken> tokens = XmlTokenizer.tokenize(content);
+
+		Assert.assertEquals(2, tokens.size());
+		Assert.assertEquals(XmlToken.DECLARATION, tokens.get(0).getType());
+		Assert.assertEquals(XmlToken.START_TAG, tokens.get(1).getType());
+		Assert.assertEquals("s:url", tokens.get(1).getName());
+	}
+
+	@Test
+	public void testTokenizeNotTag() throws Exception {
+		final String content = "a<b&&c <d=1 <e<f> <g\"h\"> <1> <i/>";
+		List<XmlToken> tokens = XmlTokenizer.tokenize(content);
+
+		Assert.assertEquals(2, tokens.size());
+		Assert.assertEquals("f", tokens.get(0).getName());
+		Assert.assertEquals("i", tokens.get(1).getName());
+	}
+
+	@Test
+	public void testTokenizeJspInTag() throws Exception {
+		final String content = "<s:url value=\"<%= a > b %>\" id=\"u\"/>";
+		List<XmlToken> tokens = XmlTokenizer.tokenize(content);
+
+		Assert.assertEquals(1, tokens.size());
+		Assert.assertEquals(content.length(), tokens.get(0).getEndOffset());
+		Assert.assertEquals(2, tokens.get(0).getAttrs().size());
+		Assert.assertEquals("u", tokens.get(0).getAttrs().get(1).getValue());
+	}
+
+	@Test
+	public void testTokenizeScript() throws Exception {
+		final String content = "<script>if (a<b) { x = '<div>'; }</SCRIPT><script src=\"s.js\"/><s:url/>";
+		List<XmlToken> tokens = XmlTokenizer.tokenize(content);
+
+		Assert.assertEquals(4, tokens.size());
+		Assert.assertEquals("script", tokens.get(0).getName());
+		Assert.assertEquals(XmlToken.END_TAG, tokens.get(1).getType());
+		Assert.assertEquals("SCRIPT", tokens.get(1).getName());
+		Assert.assertEquals("script", tokens.get(2).getName());
+		Assert.assertEquals("s:url", tokens.get(3).getName());
+	}
+
+	@Test
+	public void testTokenizeUnterminatedScript() throws Exception {
+		XmlTokenizer tokenizer = new XmlTokenizer(
+				"<p><script>var a = '<div>';");
+		tokenizer.scan(0, null, 0, 0, 0);
+
+		Assert.assertEquals(2, tokenizer.getTokens().size());
+		Assert.assertEquals(3, tokenizer.getUnterminatedOffset());
+	}
+
+	@Test
+	public void testGetAttrAt() throws Exception {
+		final String content = "<action name=\"someaction\" class='SomeClass'>";
+		XmlToken token = XmlTokenizer.tokenize(content).get(0);
+
+		Assert.assertNull(token.getAttrAt(1));
+		Assert.assertEquals("name",
+				token.getAttrAt(content.indexOf("someaction") - 1).getName());
+		Assert.assertEquals("name",
+				token.getAttrAt(content.indexOf(" class") - 1).getName());
+		Assert.assertNull(token.getAttrAt(content.indexOf(" class")));
+		Assert.assertEquals("class",
+				token.getAttrAt(content.indexOf("SomeClass") + 3).getName());
+	}
+}
@@ -39,7 +39,7 @@ public class TilesXmlCompletionProposalComputer implements
 	private final CompletionProposalComparator proposalComparator;
 
 	public TilesXmlCompletionProposalComputer() {
-		tilesXmlParser = new TilesXmlParser();
+		tilesXmlParser = TilesXmlParser.getDefault();
 		proposalComparator = new CompletionProposalComparator();
 		proposalComparator.setOrderAlphabetically(true);
 	}
@@ -33,7 +33,7 @@ public class TilesXmlHyperlinkDetector extends AbstractStrutsHyperlinkDetector
 	private final TilesXmlParser tilesXmlParser;
 
 	public TilesXmlHyperlinkDetector() {
-		tilesXmlParser = new TilesXmlParser();
+		tilesXmlParser = TilesXmlParser.getDefault();
 	}
 
 	@Override
@@ -38,7 +38,7 @@ public class TilesXmlValidator extends AbstractXmlValidator {
 	private final TilesXmlParser tilesXmlParser;
 
 	public TilesXmlValidator() {
-		tilesXmlParser = new TilesXmlParser();
+		tilesXmlParser = TilesXmlParser.getDefault();
 	}
 
 	@Override